@@ -0,0 +1,67 @@
+package com.springboot.project.config;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import java.util.concurrent.ThreadLocalRandom;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.core.annotation.Order;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import lombok.extern.slf4j.Slf4j;
+
+// Retry policy for @RetryOnConflict; ordered ahead of the transaction advice so each attempt gets a fresh transaction
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConflictRetryAspect {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.retry.conflict.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.retry.conflict.backoff-ms:20}")
+    private long backoffMs;
+
+    @Value("${app.retry.conflict.max-backoff-ms:1000}")
+    private long maxBackoffMs;
+
+    @Around("@annotation(com.springboot.project.config.RetryOnConflict)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+            + joinPoint.getSignature().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (ConcurrencyFailureException e) {
+                boolean exhausted = attempt >= maxAttempts;
+                meterRegistry.counter("app.conflicts", "operation", operation,
+                    "cause", e.getClass().getSimpleName(),
+                    "outcome", exhausted ? "exhausted" : "retried").increment();
+                if (exhausted) {
+                    log.warn("{} still conflicting after {} attempts", operation, attempt);
+                    throw e;
+                }
+                log.debug("{} conflicted on attempt {}, retrying: {}", operation, attempt, e.getMessage());
+                Thread.sleep(backoff(attempt));
+            }
+        }
+    }
+
+    // Full jitter: a random wait up to an exponentially growing cap, so contending writers spread out
+    private long backoff(int attempt) {
+        long cap = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -0,0 +1,13 @@
+package com.springboot.project.config;
+
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+// Re-run the whole transaction when it loses an optimistic-lock or lock-acquisition race.
+// Only takes effect on the outermost call; inside an existing transaction the caller owns the retry.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
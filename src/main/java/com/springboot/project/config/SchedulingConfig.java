@@ -0,0 +1,9 @@
+package com.springboot.project.config;
+
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
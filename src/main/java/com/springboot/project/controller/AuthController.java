@@ -3,14 +3,20 @@ package com.springboot.project.controller;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.BindingResult;
+import com.springboot.project.service.registration.AvailabilityService;
+import com.springboot.project.service.ranking.RankingService;
+import com.springboot.project.service.SalesRollupService;
 import com.springboot.project.service.UserService;
 import org.springframework.stereotype.Controller;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.springboot.project.entity.User;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.springframework.ui.Model;
 import jakarta.validation.Valid;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Controller
 @RequiredArgsConstructor
@@ -18,6 +24,15 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private RankingService rankingService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
     @GetMapping("/")
     public String home() {
         return "redirect:/login";
@@ -36,6 +51,25 @@ public class AuthController {
         return "register";
     }
 
+    // Live availability check for the registration form
+    @GetMapping("/register/availability")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> checkAvailability(@RequestParam(required = false) String username,
+                                                                 @RequestParam(required = false) String email) {
+        if ((username == null || username.isBlank()) && (email == null || email.isBlank())) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (username != null && !username.isBlank()) {
+            body.put("usernameAvailable", availabilityService.isUsernameAvailable(username));
+        }
+        if (email != null && !email.isBlank()) {
+            body.put("emailAvailable", availabilityService.isEmailAvailable(email));
+        }
+        return ResponseEntity.ok(body);
+    }
+
     // Process login
     @PostMapping("/login")
     public String processLogin(@RequestParam String username, 
@@ -100,9 +134,23 @@ public class AuthController {
             return "redirect:/login";
         }
         model.addAttribute("user", user);
+        model.addAttribute("sales", salesRollupService.getDashboard(30, 5));
+        model.addAttribute("rankings", rankingService.getSnapshot(5));
         return "admin-dashboard";
     }
     
+    // Recompute the sales rollups from order history
+    @PostMapping("/admin/dashboard/rebuild-analytics")
+    public String rebuildAnalytics(HttpSession session, RedirectAttributes redirectAttributes) {
+        User user = (User) session.getAttribute("user");
+        if (user == null || user.getType() != User.userType.ADMIN) {
+            return "redirect:/login";
+        }
+        int bills = salesRollupService.rebuild();
+        redirectAttributes.addFlashAttribute("successMessage", "Sales analytics rebuilt from " + bills + " orders.");
+        return "redirect:/admin/dashboard";
+    }
+    
     @GetMapping("/staff/dashboard")
     public String staffDashboard(HttpSession session, Model model) {
         User user = (User) session.getAttribute("user");
@@ -110,6 +158,7 @@ public class AuthController {
             return "redirect:/login";
         }
         model.addAttribute("user", user);
+        model.addAttribute("rankings", rankingService.getSnapshot(5));
         return "staff-dashboard";
     }
     
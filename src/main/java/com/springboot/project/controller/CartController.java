@@ -2,13 +2,14 @@ package com.springboot.project.controller;
 
 import com.springboot.project.entity.*;
 import com.springboot.project.service.CartService;
-import com.springboot.project.service.OrderService;
+import com.springboot.project.service.CheckoutService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.ui.Model;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/cart")
@@ -18,7 +19,7 @@ public class CartController {
     private CartService cartService;
 
     @Autowired
-    private OrderService orderService;
+    private CheckoutService checkoutService;
 
     // View cart
     @GetMapping
@@ -31,6 +32,7 @@ public class CartController {
         Cart cart = cartService.getCart(currentUser);
         model.addAttribute("cart", cart);
         model.addAttribute("user", currentUser);
+        model.addAttribute("checkoutKey", UUID.randomUUID().toString());
         
         return "cart";
     }
@@ -138,18 +140,16 @@ public class CartController {
 
     // Checkout - convert cart to order
     @PostMapping("/checkout")
-    public String checkout(HttpSession session, RedirectAttributes redirectAttributes) {
+    public String checkout(@RequestParam(value = "checkoutKey", required = false) String checkoutKey,
+                           HttpSession session, RedirectAttributes redirectAttributes) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null || currentUser.getType() != User.userType.CUSTOMER) {
             return "redirect:/login";
         }
 
         try {
-            Bill order = cartService.convertCartToOrder(currentUser);
-            Bill savedOrder = orderService.createOrderFromCart(order);
-            
-            // Clear cart after successful order creation
-            cartService.clearCart(currentUser);
+            // Resubmitting the same cart page returns the order it already created
+            Bill savedOrder = checkoutService.checkout(currentUser, checkoutKey);
             
             redirectAttributes.addFlashAttribute("successMessage", 
                 "Order created successfully! Order Number: " + savedOrder.getBillNumber());
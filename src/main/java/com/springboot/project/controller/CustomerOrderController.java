@@ -40,15 +40,10 @@ public class CustomerOrderController {
             return "redirect:/login";
         }
 
-        Optional<Bill> orderOpt = orderService.getOrderById(orderId);
+        // Only finds the order if it belongs to the current customer
+        Optional<Bill> orderOpt = orderService.getCustomerOrderAggregate(orderId, currentUser.getAccountNumber());
         if (orderOpt.isPresent()) {
             Bill order = orderOpt.get();
-            
-            // Ensure the order belongs to the current customer
-            if (!order.getCustomer().getAccountNumber().equals(currentUser.getAccountNumber())) {
-                return "redirect:/customer/orders";
-            }
-            
             model.addAttribute("order", order);
             model.addAttribute("user", currentUser);
             return "customer-order-details";
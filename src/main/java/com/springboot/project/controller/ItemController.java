@@ -1,11 +1,18 @@
 package com.springboot.project.controller;
 
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.BindingResult;
+import com.springboot.project.service.recommendation.CoPurchaseService;
+import com.springboot.project.service.CatalogVersion;
+import com.springboot.project.service.FragmentCache;
 import com.springboot.project.service.ItemService;
+import com.springboot.project.service.CartService;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.stereotype.Controller;
+import com.springboot.project.dto.CartSummary;
 import com.springboot.project.entity.Item;
 import com.springboot.project.entity.User;
 import jakarta.servlet.http.HttpSession;
@@ -13,7 +20,9 @@ import org.springframework.ui.Model;
 import jakarta.validation.Valid;
 import java.math.RoundingMode;
 import java.math.BigDecimal;
+import java.time.ZoneId;
 import java.util.Optional;
+import java.util.Map;
 import java.util.List;
 
 @Controller
@@ -23,6 +32,18 @@ public class ItemController {
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CoPurchaseService coPurchaseService;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private FragmentCache fragmentCache;
+
     // ADMIN ROUTES - Full CRUD operations
     @GetMapping("/admin")
     public String adminItemList(HttpSession session, Model model) {
@@ -68,7 +89,7 @@ public class ItemController {
             return "add-item";
         }
 
-        itemService.saveItem(item);
+        itemService.saveItem(item, currentUser.getAccountNumber());
         redirectAttributes.addFlashAttribute("successMessage", "Item added successfully!");
         return "redirect:/items/admin";
     }
@@ -111,8 +132,12 @@ public class ItemController {
         }
 
         item.setItemCode(itemCode);
-        itemService.updateItem(item);
-        redirectAttributes.addFlashAttribute("successMessage", "Item updated successfully!");
+        try {
+            itemService.updateItem(item, currentUser.getAccountNumber());
+            redirectAttributes.addFlashAttribute("successMessage", "Item updated successfully!");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Error updating item: " + e.getMessage());
+        }
         return "redirect:/items/admin";
     }
 
@@ -124,21 +149,21 @@ public class ItemController {
             return "redirect:/login";
         }
 
-        itemService.deleteItem(itemCode);
+        itemService.deleteItem(itemCode, currentUser.getAccountNumber());
         redirectAttributes.addFlashAttribute("successMessage", "Item deleted successfully!");
         return "redirect:/items/admin";
     }
 
     // STAFF ROUTES - List all and update quantity only
     @GetMapping("/staff")
-    public String staffItemList(HttpSession session, Model model) {
+    public String staffItemList(HttpSession session, Model model, ServletWebRequest webRequest) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null || currentUser.getType() != User.userType.STAFF) {
             return "redirect:/login";
         }
 
-        List<Item> items = itemService.getAllItems();
-        model.addAttribute("items", items);
+        model.addAttribute("itemTable", fragmentCache.getCatalogFragment("staff-items", "item-table", webRequest,
+            () -> Map.of("items", itemService.getAllItems())));
         model.addAttribute("user", currentUser);
         return "staff-items";
     }
@@ -152,7 +177,7 @@ public class ItemController {
             return "redirect:/login";
         }
 
-        Item updatedItem = itemService.updateItemQuantity(itemCode, stockQuantity);
+        Item updatedItem = itemService.updateItemQuantity(itemCode, stockQuantity, currentUser.getAccountNumber());
         if (updatedItem != null) {
             redirectAttributes.addFlashAttribute("successMessage", "Stock quantity updated successfully!");
         } else {
@@ -164,49 +189,83 @@ public class ItemController {
 
     // CUSTOMER ROUTES - View list and item details
     @GetMapping("/customer")
-    public String customerItemList(HttpSession session, Model model) {
+    public String customerItemList(HttpSession session, Model model, ServletWebRequest webRequest) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null || currentUser.getType() != User.userType.CUSTOMER) {
             return "redirect:/login";
         }
 
-        List<Item> items = itemService.getActiveItems();
-        model.addAttribute("items", items);
-        model.addAttribute("user", currentUser);
-
-        if (!items.isEmpty()) {
-            BigDecimal totalPrice = items.stream()
-                .filter(item -> item.getStatus() == Item.ItemStatus.ACTIVE)
-                .map(Item::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal avaragePrice = totalPrice.divide(
-                BigDecimal.valueOf(items.size()),
-                2,
-                RoundingMode.HALF_UP
-            );
-            model.addAttribute("averagePrice", avaragePrice);
-        } else {
-            model.addAttribute("averagePrice", BigDecimal.ZERO);
+        CartSummary cartSummary = cartService.getCartSummary(currentUser);
+        if (isNotModified(webRequest, currentUser, cartSummary)) {
+            return null;
         }
 
+        model.addAttribute("itemGrid", fragmentCache.getCatalogFragment("customer-items", "item-grid", webRequest,
+            () -> {
+                List<Item> items = itemService.getActiveItems();
+                return Map.of("items", items, "averagePrice", averagePrice(items));
+            }));
+        model.addAttribute("user", currentUser);
+        model.addAttribute("cartSummary", cartSummary);
+
         return "customer-items";
     }
 
     @GetMapping("/customer/details/{itemCode}")
-    public String itemDetails(@PathVariable Long itemCode, HttpSession session, Model model) {
+    public String itemDetails(@PathVariable Long itemCode, HttpSession session, Model model,
+                              ServletWebRequest webRequest) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null || currentUser.getType() != User.userType.CUSTOMER) {
             return "redirect:/login";
         }
 
+        CartSummary cartSummary = cartService.getCartSummary(currentUser);
+        if (isNotModified(webRequest, currentUser, cartSummary)) {
+            return null;
+        }
+
         Optional<Item> itemOpt = itemService.getItemById(itemCode);
         if (itemOpt.isPresent() && itemOpt.get().getStatus() == Item.ItemStatus.ACTIVE) {
             model.addAttribute("item", itemOpt.get());
             model.addAttribute("user", currentUser);
+            model.addAttribute("cartSummary", cartSummary);
+            model.addAttribute("alsoBought", coPurchaseService.getAlsoBought(itemCode, 4));
             return "item-details";
         }
 
         return "redirect:/items/customer";
     }
+
+    private static BigDecimal averagePrice(List<Item> items) {
+        if (items.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal totalPrice = items.stream()
+            .filter(item -> item.getStatus() == Item.ItemStatus.ACTIVE)
+            .map(Item::getPrice)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return totalPrice.divide(BigDecimal.valueOf(items.size()), 2, RoundingMode.HALF_UP);
+    }
+
+    // Conditional GET for catalogue pages. The version is read before any data is loaded, so a page is never
+    // rendered from older data than its ETag claims. The ETag also covers what the page shows about the
+    // customer (name and cart badge); Last-Modified is the later of the catalogue and cart changes.
+    private boolean isNotModified(ServletWebRequest webRequest, User customer, CartSummary cartSummary) {
+        webRequest.getResponse().setHeader("Cache-Control", "private, no-cache");
+
+        // Flash messages are shown once, so a redirect target carrying them is always rendered
+        if (RequestContextUtils.getInputFlashMap(webRequest.getRequest()) != null) {
+            return false;
+        }
+
+        // Weak, because the same page is served gzipped or not (Tomcat will not compress under a strong ETag)
+        String etag = "W/\"" + catalogVersion.current() + "-" + customer.getAccountNumber()
+            + "-" + Integer.toHexString(String.valueOf(customer.getName()).hashCode())
+            + "-" + cartSummary.itemCount() + "-" + cartSummary.totalAmount().stripTrailingZeros().toPlainString() + "\"";
+        long lastModified = catalogVersion.lastModified();
+        if (cartSummary.updatedAt() != null) {
+            lastModified = Math.max(lastModified, cartSummary.updatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        return webRequest.checkNotModified(etag, lastModified);
+    }
 }
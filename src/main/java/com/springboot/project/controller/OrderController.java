@@ -2,12 +2,19 @@ package com.springboot.project.controller;
 
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.service.OrderConfirmationService;
+import com.springboot.project.service.lookup.LookupService;
 import com.springboot.project.service.OrderService;
+import com.springboot.project.dto.CustomerLookup;
+import com.springboot.project.dto.ItemLookup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpSession;
 import com.springboot.project.entity.*;
 import org.springframework.ui.Model;
+import java.util.LinkedHashMap;
 import java.util.Optional;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +26,12 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private OrderConfirmationService orderConfirmationService;
+    
+    @Autowired
+    private LookupService lookupService;
+    
     // Display all orders (for staff and admin)
     @GetMapping
     public String viewOrders(Model model, HttpSession session) {
@@ -41,15 +54,37 @@ public class OrderController {
             return "redirect:/login";
         }
         
-        List<User> customers = orderService.getAllCustomers();
-        List<Item> items = orderService.getActiveItems();
-        
-        model.addAttribute("customers", customers);
-        model.addAttribute("items", items);
+        // Customers and items are picked through the lookup endpoints below
         model.addAttribute("user", currentUser);
         return "create-order";
     }
     
+    // Typeahead search for the order forms' customer picker
+    @GetMapping("/lookup/customers")
+    @ResponseBody
+    public ResponseEntity<List<CustomerLookup>> lookupCustomers(@RequestParam("q") String query,
+                                                                @RequestParam(defaultValue = "20") int limit,
+                                                                HttpSession session) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null || currentUser.getType() == User.userType.CUSTOMER) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(lookupService.findCustomers(query, limit));
+    }
+    
+    // Typeahead search for the order forms' item picker (active items only)
+    @GetMapping("/lookup/items")
+    @ResponseBody
+    public ResponseEntity<List<ItemLookup>> lookupItems(@RequestParam("q") String query,
+                                                        @RequestParam(defaultValue = "20") int limit,
+                                                        HttpSession session) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null || currentUser.getType() == User.userType.CUSTOMER) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(lookupService.findItems(query, limit));
+    }
+    
     // Create a new order
     @PostMapping("/create")
     public String createOrder(@RequestParam("customerId") Long customerId, 
@@ -89,11 +124,8 @@ public class OrderController {
                 return "redirect:/orders/create";
             }
             
-            // Create the order first
-            Bill order = orderService.createOrder(customerId);
-            
-            // Add items to the order
-            int itemsAdded = 0;
+            // Collect itemCode -> quantity for the selected items
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
             for (Long itemId : itemIds) {
                 String quantityKey = "quantities[" + itemId + "]";
                 String quantityStr = allParams.get(quantityKey);
@@ -101,8 +133,7 @@ public class OrderController {
                     try {
                         Integer quantity = Integer.parseInt(quantityStr);
                         if (quantity > 0) {
-                            orderService.addItemToOrder(order.getBillNumber(), itemId, quantity);
-                            itemsAdded++;
+                            quantities.merge(itemId, quantity, Integer::sum);
                         }
                     } catch (NumberFormatException e) {
                         // Skip invalid quantity values
@@ -110,16 +141,16 @@ public class OrderController {
                 }
             }
             
-            if (itemsAdded == 0) {
+            if (quantities.isEmpty()) {
                 redirectAttributes.addFlashAttribute("errorMessage", "No valid items were added to the order.");
                 return "redirect:/orders/create";
             }
             
-            // Calculate totals
-            orderService.calculateOrderTotals(order.getBillNumber());
+            // Create the order and all of its lines in one transaction
+            Bill order = orderService.createOrderWithItems(customerId, quantities);
             
             redirectAttributes.addFlashAttribute("successMessage", 
-                "Order created successfully with " + itemsAdded + " items!");
+                "Order created successfully with " + quantities.size() + " items!");
             return "redirect:/orders/" + order.getBillNumber() + "/edit";
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Error creating order: " + e.getMessage());
@@ -135,13 +166,11 @@ public class OrderController {
             return "redirect:/login";
         }
         
-        Optional<Bill> orderOpt = orderService.getOrderById(orderId);
+        Optional<Bill> orderOpt = orderService.getOrderAggregate(orderId);
         if (orderOpt.isPresent()) {
             Bill order = orderOpt.get();
-            List<Item> availableItems = orderService.getActiveItems();
-            
             model.addAttribute("order", order);
-            model.addAttribute("availableItems", availableItems);
+            model.addAttribute("confirmation", orderConfirmationService.getLatestConfirmation(orderId).orElse(null));
             model.addAttribute("user", currentUser);
             return "edit-order";
         } else {
@@ -214,7 +243,28 @@ public class OrderController {
         return "redirect:/orders/" + orderId + "/edit";
     }
     
-    // Confirm order (finalize and reduce stock)
+    // Apply or remove a coupon code on an order
+    @PostMapping("/{orderId}/coupon")
+    public String applyCoupon(@PathVariable Long orderId,
+                            @RequestParam(value = "couponCode", required = false) String couponCode,
+                            RedirectAttributes redirectAttributes,
+                            HttpSession session) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null || currentUser.getType() == User.userType.CUSTOMER) {
+            return "redirect:/login";
+        }
+        
+        try {
+            orderService.applyCoupon(orderId, couponCode);
+            redirectAttributes.addFlashAttribute("successMessage", "Coupon updated successfully!");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Error applying coupon: " + e.getMessage());
+        }
+        
+        return "redirect:/orders/" + orderId + "/edit";
+    }
+    
+    // Confirm order (queued; stock is reduced by the confirmation consumer)
     @PostMapping("/{orderId}/confirm")
     public String confirmOrder(@PathVariable Long orderId,
                              RedirectAttributes redirectAttributes,
@@ -225,14 +275,34 @@ public class OrderController {
         }
         
         try {
-            Bill confirmedOrder = orderService.confirmOrder(orderId);
+            orderConfirmationService.submit(orderId);
             redirectAttributes.addFlashAttribute("successMessage", 
-                "Order confirmed successfully! Order Number: " + confirmedOrder.getBillNumber());
-            return "redirect:/orders";
+                "Order #" + orderId + " has been queued for confirmation.");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Error confirming order: " + e.getMessage());
-            return "redirect:/orders/" + orderId + "/edit";
         }
+        return "redirect:/orders/" + orderId + "/edit";
+    }
+    
+    // Poll the confirmation status of an order
+    @GetMapping("/{orderId}/confirmation")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> confirmationStatus(@PathVariable Long orderId, HttpSession session) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null || currentUser.getType() == User.userType.CUSTOMER) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Optional<OrderConfirmation> confirmation = orderConfirmationService.getLatestConfirmation(orderId);
+        if (confirmation.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("billNumber", orderId);
+        body.put("status", confirmation.get().getStatus().name());
+        body.put("errorMessage", confirmation.get().getErrorMessage());
+        return ResponseEntity.ok(body);
     }
     
     // View order details (read-only)
@@ -243,7 +313,7 @@ public class OrderController {
             return "redirect:/login";
         }
         
-        Optional<Bill> orderOpt = orderService.getOrderById(orderId);
+        Optional<Bill> orderOpt = orderService.getOrderAggregate(orderId);
         if (orderOpt.isPresent()) {
             Bill order = orderOpt.get();
             model.addAttribute("order", order);
@@ -0,0 +1,98 @@
+package com.springboot.project.controller;
+
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import com.springboot.project.service.pricing.PricingRuleService;
+import com.springboot.project.service.BusinessException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import com.springboot.project.entity.*;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.ui.Model;
+
+@Controller
+@RequestMapping("/admin/pricing")
+public class PricingController {
+
+    @Autowired
+    private PricingRuleService pricingRuleService;
+
+    // Tax rules, promotions and coupons overview
+    @GetMapping
+    public String pricingRules(HttpSession session, Model model) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null || currentUser.getType() != User.userType.ADMIN) {
+            return "redirect:/login";
+        }
+
+        model.addAttribute("taxRules", pricingRuleService.getAllTaxRules());
+        model.addAttribute("promotions", pricingRuleService.getAllPromotions());
+        model.addAttribute("coupons", pricingRuleService.getAllCoupons());
+        model.addAttribute("promotionTypes", Promotion.PromotionType.values());
+        model.addAttribute("user", currentUser);
+        return "pricing-rules";
+    }
+
+    @PostMapping("/tax-rules")
+    public String addTaxRule(@ModelAttribute TaxRule taxRule, HttpSession session,
+                             RedirectAttributes redirectAttributes) {
+        return update(session, redirectAttributes, "Tax rule saved successfully!",
+            () -> pricingRuleService.saveTaxRule(taxRule));
+    }
+
+    @PostMapping("/promotions")
+    public String addPromotion(@ModelAttribute Promotion promotion, HttpSession session,
+                               RedirectAttributes redirectAttributes) {
+        return update(session, redirectAttributes, "Promotion saved successfully!",
+            () -> pricingRuleService.savePromotion(promotion));
+    }
+
+    @PostMapping("/coupons")
+    public String addCoupon(@ModelAttribute Coupon coupon, HttpSession session,
+                            RedirectAttributes redirectAttributes) {
+        return update(session, redirectAttributes, "Coupon saved successfully!",
+            () -> pricingRuleService.saveCoupon(coupon));
+    }
+
+    @PostMapping("/{kind}/{id}/toggle")
+    public String toggleRule(@PathVariable String kind, @PathVariable Long id, HttpSession session,
+                             RedirectAttributes redirectAttributes) {
+        return update(session, redirectAttributes, "Rule updated successfully!", () -> {
+            switch (kind) {
+                case "tax-rules" -> pricingRuleService.toggleTaxRule(id);
+                case "promotions" -> pricingRuleService.togglePromotion(id);
+                case "coupons" -> pricingRuleService.toggleCoupon(id);
+                default -> throw new BusinessException("Unknown rule type: " + kind);
+            }
+        });
+    }
+
+    @PostMapping("/{kind}/{id}/delete")
+    public String deleteRule(@PathVariable String kind, @PathVariable Long id, HttpSession session,
+                             RedirectAttributes redirectAttributes) {
+        return update(session, redirectAttributes, "Rule deleted successfully!", () -> {
+            switch (kind) {
+                case "tax-rules" -> pricingRuleService.deleteTaxRule(id);
+                case "promotions" -> pricingRuleService.deletePromotion(id);
+                case "coupons" -> pricingRuleService.deleteCoupon(id);
+                default -> throw new BusinessException("Unknown rule type: " + kind);
+            }
+        });
+    }
+
+    private String update(HttpSession session, RedirectAttributes redirectAttributes,
+                          String successMessage, Runnable action) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null || currentUser.getType() != User.userType.ADMIN) {
+            return "redirect:/login";
+        }
+
+        try {
+            action.run();
+            redirectAttributes.addFlashAttribute("successMessage", successMessage);
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Error saving pricing rule: " + e.getMessage());
+        }
+        return "redirect:/admin/pricing";
+    }
+}
@@ -0,0 +1,100 @@
+package com.springboot.project.controller;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.springboot.project.service.ReportService.ExportFormat;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.service.ReportService;
+import com.springboot.project.service.inventory.StockReconciliation;
+import org.springframework.http.ContentDisposition;
+import com.springboot.project.dto.ReportFilter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import jakarta.servlet.http.HttpSession;
+import com.springboot.project.entity.*;
+import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Locale;
+
+// Staff/admin report downloads, streamed as CSV or JSON Lines
+@Controller
+@RequestMapping("/reports")
+public class ReportController {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private StockReconciliation stockReconciliation;
+
+    // Orders with their lines and customer details
+    @GetMapping("/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Bill.BillStatus status,
+            HttpSession session) {
+        ReportFilter filter = new ReportFilter(from, to, status);
+        return export(session, "orders", format,
+            (exportFormat, out) -> reportService.exportOrders(filter, exportFormat, out));
+    }
+
+    // Units sold and revenue per item
+    @GetMapping("/sales")
+    public ResponseEntity<StreamingResponseBody> exportSales(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Bill.BillStatus status,
+            HttpSession session) {
+        ReportFilter filter = new ReportFilter(from, to, status);
+        return export(session, "sales", format,
+            (exportFormat, out) -> reportService.exportItemSales(filter, exportFormat, out));
+    }
+
+    // Items whose stock differs from the journal baseline plus restocks minus confirmed sales (report only)
+    @GetMapping("/stock-reconciliation")
+    public ResponseEntity<StreamingResponseBody> exportStockReconciliation(HttpSession session) {
+        return export(session, "stock-reconciliation", "csv",
+            (exportFormat, out) -> Files.copy(stockReconciliation.reconcile(false).report(), out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(HttpSession session, String name, String format,
+                                                         ReportWriter reportWriter) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null || currentUser.getType() == User.userType.CUSTOMER) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String extension = exportFormat == ExportFormat.CSV ? "csv" : "jsonl";
+        MediaType contentType = exportFormat == ExportFormat.CSV
+            ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+            : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        String filename = name + "-" + LocalDate.now() + "." + extension;
+
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+            .body(out -> reportWriter.write(exportFormat, out));
+    }
+
+    @FunctionalInterface
+    private interface ReportWriter {
+        void write(ExportFormat format, OutputStream out) throws IOException;
+    }
+}
@@ -2,64 +2,73 @@ package com.springboot.project.controller;
 
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.BindingResult;
+import com.springboot.project.service.BusinessException;
 import com.springboot.project.service.UserService;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.stereotype.Controller;
+import com.springboot.project.dto.UserFilter;
 import com.springboot.project.entity.User;
+import com.springboot.project.dto.UserPage;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.ui.Model;
 import jakarta.validation.Valid;
-import java.util.List;
+import java.time.LocalDate;
 
 @Controller
 @RequestMapping("/users")
 public class UserController {
 
+    private static final int PAGE_SIZE = 50;
+
     @Autowired
     private UserService userService;
 
     // Admin: List all users by type
     @GetMapping("/admin/customers")
-    public String listCustomers(HttpSession session, Model model) {
+    public String listCustomers(@RequestParam(required = false) String q,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                @RequestParam(required = false) String after,
+                                HttpSession session, Model model) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null || currentUser.getType() != User.userType.ADMIN) {
             return "redirect:/login";
         }
         
-        List<User> customers = userService.getAllCustomers();
-        model.addAttribute("users", customers);
-        model.addAttribute("userType", "Customers");
-        model.addAttribute("currentUser", currentUser);
-        return "user-list";
+        UserFilter filter = new UserFilter(from, to, q);
+        return listUsers(User.userType.CUSTOMER, "Customers", "/users/admin/customers", filter, after, currentUser, model);
     }
 
     @GetMapping("/admin/staff")
-    public String listStaff(HttpSession session, Model model) {
+    public String listStaff(@RequestParam(required = false) String q,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                            @RequestParam(required = false) String after,
+                            HttpSession session, Model model) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null || currentUser.getType() != User.userType.ADMIN) {
             return "redirect:/login";
         }
         
-        List<User> staff = userService.getAllStaff();
-        model.addAttribute("users", staff);
-        model.addAttribute("userType", "Staff");
-        model.addAttribute("currentUser", currentUser);
-        return "user-list";
+        UserFilter filter = new UserFilter(from, to, q);
+        return listUsers(User.userType.STAFF, "Staff", "/users/admin/staff", filter, after, currentUser, model);
     }
 
     @GetMapping("/admin/admins")
-    public String listAdmins(HttpSession session, Model model) {
+    public String listAdmins(@RequestParam(required = false) String q,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                             @RequestParam(required = false) String after,
+                             HttpSession session, Model model) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null || currentUser.getType() != User.userType.ADMIN) {
             return "redirect:/login";
         }
         
-        List<User> admins = userService.getAllAdmins();
-        model.addAttribute("users", admins);
-        model.addAttribute("userType", "Administrators");
-        model.addAttribute("currentUser", currentUser);
-        return "user-list";
+        UserFilter filter = new UserFilter(from, to, q);
+        return listUsers(User.userType.ADMIN, "Administrators", "/users/admin/admins", filter, after, currentUser, model);
     }
 
     // Admin: Add new user form
@@ -112,18 +121,19 @@ public class UserController {
 
     // Staff: List customers only
     @GetMapping("/staff/customers")
-    public String staffListCustomers(HttpSession session, Model model) {
+    public String staffListCustomers(@RequestParam(required = false) String q,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                     @RequestParam(required = false) String after,
+                                     HttpSession session, Model model) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null || currentUser.getType() != User.userType.STAFF) {
             return "redirect:/login";
         }
         
-        List<User> customers = userService.getAllCustomers();
-        model.addAttribute("users", customers);
-        model.addAttribute("userType", "Customers");
-        model.addAttribute("currentUser", currentUser);
         model.addAttribute("isStaff", true);
-        return "user-list";
+        UserFilter filter = new UserFilter(from, to, q);
+        return listUsers(User.userType.CUSTOMER, "Customers", "/users/staff/customers", filter, after, currentUser, model);
     }
     
     // Profile update for logged-in user
@@ -241,7 +251,7 @@ public class UserController {
             if (currentUser.getType() == User.userType.ADMIN) {
                 User.userType newType = userTypeStr != null ? User.userType.valueOf(userTypeStr) : null;
                 if (newType == null) {
-                    throw new RuntimeException("User type is required!");
+                    throw new BusinessException("User type is required!");
                 }
                 userService.updateUserAsAdmin(accountNumber, user, newType);
                 redirectAttributes.addFlashAttribute("success", "User updated successfully!");
@@ -258,6 +268,16 @@ public class UserController {
     }
     
     // Helper methods
+    private String listUsers(User.userType type, String title, String listUrl, UserFilter filter, String after,
+                             User currentUser, Model model) {
+        model.addAttribute("page", userService.getUserPage(type, filter, UserPage.Cursor.parse(after), PAGE_SIZE));
+        model.addAttribute("filter", filter);
+        model.addAttribute("listUrl", listUrl);
+        model.addAttribute("userType", title);
+        model.addAttribute("currentUser", currentUser);
+        return "user-list";
+    }
+    
     private String getDashboardRedirect(User.userType userType) {
         switch (userType) {
             case ADMIN:
@@ -0,0 +1,57 @@
+package com.springboot.project.controller.api;
+
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.web.server.ResponseStatusException;
+import com.springboot.project.service.CheckoutInProgressException;
+import com.springboot.project.service.BusinessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import lombok.extern.slf4j.Slf4j;
+import java.util.Map;
+
+// API errors as {"error": message}. Business rule violations are the caller's fault (400); any other
+// exception is ours (500) and is logged rather than echoed back.
+@Slf4j
+@RestControllerAdvice(basePackageClasses = ApiExceptionHandler.class)
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, String>> handleStatus(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", String.valueOf(e.getReason())));
+    }
+
+    // Still conflicting after @RetryOnConflict gave up
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<Map<String, String>> handleConflict(ConcurrencyFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Conflicting update, please retry"));
+    }
+
+    // The first request with this Idempotency-Key is still running; retrying returns its order
+    @ExceptionHandler(CheckoutInProgressException.class)
+    public ResponseEntity<Map<String, String>> handleCheckoutInProgress(CheckoutInProgressException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1")
+            .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(BusinessException.class)
+    public ResponseEntity<Map<String, String>> handleBusiness(BusinessException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    // Unreadable JSON or a parameter of the wrong type
+    @ExceptionHandler({ HttpMessageNotReadableException.class, TypeMismatchException.class })
+    public ResponseEntity<Map<String, String>> handleMalformed(RuntimeException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", "Malformed request"));
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Map<String, String>> handleRuntime(RuntimeException e) {
+        log.error("API request failed", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Internal server error"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.springboot.project.controller.api;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.web.server.ResponseStatusException;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.springboot.project.dto.api.CursorPage;
+import com.springboot.project.dto.api.OrderDto;
+import com.springboot.project.dto.api.ItemDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import com.springboot.project.entity.User;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import jakarta.servlet.http.HttpSession;
+import jakarta.annotation.PostConstruct;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Set;
+
+// Shared plumbing for the JSON API: session users, page limits, and pages streamed with optional field selection
+@Component
+class ApiSupport {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Listing DTOs go through a "fields" filter; everything else serializes as usual
+    private ObjectMapper selectiveMapper;
+
+    @PostConstruct
+    void init() {
+        selectiveMapper = objectMapper.copy()
+            .addMixIn(ItemDto.class, FieldSelection.class)
+            .addMixIn(OrderDto.class, FieldSelection.class);
+    }
+
+    // The logged-in user, who must be one of the given types (any type when none are given)
+    User requireUser(HttpSession session, User.userType... types) {
+        User user = (User) session.getAttribute("user");
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Login required");
+        }
+        if (types.length > 0 && !Arrays.asList(types).contains(user.getType())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not allowed for " + user.getType());
+        }
+        return user;
+    }
+
+    int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    // Write {"data": [...], "nextCursor": n} row by row, keeping only the requested fields of each row
+    <T extends Record> ResponseEntity<StreamingResponseBody> page(CursorPage<T> page, Class<T> type, String fields) {
+        ObjectWriter writer = selectiveMapper
+            .writer(new SimpleFilterProvider().addFilter("fields", fieldFilter(type, fields)))
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = selectiveMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("data");
+                for (T row : page.data()) {
+                    writer.writeValue(generator, row);
+                }
+                generator.writeEndArray();
+                if (page.nextCursor() != null) {
+                    generator.writeNumberField("nextCursor", page.nextCursor());
+                } else {
+                    generator.writeNullField("nextCursor");
+                }
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static SimpleBeanPropertyFilter fieldFilter(Class<? extends Record> type, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return SimpleBeanPropertyFilter.serializeAll();
+        }
+        Set<String> known = Set.copyOf(Arrays.stream(type.getRecordComponents()).map(RecordComponent::getName).toList());
+        Set<String> selected = Set.copyOf(Arrays.stream(fields.split(",")).map(String::trim).filter(f -> !f.isEmpty()).toList());
+        for (String field : selected) {
+            if (!known.contains(field)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + field);
+            }
+        }
+        return SimpleBeanPropertyFilter.filterOutAllExcept(selected);
+    }
+
+    @JsonFilter("fields")
+    private interface FieldSelection {
+    }
+}
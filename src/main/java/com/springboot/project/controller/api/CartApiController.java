@@ -0,0 +1,91 @@
+package com.springboot.project.controller.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.server.ResponseStatusException;
+import com.springboot.project.dto.api.CartLineRequest;
+import com.springboot.project.dto.api.OrderDetailDto;
+import com.springboot.project.service.CheckoutService;
+import com.springboot.project.service.OrderService;
+import com.springboot.project.service.CartService;
+import com.springboot.project.dto.api.CartDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import com.springboot.project.entity.Bill;
+import com.springboot.project.entity.User;
+import org.springframework.http.HttpStatus;
+import jakarta.servlet.http.HttpSession;
+import java.net.URI;
+
+// The logged-in customer's cart; every change answers with the updated cart
+@RestController
+@RequestMapping("/api/v1/cart")
+public class CartApiController {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private ApiSupport api;
+
+    @GetMapping
+    public CartDto getCart(HttpSession session) {
+        return CartDto.of(cartService.getCart(customer(session)));
+    }
+
+    @PostMapping("/items")
+    public CartDto addItem(@RequestBody CartLineRequest request, HttpSession session) {
+        User customer = customer(session);
+        if (request.itemCode() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "itemCode is required");
+        }
+        cartService.addItemToCart(customer, request.itemCode(), request.quantity() != null ? request.quantity() : 1);
+        return CartDto.of(cartService.getCart(customer));
+    }
+
+    @PatchMapping("/items/{lineId}")
+    public CartDto updateItem(@PathVariable Long lineId, @RequestBody CartLineRequest request, HttpSession session) {
+        User customer = customer(session);
+        if (request.quantity() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quantity is required");
+        }
+        cartService.updateCartItemQuantity(customer, lineId, request.quantity());
+        return CartDto.of(cartService.getCart(customer));
+    }
+
+    @DeleteMapping("/items/{lineId}")
+    public CartDto removeItem(@PathVariable Long lineId, HttpSession session) {
+        User customer = customer(session);
+        cartService.removeItemFromCart(customer, lineId);
+        return CartDto.of(cartService.getCart(customer));
+    }
+
+    @DeleteMapping
+    public CartDto clearCart(HttpSession session) {
+        User customer = customer(session);
+        cartService.clearCart(customer);
+        return CartDto.of(cartService.getCart(customer));
+    }
+
+    // Turn the cart into a draft order, as the cart page's checkout does.
+    // Retrying with the same Idempotency-Key returns the order the first attempt created.
+    @PostMapping("/checkout")
+    public ResponseEntity<OrderDetailDto> checkout(@RequestHeader(value = "Idempotency-Key", required = false) String key,
+                                                   HttpSession session) {
+        User customer = customer(session);
+        Bill order = checkoutService.checkout(customer, key);
+
+        OrderDetailDto detail = orderService.getOrderDetail(order.getBillNumber(), customer.getAccountNumber())
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+        return ResponseEntity.created(URI.create("/api/v1/orders/" + order.getBillNumber())).body(detail);
+    }
+
+    private User customer(HttpSession session) {
+        return api.requireUser(session, User.userType.CUSTOMER);
+    }
+}
@@ -0,0 +1,44 @@
+package com.springboot.project.controller.api;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.server.ResponseStatusException;
+import com.springboot.project.service.ItemService;
+import com.springboot.project.dto.api.ItemDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import com.springboot.project.entity.Item;
+import com.springboot.project.entity.User;
+import org.springframework.http.HttpStatus;
+import jakarta.servlet.http.HttpSession;
+
+@RestController
+@RequestMapping("/api/v1/items")
+public class CatalogApiController {
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ApiSupport api;
+
+    // Items by item code; customers only see active items, staff and admins may filter by status
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> listItems(@RequestParam(required = false) Long cursor,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String fields,
+                                                           @RequestParam(required = false) Item.ItemStatus status,
+                                                           HttpSession session) {
+        User user = api.requireUser(session);
+        Item.ItemStatus visible = user.getType() == User.userType.CUSTOMER ? Item.ItemStatus.ACTIVE : status;
+        return api.page(itemService.getItemPage(visible, cursor, api.limit(limit)), ItemDto.class, fields);
+    }
+
+    @GetMapping("/{itemCode}")
+    public ItemDto getItem(@PathVariable Long itemCode, HttpSession session) {
+        User user = api.requireUser(session);
+        return itemService.getItemDto(itemCode)
+            .filter(item -> user.getType() != User.userType.CUSTOMER || item.status() == Item.ItemStatus.ACTIVE)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not found"));
+    }
+}
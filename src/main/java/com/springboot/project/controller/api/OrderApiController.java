@@ -0,0 +1,47 @@
+package com.springboot.project.controller.api;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.server.ResponseStatusException;
+import com.springboot.project.dto.api.OrderDetailDto;
+import com.springboot.project.service.OrderService;
+import com.springboot.project.dto.api.OrderDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import com.springboot.project.entity.User;
+import org.springframework.http.HttpStatus;
+import jakarta.servlet.http.HttpSession;
+
+// Orders newest first; customers only ever see their own
+@RestController
+@RequestMapping("/api/v1/orders")
+public class OrderApiController {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ApiSupport api;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> listOrders(@RequestParam(required = false) Long cursor,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String fields,
+                                                            @RequestParam(required = false) Long customer,
+                                                            HttpSession session) {
+        Long customerId = scope(api.requireUser(session), customer);
+        return api.page(orderService.getOrderPage(customerId, cursor, api.limit(limit)), OrderDto.class, fields);
+    }
+
+    @GetMapping("/{billNumber}")
+    public OrderDetailDto getOrder(@PathVariable Long billNumber, HttpSession session) {
+        Long customerId = scope(api.requireUser(session), null);
+        return orderService.getOrderDetail(billNumber, customerId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+    }
+
+    // Customers are pinned to their own account; staff and admins may pick one or see all
+    private static Long scope(User user, Long requestedCustomer) {
+        return user.getType() == User.userType.CUSTOMER ? user.getAccountNumber() : requestedCustomer;
+    }
+}
@@ -0,0 +1,10 @@
+package com.springboot.project.dto;
+
+import java.time.LocalDateTime;
+import java.math.BigDecimal;
+
+// What the cart badge needs: item count and total, without the cart's lines
+public record CartSummary(int itemCount, BigDecimal totalAmount, LocalDateTime updatedAt) {
+
+    public static final CartSummary EMPTY = new CartSummary(0, BigDecimal.ZERO, null);
+}
@@ -0,0 +1,13 @@
+package com.springboot.project.dto;
+
+import com.springboot.project.entity.User;
+
+// Customer as shown by the order forms' customer picker
+public record CustomerLookup(Long accountNumber, String name, String username, String email, String telephone,
+                             String address) {
+
+    public static CustomerLookup of(User user) {
+        return new CustomerLookup(user.getAccountNumber(), user.getName(), user.getUsername(), user.getEmail(),
+            user.getTelephone(), user.getAddress());
+    }
+}
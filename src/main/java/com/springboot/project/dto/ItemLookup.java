@@ -0,0 +1,13 @@
+package com.springboot.project.dto;
+
+import com.springboot.project.entity.Item;
+import java.math.BigDecimal;
+
+// Item as shown by the order forms' item picker
+public record ItemLookup(Long itemCode, String name, String description, BigDecimal price, Integer stockQuantity) {
+
+    public static ItemLookup of(Item item) {
+        return new ItemLookup(item.getItemCode(), item.getName(), item.getDescription(), item.getPrice(),
+            item.getStockQuantity());
+    }
+}
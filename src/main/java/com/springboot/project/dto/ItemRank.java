@@ -0,0 +1,5 @@
+package com.springboot.project.dto;
+
+// An item in a ranking; value is units sold or units in stock depending on the ranking
+public record ItemRank(Long itemCode, String name, long value) {
+}
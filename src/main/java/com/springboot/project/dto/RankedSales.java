@@ -0,0 +1,11 @@
+package com.springboot.project.dto;
+
+import java.math.BigDecimal;
+
+// One row of a top-items or top-customers ranking; name is filled in after ranking
+public record RankedSales(Long id, String name, Long units, BigDecimal revenue, Long orderCount) {
+
+    public RankedSales withName(String name) {
+        return new RankedSales(id, name, units, revenue, orderCount);
+    }
+}
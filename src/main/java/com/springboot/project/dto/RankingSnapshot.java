@@ -0,0 +1,8 @@
+package com.springboot.project.dto;
+
+import java.util.List;
+
+// Best sellers per window and the items closest to running out, for the dashboards
+public record RankingSnapshot(List<ItemRank> today, List<ItemRank> week, List<ItemRank> month,
+                              List<ItemRank> lowStock) {
+}
@@ -0,0 +1,8 @@
+package com.springboot.project.dto;
+
+import com.springboot.project.entity.Bill;
+import java.time.LocalDate;
+
+// Date range (inclusive, by bill creation date) and optional status for report exports
+public record ReportFilter(LocalDate from, LocalDate to, Bill.BillStatus status) {
+}
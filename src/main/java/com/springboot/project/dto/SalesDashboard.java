@@ -0,0 +1,9 @@
+package com.springboot.project.dto;
+
+import com.springboot.project.entity.DailySalesRollup;
+import java.util.List;
+
+// Admin dashboard analytics for the last `days` days, built from the rollup tables only
+public record SalesDashboard(int days, SalesTotals totals, List<DailySalesRollup> daily,
+                             List<RankedSales> topItems, List<RankedSales> topCustomers) {
+}
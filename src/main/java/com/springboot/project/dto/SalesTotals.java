@@ -0,0 +1,18 @@
+package com.springboot.project.dto;
+
+import java.math.BigDecimal;
+
+// Summed daily rollups over a date range
+public record SalesTotals(long orderCount, long units, BigDecimal revenue, BigDecimal discount,
+                          BigDecimal tax, BigDecimal netRevenue) {
+
+    public SalesTotals(Long orderCount, Long units, BigDecimal revenue, BigDecimal discount,
+                       BigDecimal tax, BigDecimal netRevenue) {
+        this(orderCount != null ? orderCount : 0L, units != null ? units : 0L,
+             orZero(revenue), orZero(discount), orZero(tax), orZero(netRevenue));
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
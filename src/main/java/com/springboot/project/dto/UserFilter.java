@@ -0,0 +1,7 @@
+package com.springboot.project.dto;
+
+import java.time.LocalDate;
+
+// Creation date range (inclusive) and name/email search for the user lists
+public record UserFilter(LocalDate from, LocalDate to, String search) {
+}
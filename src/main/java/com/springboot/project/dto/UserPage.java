@@ -0,0 +1,31 @@
+package com.springboot.project.dto;
+
+import java.time.format.DateTimeParseException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One page of users, newest first; nextCursor is null on the last page
+public record UserPage(List<UserSummary> users, String nextCursor) {
+
+    // Keyset position: the (createdAt, accountNumber) of the last row shown
+    public record Cursor(LocalDateTime createdAt, Long accountNumber) {
+
+        public String encode() {
+            return createdAt + "_" + accountNumber;
+        }
+
+        // Null for a missing or malformed cursor, which restarts from the first page
+        public static Cursor parse(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            int separator = value.lastIndexOf('_');
+            try {
+                return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                                  Long.parseLong(value.substring(separator + 1)));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
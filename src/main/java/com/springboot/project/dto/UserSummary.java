@@ -0,0 +1,9 @@
+package com.springboot.project.dto;
+
+import com.springboot.project.entity.User;
+import java.time.LocalDateTime;
+
+// User row for the admin/staff lists, projected without the lazy bills collection
+public record UserSummary(Long accountNumber, String name, String username, String email,
+                          String telephone, String address, User.userType type, LocalDateTime createdAt) {
+}
@@ -0,0 +1,13 @@
+package com.springboot.project.dto.api;
+
+import com.springboot.project.entity.Cart;
+import java.math.BigDecimal;
+import java.util.List;
+
+public record CartDto(int itemCount, BigDecimal totalAmount, List<CartLineDto> lines) {
+
+    public static CartDto of(Cart cart) {
+        return new CartDto(cart.getTotalItems(), cart.getTotalAmount(),
+            cart.getCartItems().stream().map(CartLineDto::of).toList());
+    }
+}
@@ -0,0 +1,13 @@
+package com.springboot.project.dto.api;
+
+import com.springboot.project.entity.CartItem;
+import java.math.BigDecimal;
+
+public record CartLineDto(Long id, Long itemCode, String name, int quantity, BigDecimal unitPrice,
+                          BigDecimal totalPrice) {
+
+    public static CartLineDto of(CartItem line) {
+        return new CartLineDto(line.getId(), line.getItem().getItemCode(), line.getItem().getName(),
+            line.getQuantity(), line.getUnitPrice(), line.getTotalPrice());
+    }
+}
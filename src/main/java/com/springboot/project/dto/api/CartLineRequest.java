@@ -0,0 +1,5 @@
+package com.springboot.project.dto.api;
+
+// Body for adding an item to the cart or changing a line's quantity
+public record CartLineRequest(Long itemCode, Integer quantity) {
+}
@@ -0,0 +1,7 @@
+package com.springboot.project.dto.api;
+
+import java.util.List;
+
+// One page of a keyset-paginated listing; nextCursor is null on the last page
+public record CursorPage<T>(List<T> data, Long nextCursor) {
+}
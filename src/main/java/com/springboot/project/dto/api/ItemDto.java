@@ -0,0 +1,9 @@
+package com.springboot.project.dto.api;
+
+import com.springboot.project.entity.Item;
+import java.math.BigDecimal;
+
+// Catalogue item as exposed by the JSON API
+public record ItemDto(Long itemCode, String name, String description, String category, BigDecimal price,
+                      Integer stockQuantity, Item.ItemStatus status) {
+}
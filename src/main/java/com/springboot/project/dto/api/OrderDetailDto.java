@@ -0,0 +1,6 @@
+package com.springboot.project.dto.api;
+
+import java.util.List;
+
+public record OrderDetailDto(OrderDto order, List<OrderLineDto> lines) {
+}
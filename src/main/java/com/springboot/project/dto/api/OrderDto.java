@@ -0,0 +1,11 @@
+package com.springboot.project.dto.api;
+
+import com.springboot.project.entity.Bill;
+import java.time.LocalDateTime;
+import java.math.BigDecimal;
+
+// Order (bill) header as exposed by the JSON API
+public record OrderDto(Long billNumber, Long customerNumber, String customerName, Bill.BillStatus status,
+                       BigDecimal totalAmount, BigDecimal discountAmount, BigDecimal taxAmount,
+                       BigDecimal finalAmount, String couponCode, LocalDateTime createdAt, LocalDateTime paidAt) {
+}
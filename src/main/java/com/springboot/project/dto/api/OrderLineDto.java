@@ -0,0 +1,7 @@
+package com.springboot.project.dto.api;
+
+import java.math.BigDecimal;
+
+public record OrderLineDto(Long id, Long itemCode, String name, Integer quantity, BigDecimal unitPrice,
+                           BigDecimal totalPrice) {
+}
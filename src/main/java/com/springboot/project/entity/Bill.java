@@ -1,6 +1,7 @@
 package com.springboot.project.entity;
 
 import jakarta.validation.constraints.DecimalMin;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
@@ -38,6 +39,9 @@ public class Bill {
     @Column(name = "discount_amount", precision = 10, scale = 2)
     private BigDecimal discountAmount = BigDecimal.ZERO;
 
+    @Column(name = "coupon_code")
+    private String couponCode;
+
     @Column(name = "final_amount", precision = 10, scale = 2)
     private BigDecimal finalAmount = BigDecimal.ZERO;
 
@@ -50,6 +54,10 @@ public class Bill {
     @Column(name = "paid_at")
     private LocalDateTime paidAt;
 
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     public Bill(User customer) {
         this.customer = customer;
     }
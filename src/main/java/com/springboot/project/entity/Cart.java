@@ -1,5 +1,6 @@
 package com.springboot.project.entity;
 
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -28,30 +29,52 @@ public class Cart {
     @Column(name = "total_amount", precision = 10, scale = 2)
     private BigDecimal totalAmount = BigDecimal.ZERO;
 
+    // Maintained alongside totalAmount so the cart never has to walk its lines to answer "how many items"
+    @Column(name = "item_count")
+    private Integer itemCount = 0;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     public Cart(User customer) {
         this.customer = customer;
     }
 
+    // Full recalculation from the lines (only needed for carts created before itemCount existed)
     public void calculateTotalAmount() {
         this.totalAmount = cartItems.stream()
             .map(CartItem::getTotalPrice)
             .reduce(BigDecimal.ZERO, BigDecimal::add);
+        this.itemCount = cartItems.stream()
+            .mapToInt(CartItem::getQuantity)
+            .sum();
+    }
+
+    // Apply the change from adding, updating or removing one line
+    public void applyLineDelta(int quantityDelta, BigDecimal amountDelta) {
+        this.itemCount = getTotalItems() + quantityDelta;
+        this.totalAmount = (totalAmount != null ? totalAmount : BigDecimal.ZERO).add(amountDelta);
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void reset() {
+        this.itemCount = 0;
+        this.totalAmount = BigDecimal.ZERO;
         this.updatedAt = LocalDateTime.now();
     }
 
     public int getTotalItems() {
-        return cartItems.stream()
-            .mapToInt(CartItem::getQuantity)
-            .sum();
+        return itemCount != null ? itemCount : 0;
     }
 
     public boolean isEmpty() {
-        return cartItems.isEmpty();
+        return getTotalItems() == 0;
     }
 }
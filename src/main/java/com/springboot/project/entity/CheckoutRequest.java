@@ -0,0 +1,27 @@
+package com.springboot.project.entity;
+
+import java.time.LocalDateTime;
+import jakarta.persistence.*;
+import lombok.*;
+
+// Idempotency record for a checkout: the client's request key and the bill it produced
+@Entity
+@Table(name = "checkout_requests")
+@Data
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequest {
+    @Id
+    @Column(name = "request_key", length = 64)
+    private String requestKey;
+
+    @Column(name = "customer_number", nullable = false)
+    private Long customerNumber;
+
+    @Column(name = "bill_number")
+    private Long billNumber;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
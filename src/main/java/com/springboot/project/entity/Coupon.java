@@ -0,0 +1,43 @@
+package com.springboot.project.entity;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import java.time.LocalDateTime;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import lombok.*;
+
+@Entity
+@Table(name = "coupons")
+@Data
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Coupon {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Coupon code is required")
+    @Column(unique = true, nullable = false)
+    private String code;
+
+    @DecimalMin(value = "0.0", inclusive = true, message = "Percent off must be between 0 and 1")
+    @DecimalMax(value = "1.0", inclusive = true, message = "Percent off must be between 0 and 1")
+    @Column(name = "percent_off", precision = 5, scale = 4)
+    private BigDecimal percentOff;
+
+    @DecimalMin(value = "0.0", inclusive = true, message = "Amount off must be greater than or equal to 0")
+    @Column(name = "amount_off", precision = 10, scale = 2)
+    private BigDecimal amountOff;
+
+    @DecimalMin(value = "0.0", inclusive = true, message = "Minimum subtotal must be greater than or equal to 0")
+    @Column(name = "minimum_subtotal", precision = 10, scale = 2)
+    private BigDecimal minimumSubtotal;
+
+    private Boolean active = true;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,44 @@
+package com.springboot.project.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import jakarta.persistence.*;
+import lombok.*;
+
+// Orders, units and spend for one customer on one day
+@Entity
+@Table(name = "customer_sales_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"sales_date", "customer_number"}))
+@Data
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSalesRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "customer_number", nullable = false)
+    private Long customerNumber;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(nullable = false)
+    private Long units = 0L;
+
+    // Amount paid (after discounts, including tax)
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal tax = BigDecimal.ZERO;
+
+    public CustomerSalesRollup(LocalDate salesDate, Long customerNumber) {
+        this.salesDate = salesDate;
+        this.customerNumber = customerNumber;
+    }
+}
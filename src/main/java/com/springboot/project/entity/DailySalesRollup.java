@@ -0,0 +1,46 @@
+package com.springboot.project.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import jakarta.persistence.*;
+import lombok.*;
+
+// Sales totals for one day, maintained as orders are confirmed (see SalesRollupService)
+@Entity
+@Table(name = "daily_sales_rollups")
+@Data
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false, unique = true)
+    private LocalDate salesDate;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(nullable = false)
+    private Long units = 0L;
+
+    // Subtotal before discounts and tax
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal discount = BigDecimal.ZERO;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal tax = BigDecimal.ZERO;
+
+    // What customers actually paid
+    @Column(name = "net_revenue", precision = 14, scale = 2, nullable = false)
+    private BigDecimal netRevenue = BigDecimal.ZERO;
+
+    public DailySalesRollup(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+}
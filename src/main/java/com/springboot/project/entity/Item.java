@@ -4,6 +4,7 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Min;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
@@ -27,6 +28,8 @@ public class Item {
 
     private String description;
 
+    private String category;
+
     @NotNull(message = "Price is required")
     @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0")
     @Column(precision = 10, scale = 2)
@@ -43,6 +46,11 @@ public class Item {
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Optimistic lock: stock and catalogue edits no longer overwrite each other silently
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     public Item(String name, BigDecimal price, Integer stockQuantity, String description) {
         this.name = name;
         this.price = price;
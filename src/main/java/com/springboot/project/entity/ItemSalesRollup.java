@@ -0,0 +1,40 @@
+package com.springboot.project.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import jakarta.persistence.*;
+import lombok.*;
+
+// Units and line revenue for one item on one day
+@Entity
+@Table(name = "item_sales_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"sales_date", "item_code"}))
+@Data
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSalesRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "item_code", nullable = false)
+    private Long itemCode;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(nullable = false)
+    private Long units = 0L;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public ItemSalesRollup(LocalDate salesDate, Long itemCode) {
+        this.salesDate = salesDate;
+        this.itemCode = itemCode;
+    }
+}
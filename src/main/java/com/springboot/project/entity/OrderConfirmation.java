@@ -0,0 +1,40 @@
+package com.springboot.project.entity;
+
+import java.time.LocalDateTime;
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "order_confirmations")
+@Data
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderConfirmation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bill_number", nullable = false)
+    private Long billNumber;
+
+    @Enumerated(EnumType.STRING)
+    private ConfirmationStatus status = ConfirmationStatus.PENDING;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "requested_at")
+    private LocalDateTime requestedAt = LocalDateTime.now();
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public OrderConfirmation(Long billNumber) {
+        this.billNumber = billNumber;
+    }
+
+    public enum ConfirmationStatus {
+        PENDING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,61 @@
+package com.springboot.project.entity;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import lombok.*;
+
+@Entity
+@Table(name = "promotions")
+@Data
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Promotion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Promotion name is required")
+    private String name;
+
+    @NotNull(message = "Promotion type is required")
+    @Enumerated(EnumType.STRING)
+    private PromotionType type;
+
+    // Target: a single item, a category, or (both null) the whole catalog
+    @Column(name = "item_code")
+    private Long itemCode;
+
+    private String category;
+
+    // PERCENT_OFF and CATEGORY_BUNDLE discount, as a fraction (0.15 = 15%)
+    @DecimalMin(value = "0.0", inclusive = true, message = "Percent off must be between 0 and 1")
+    @DecimalMax(value = "1.0", inclusive = true, message = "Percent off must be between 0 and 1")
+    @Column(name = "percent_off", precision = 5, scale = 4)
+    private BigDecimal percentOff;
+
+    // BUY_X_GET_Y: for every buyQuantity paid units, freeQuantity more are free
+    @Column(name = "buy_quantity")
+    private Integer buyQuantity;
+
+    @Column(name = "free_quantity")
+    private Integer freeQuantity;
+
+    // CATEGORY_BUNDLE: minimum units from the category for the bundle discount to apply
+    @Column(name = "bundle_quantity")
+    private Integer bundleQuantity;
+
+    private Boolean active = true;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public enum PromotionType {
+        PERCENT_OFF, BUY_X_GET_Y, CATEGORY_BUNDLE
+    }
+}
@@ -0,0 +1,39 @@
+package com.springboot.project.entity;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import lombok.*;
+
+@Entity
+@Table(name = "tax_rules")
+@Data
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaxRule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Rule name is required")
+    private String name;
+
+    // Null applies the rate to every item without a category-specific rule
+    private String category;
+
+    @NotNull(message = "Rate is required")
+    @DecimalMin(value = "0.0", inclusive = true, message = "Rate must be between 0 and 1")
+    @DecimalMax(value = "1.0", inclusive = true, message = "Rate must be between 0 and 1")
+    @Column(precision = 5, scale = 4)
+    private BigDecimal rate;
+
+    private Boolean active = true;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -1,15 +1,27 @@
 package com.springboot.project.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import com.springboot.project.dto.api.OrderLineDto;
 import com.springboot.project.entity.BillItem;
 import com.springboot.project.entity.Bill;
 import com.springboot.project.entity.Item;
+import java.util.Optional;
 import java.util.List;
 
 @Repository
 public interface BillItemRepository extends JpaRepository<BillItem, Long> {
     List<BillItem> findByBill(Bill bill);
     List<BillItem> findByItem(Item item);
+    Optional<BillItem> findByBillAndItem(Bill bill, Item item);
     void deleteByBill(Bill bill);
+
+    @Query("SELECT bi FROM BillItem bi JOIN FETCH bi.item WHERE bi.bill = :bill")
+    List<BillItem> findWithItemsByBill(@Param("bill") Bill bill);
+
+    @Query("SELECT new com.springboot.project.dto.api.OrderLineDto(bi.id, i.itemCode, i.name, bi.quantity, bi.unitPrice, " +
+           "bi.totalPrice) FROM BillItem bi JOIN bi.item i WHERE bi.bill.billNumber = :billNumber ORDER BY bi.id")
+    List<OrderLineDto> findLineDtos(@Param("billNumber") Long billNumber);
 }
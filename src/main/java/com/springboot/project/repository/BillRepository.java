@@ -4,8 +4,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import com.springboot.project.dto.api.OrderDto;
+import org.springframework.data.domain.Limit;
 import com.springboot.project.entity.Bill;
 import com.springboot.project.entity.User;
+import java.util.Collection;
+import java.util.Optional;
 import java.util.List;
 
 @Repository
@@ -20,4 +24,31 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
     
     @Query("SELECT b FROM Bill b WHERE b.status = :status ORDER BY b.createdAt DESC")
     List<Bill> findByStatusOrderByCreatedAtDesc(@Param("status") Bill.BillStatus status);
+
+    @Query("SELECT DISTINCT b FROM Bill b LEFT JOIN FETCH b.billItems bi LEFT JOIN FETCH bi.item WHERE b.billNumber IN :billNumbers")
+    List<Bill> findWithItemsByBillNumberIn(@Param("billNumbers") Collection<Long> billNumbers);
+
+    // The whole order aggregate (bill, customer, lines and their items) in one statement
+    @Query("SELECT b FROM Bill b JOIN FETCH b.customer LEFT JOIN FETCH b.billItems bi LEFT JOIN FETCH bi.item " +
+           "WHERE b.billNumber = :billNumber")
+    Optional<Bill> findAggregateByBillNumber(@Param("billNumber") Long billNumber);
+
+    // Same, but only if the bill belongs to the customer, so ownership is checked by the query itself
+    @Query("SELECT b FROM Bill b JOIN FETCH b.customer c LEFT JOIN FETCH b.billItems bi LEFT JOIN FETCH bi.item " +
+           "WHERE b.billNumber = :billNumber AND c.accountNumber = :customerId")
+    Optional<Bill> findAggregateByBillNumberAndCustomer(@Param("billNumber") Long billNumber,
+                                                        @Param("customerId") Long customerId);
+
+    // API projections: newest first, keyset pages by bill number, optionally scoped to one customer
+    @Query("SELECT new com.springboot.project.dto.api.OrderDto(b.billNumber, c.accountNumber, c.name, b.status, " +
+           "b.totalAmount, b.discountAmount, b.taxAmount, b.finalAmount, b.couponCode, b.createdAt, b.paidAt) " +
+           "FROM Bill b JOIN b.customer c WHERE b.billNumber < :before " +
+           "AND (:customerId IS NULL OR c.accountNumber = :customerId) ORDER BY b.billNumber DESC")
+    List<OrderDto> findOrderPage(@Param("customerId") Long customerId, @Param("before") Long before, Limit limit);
+
+    @Query("SELECT new com.springboot.project.dto.api.OrderDto(b.billNumber, c.accountNumber, c.name, b.status, " +
+           "b.totalAmount, b.discountAmount, b.taxAmount, b.finalAmount, b.couponCode, b.createdAt, b.paidAt) " +
+           "FROM Bill b JOIN b.customer c WHERE b.billNumber = :billNumber " +
+           "AND (:customerId IS NULL OR c.accountNumber = :customerId)")
+    Optional<OrderDto> findOrderDto(@Param("billNumber") Long billNumber, @Param("customerId") Long customerId);
 }
@@ -4,6 +4,9 @@ import com.springboot.project.entity.CartItem;
 import com.springboot.project.entity.Cart;
 import com.springboot.project.entity.Item;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -11,4 +14,8 @@ import java.util.Optional;
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartAndItem(Cart cart, Item item);
     void deleteByCartAndItem(Cart cart, Item item);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart = :cart")
+    void deleteAllByCart(@Param("cart") Cart cart);
 }
@@ -3,11 +3,26 @@ package com.springboot.project.repository;
 import com.springboot.project.entity.Cart;
 import com.springboot.project.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByCustomer(User customer);
     void deleteByCustomer(User customer);
+
+    // Insert-or-get: carts.customer_number is unique, so a concurrent duplicate insert is a no-op rather than an error.
+    // ON CONFLICT DO NOTHING is understood by SQLite, PostgreSQL and H2 in PostgreSQL mode.
+    @Modifying
+    @Query(value = "INSERT INTO carts (customer_number, total_amount, item_count, created_at, updated_at, version) " +
+                   "VALUES (:customerId, 0, 0, :now, :now, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("customerId") Long customerId, @Param("now") LocalDateTime now);
+
+    // Cart with its lines and their items in one query (used to warm the in-memory cart store)
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.cartItems ci LEFT JOIN FETCH ci.item WHERE c.customer = :customer")
+    Optional<Cart> findWithItemsByCustomer(@Param("customer") User customer);
 }
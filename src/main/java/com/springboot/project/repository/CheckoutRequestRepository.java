@@ -0,0 +1,28 @@
+package com.springboot.project.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.query.Param;
+import com.springboot.project.entity.CheckoutRequest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+
+@Repository
+public interface CheckoutRequestRepository extends JpaRepository<CheckoutRequest, String> {
+
+    // Claim a request key; 0 means another checkout already holds it
+    @Modifying
+    @Query(value = "INSERT INTO checkout_requests (request_key, customer_number, created_at) " +
+                   "VALUES (:requestKey, :customerId, :now) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int claim(@Param("requestKey") String requestKey, @Param("customerId") Long customerId,
+              @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CheckoutRequest r SET r.billNumber = :billNumber WHERE r.requestKey = :requestKey")
+    int recordBill(@Param("requestKey") String requestKey, @Param("billNumber") Long billNumber);
+
+    @Modifying
+    @Query("DELETE FROM CheckoutRequest r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,12 @@
+package com.springboot.project.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.springboot.project.entity.Coupon;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface CouponRepository extends JpaRepository<Coupon, Long> {
+    List<Coupon> findByActiveTrue();
+    boolean existsByCodeIgnoreCase(String code);
+}
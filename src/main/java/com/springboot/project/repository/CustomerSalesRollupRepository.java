@@ -0,0 +1,19 @@
+package com.springboot.project.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.springboot.project.entity.CustomerSalesRollup;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import com.springboot.project.dto.RankedSales;
+import org.springframework.data.domain.Limit;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CustomerSalesRollupRepository extends JpaRepository<CustomerSalesRollup, Long> {
+
+    @Query("SELECT new com.springboot.project.dto.RankedSales(r.customerNumber, '', SUM(r.units), SUM(r.revenue), SUM(r.orderCount)) " +
+           "FROM CustomerSalesRollup r WHERE r.salesDate >= :from GROUP BY r.customerNumber ORDER BY SUM(r.revenue) DESC")
+    List<RankedSales> findTopSince(@Param("from") LocalDate from, Limit limit);
+}
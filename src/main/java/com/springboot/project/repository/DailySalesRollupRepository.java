@@ -0,0 +1,19 @@
+package com.springboot.project.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.springboot.project.entity.DailySalesRollup;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import com.springboot.project.dto.SalesTotals;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+    List<DailySalesRollup> findBySalesDateGreaterThanEqualOrderBySalesDateDesc(LocalDate from);
+
+    @Query("SELECT new com.springboot.project.dto.SalesTotals(SUM(r.orderCount), SUM(r.units), SUM(r.revenue), " +
+           "SUM(r.discount), SUM(r.tax), SUM(r.netRevenue)) FROM DailySalesRollup r WHERE r.salesDate >= :from")
+    SalesTotals sumSince(@Param("from") LocalDate from);
+}
@@ -1,9 +1,13 @@
 package com.springboot.project.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import com.springboot.project.dto.api.ItemDto;
+import org.springframework.data.domain.Limit;
 import com.springboot.project.entity.Item;
+import java.util.Optional;
 import java.util.List;
 
 @Repository
@@ -14,4 +18,14 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
 
     @Query("SELECT i FROM Item i WHERE i.status = 'ACTIVE' ORDER BY i.name")
     List<Item> findActiveItemsOrderByName();
+
+    // API projections: keyset pages by item code, without loading entities
+    @Query("SELECT new com.springboot.project.dto.api.ItemDto(i.itemCode, i.name, i.description, i.category, i.price, " +
+           "i.stockQuantity, i.status) FROM Item i WHERE i.itemCode > :after " +
+           "AND (:status IS NULL OR i.status = :status) ORDER BY i.itemCode")
+    List<ItemDto> findItemPage(@Param("status") Item.ItemStatus status, @Param("after") Long after, Limit limit);
+
+    @Query("SELECT new com.springboot.project.dto.api.ItemDto(i.itemCode, i.name, i.description, i.category, i.price, " +
+           "i.stockQuantity, i.status) FROM Item i WHERE i.itemCode = :itemCode")
+    Optional<ItemDto> findItemDto(@Param("itemCode") Long itemCode);
 }
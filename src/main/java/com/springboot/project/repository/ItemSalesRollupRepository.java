@@ -0,0 +1,21 @@
+package com.springboot.project.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.springboot.project.entity.ItemSalesRollup;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import com.springboot.project.dto.RankedSales;
+import org.springframework.data.domain.Limit;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ItemSalesRollupRepository extends JpaRepository<ItemSalesRollup, Long> {
+
+    @Query("SELECT new com.springboot.project.dto.RankedSales(r.itemCode, '', SUM(r.units), SUM(r.revenue), SUM(r.orderCount)) " +
+           "FROM ItemSalesRollup r WHERE r.salesDate >= :from GROUP BY r.itemCode ORDER BY SUM(r.revenue) DESC")
+    List<RankedSales> findTopSince(@Param("from") LocalDate from, Limit limit);
+
+    List<ItemSalesRollup> findBySalesDateGreaterThanEqual(LocalDate from);
+}
@@ -0,0 +1,15 @@
+package com.springboot.project.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.springboot.project.entity.OrderConfirmation;
+import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Limit;
+import java.util.Optional;
+import java.util.List;
+
+@Repository
+public interface OrderConfirmationRepository extends JpaRepository<OrderConfirmation, Long> {
+    List<OrderConfirmation> findByStatusOrderByIdAsc(OrderConfirmation.ConfirmationStatus status, Limit limit);
+    Optional<OrderConfirmation> findFirstByBillNumberOrderByIdDesc(Long billNumber);
+    Optional<OrderConfirmation> findFirstByBillNumberAndStatus(Long billNumber, OrderConfirmation.ConfirmationStatus status);
+}
@@ -0,0 +1,11 @@
+package com.springboot.project.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.springboot.project.entity.Promotion;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface PromotionRepository extends JpaRepository<Promotion, Long> {
+    List<Promotion> findByActiveTrue();
+}
@@ -1,8 +1,13 @@
 package com.springboot.project.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import com.springboot.project.dto.UserSummary;
+import org.springframework.data.domain.Limit;
 import com.springboot.project.entity.User;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 
@@ -14,4 +19,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     List<User> findByType(User.userType type);
     List<User> findByTypeOrderByCreatedAtDesc(User.userType type);
+
+    // Keyset page over (type, created_at): rows strictly before (before, beforeId), newest first.
+    // The "<= before" bound is what the index seeks on; the OR only breaks ties on equal timestamps.
+    @Query("SELECT new com.springboot.project.dto.UserSummary(u.accountNumber, u.name, u.username, u.email, " +
+           "u.telephone, u.address, u.type, u.createdAt) " +
+           "FROM User u WHERE u.type = :type AND u.createdAt >= :from AND u.createdAt <= :before " +
+           "AND (u.createdAt < :before OR u.accountNumber < :beforeId) " +
+           "AND (:search IS NULL OR LOWER(u.name) LIKE :search OR LOWER(u.email) LIKE :search) " +
+           "ORDER BY u.createdAt DESC, u.accountNumber DESC")
+    List<UserSummary> findUserPage(@Param("type") User.userType type, @Param("from") LocalDateTime from,
+                                   @Param("before") LocalDateTime before, @Param("beforeId") Long beforeId,
+                                   @Param("search") String search, Limit limit);
 }
@@ -0,0 +1,80 @@
+package com.springboot.project.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import lombok.extern.slf4j.Slf4j;
+import com.springboot.project.entity.Bill;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bill totals are maintained as deltas; this job recomputes them in bulk and flags any drift. Only drafts are
+// repaired: repricing a confirmed or paid bill would apply today's rules to a finished invoice and leave the
+// sales rollups out of step, so those are reported for a person to look at.
+@Slf4j
+@Service
+public class BillTotalsVerifier {
+
+    private static final String DRIFT_QUERY =
+        "SELECT b.bill_number, b.status FROM bills b " +
+        "LEFT JOIN bill_items bi ON bi.bill_number = b.bill_number " +
+        "GROUP BY b.bill_number, b.status, b.total_amount " +
+        "HAVING ABS(COALESCE(b.total_amount, 0) - COALESCE(SUM(bi.total_price), 0)) >= 0.005";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Value("${app.orders.totals.repair-drift:false}")
+    private boolean repairDrift;
+
+    public record DriftedBill(long billNumber, Bill.BillStatus status) {
+    }
+
+    // Returns the bills whose stored total disagrees with the sum of their lines
+    public List<DriftedBill> findDriftedBills() {
+        return jdbcTemplate.query(DRIFT_QUERY, (rs, rowNum) ->
+            new DriftedBill(rs.getLong("bill_number"), Bill.BillStatus.valueOf(rs.getString("status"))));
+    }
+
+    @Scheduled(initialDelayString = "${app.orders.totals.verify-interval-ms:3600000}",
+               fixedDelayString = "${app.orders.totals.verify-interval-ms:3600000}")
+    public void verifyTotals() {
+        List<DriftedBill> drifted = findDriftedBills();
+        if (drifted.isEmpty()) {
+            return;
+        }
+
+        List<Long> drafts = new ArrayList<>();
+        List<Long> finished = new ArrayList<>();
+        for (DriftedBill bill : drifted) {
+            (bill.status() == Bill.BillStatus.DRAFT ? drafts : finished).add(bill.billNumber());
+        }
+        if (!finished.isEmpty()) {
+            log.warn("Totals of {} finished bills disagree with their lines and are left as invoiced: {}",
+                     finished.size(), finished);
+        }
+        if (drafts.isEmpty()) {
+            return;
+        }
+
+        log.warn("Bill totals drifted from their lines for {} draft bills: {}", drafts.size(), drafts);
+        if (repairDrift) {
+            int repaired = 0;
+            for (Long billNumber : drafts) {
+                try {
+                    orderService.calculateOrderTotals(billNumber);
+                    repaired++;
+                } catch (RuntimeException e) {
+                    // Confirmed or removed since the scan
+                    log.info("Skipped repairing bill {}: {}", billNumber, e.getMessage());
+                }
+            }
+            log.info("Recalculated totals for {} draft bills", repaired);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.springboot.project.service;
+
+// A request the business rules reject (unknown or unavailable item, not enough stock, wrong order state, ...).
+// The message is meant for the user; anything else a service throws is a fault on our side.
+public class BusinessException extends RuntimeException {
+
+    public BusinessException(String message) {
+        super(message);
+    }
+}
@@ -4,8 +4,18 @@ import com.springboot.project.entity.*;
 import com.springboot.project.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import com.springboot.project.config.RetryOnConflict;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.springboot.project.dto.CartSummary;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hibernate.Hibernate;
+import java.time.LocalDateTime;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -20,36 +30,78 @@ public class CartService {
     @Autowired
     private ItemRepository itemRepository;
 
-    // Get or create cart for customer
+    // Present only when app.cart.storage=memory; otherwise every cart operation goes straight to the database
+    @Autowired(required = false)
+    private CartWriteBehindStore writeBehindStore;
+
+    // Per-customer badge summaries; entries are dropped after any committed cart change
+    private final Map<Long, CartSummary> summaryCache = new ConcurrentHashMap<>();
+
+    // Get or create cart for customer. Existing carts are a plain read; only a customer without one runs the
+    // insert, which is a no-op if a concurrent first request got there first, and then reads the single winner.
+    @RetryOnConflict
     public Cart getOrCreateCart(User customer) {
-        Optional<Cart> existingCart = cartRepository.findByCustomer(customer);
-        if (existingCart.isPresent()) {
-            Cart cart = existingCart.get();
+        Cart cart = cartRepository.findByCustomer(customer).orElse(null);
+        if (cart == null) {
+            cartRepository.insertIfAbsent(customer.getAccountNumber(), LocalDateTime.now());
+            cart = cartRepository.findByCustomer(customer)
+                .orElseThrow(() -> new IllegalStateException("Cart could not be created"));
+        }
+        // Carts from before itemCount was maintained are totalled once
+        if (cart.getItemCount() == null) {
             cart.calculateTotalAmount();
-            return cart;
-        } else {
-            Cart newCart = new Cart(customer);
-            return cartRepository.save(newCart);
         }
+        return cart;
+    }
+
+    // Item count and total for the cart badge, served from cache without loading the cart's lines
+    public CartSummary getCartSummary(User customer) {
+        if (writeBehindStore != null) {
+            return writeBehindStore.getCartSummary(customer);
+        }
+
+        CartSummary cached = summaryCache.get(customer.getAccountNumber());
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<Cart> cartOpt = cartRepository.findByCustomer(customer);
+        if (cartOpt.isEmpty()) {
+            return CartSummary.EMPTY;
+        }
+
+        Cart cart = cartOpt.get();
+        if (cart.getItemCount() == null) {
+            cart.calculateTotalAmount();
+        }
+        CartSummary summary = new CartSummary(cart.getTotalItems(), cart.getTotalAmount(), cart.getUpdatedAt());
+        summaryCache.put(customer.getAccountNumber(), summary);
+        return summary;
     }
 
     // Add item to cart
+    @RetryOnConflict
     public void addItemToCart(User customer, Long itemCode, Integer quantity) {
+        if (writeBehindStore != null) {
+            writeBehindStore.addItem(customer, itemCode, quantity);
+            return;
+        }
+
         Cart cart = getOrCreateCart(customer);
         Optional<Item> itemOpt = itemRepository.findById(itemCode);
         
         if (itemOpt.isEmpty()) {
-            throw new RuntimeException("Item not found");
+            throw new BusinessException("Item not found");
         }
         
         Item item = itemOpt.get();
         
         if (item.getStatus() != Item.ItemStatus.ACTIVE) {
-            throw new RuntimeException("Item is not available");
+            throw new BusinessException("Item is not available");
         }
         
         if (item.getStockQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock. Available: " + item.getStockQuantity());
+            throw new BusinessException("Insufficient stock. Available: " + item.getStockQuantity());
         }
 
         // Check if item already exists in cart
@@ -60,101 +112,158 @@ public class CartService {
             int newQuantity = cartItem.getQuantity() + quantity;
             
             if (item.getStockQuantity() < newQuantity) {
-                throw new RuntimeException("Insufficient stock. Available: " + item.getStockQuantity() + 
+                throw new BusinessException("Insufficient stock. Available: " + item.getStockQuantity() + 
                                          ", already in cart: " + cartItem.getQuantity());
             }
             
+            BigDecimal previousTotal = cartItem.getTotalPrice();
             cartItem.setQuantity(newQuantity);
             cartItem.updateTotalPrice();
             cartItemRepository.save(cartItem);
+            cart.applyLineDelta(quantity, cartItem.getTotalPrice().subtract(previousTotal));
         } else {
             CartItem newCartItem = new CartItem(cart, item, quantity);
-            cart.getCartItems().add(newCartItem);
+            if (Hibernate.isInitialized(cart.getCartItems())) {
+                cart.getCartItems().add(newCartItem);
+            }
             cartItemRepository.save(newCartItem);
+            cart.applyLineDelta(quantity, newCartItem.getTotalPrice());
         }
         
-        cart.calculateTotalAmount();
         cartRepository.save(cart);
+        evictSummaryAfterCommit(customer);
     }
 
     // Update item quantity in cart
+    @RetryOnConflict
     public void updateCartItemQuantity(User customer, Long cartItemId, Integer quantity) {
+        if (writeBehindStore != null) {
+            writeBehindStore.updateQuantity(customer, cartItemId, quantity);
+            return;
+        }
+
         Cart cart = getOrCreateCart(customer);
         Optional<CartItem> cartItemOpt = cartItemRepository.findById(cartItemId);
         
         if (cartItemOpt.isEmpty()) {
-            throw new RuntimeException("Cart item not found");
+            throw new BusinessException("Cart item not found");
         }
         
         CartItem cartItem = cartItemOpt.get();
         
         if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new RuntimeException("Cart item does not belong to this customer");
+            throw new BusinessException("Cart item does not belong to this customer");
         }
         
         if (quantity <= 0) {
-            throw new RuntimeException("Quantity must be greater than 0");
+            throw new BusinessException("Quantity must be greater than 0");
         }
         
         if (cartItem.getItem().getStockQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock. Available: " + cartItem.getItem().getStockQuantity());
+            throw new BusinessException("Insufficient stock. Available: " + cartItem.getItem().getStockQuantity());
         }
         
+        int previousQuantity = cartItem.getQuantity();
+        BigDecimal previousTotal = cartItem.getTotalPrice();
         cartItem.setQuantity(quantity);
         cartItem.updateTotalPrice();
         cartItemRepository.save(cartItem);
         
-        cart.calculateTotalAmount();
+        cart.applyLineDelta(quantity - previousQuantity, cartItem.getTotalPrice().subtract(previousTotal));
         cartRepository.save(cart);
+        evictSummaryAfterCommit(customer);
     }
 
     // Remove item from cart
+    @RetryOnConflict
     public void removeItemFromCart(User customer, Long cartItemId) {
+        if (writeBehindStore != null) {
+            writeBehindStore.removeItem(customer, cartItemId);
+            return;
+        }
+
         Cart cart = getOrCreateCart(customer);
         Optional<CartItem> cartItemOpt = cartItemRepository.findById(cartItemId);
         
         if (cartItemOpt.isEmpty()) {
-            throw new RuntimeException("Cart item not found");
+            throw new BusinessException("Cart item not found");
         }
         
         CartItem cartItem = cartItemOpt.get();
         
         if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new RuntimeException("Cart item does not belong to this customer");
+            throw new BusinessException("Cart item does not belong to this customer");
         }
         
-        cart.getCartItems().remove(cartItem);
+        if (Hibernate.isInitialized(cart.getCartItems())) {
+            cart.getCartItems().remove(cartItem);
+        }
         cartItemRepository.delete(cartItem);
         
-        cart.calculateTotalAmount();
+        cart.applyLineDelta(-cartItem.getQuantity(), cartItem.getTotalPrice().negate());
         cartRepository.save(cart);
+        evictSummaryAfterCommit(customer);
     }
 
     // Clear entire cart
+    @RetryOnConflict
     public void clearCart(User customer) {
+        if (writeBehindStore != null) {
+            writeBehindStore.clear(customer);
+            return;
+        }
+
         Optional<Cart> cartOpt = cartRepository.findByCustomer(customer);
         if (cartOpt.isPresent()) {
             Cart cart = cartOpt.get();
-            cart.getCartItems().clear();
-            cartItemRepository.deleteAll(cartItemRepository.findAll().stream()
-                .filter(item -> item.getCart().getId().equals(cart.getId()))
-                .toList());
-            cart.calculateTotalAmount();
+            if (Hibernate.isInitialized(cart.getCartItems())) {
+                cart.getCartItems().clear();
+            }
+            cartItemRepository.deleteAllByCart(cart);
+            cart.reset();
             cartRepository.save(cart);
+            evictSummaryAfterCommit(customer);
+        }
+    }
+
+    // Forget cached summaries of carts deleted outside this service (maintenance sweeps)
+    public void evictSummaries(Collection<Long> customerIds) {
+        customerIds.forEach(summaryCache::remove);
+    }
+
+    // Drop the cached summary once the change is visible to other readers
+    private void evictSummaryAfterCommit(User customer) {
+        Long customerId = customer.getAccountNumber();
+        summaryCache.remove(customerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    summaryCache.remove(customerId);
+                }
+            });
         }
     }
 
     // Get cart for customer
+    @RetryOnConflict
     public Cart getCart(User customer) {
+        if (writeBehindStore != null) {
+            return writeBehindStore.getCart(customer);
+        }
+
         return getOrCreateCart(customer);
     }
 
     // Convert cart to order
     public Bill convertCartToOrder(User customer) {
-        Cart cart = getOrCreateCart(customer);
+        if (writeBehindStore != null) {
+            writeBehindStore.flush(customer);
+        }
+        Cart cart = getCart(customer);
         
         if (cart.isEmpty()) {
-            throw new RuntimeException("Cart is empty");
+            throw new BusinessException("Cart is empty");
         }
         
         // Create new bill
@@ -0,0 +1,457 @@
+package com.springboot.project.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import com.springboot.project.repository.ItemRepository;
+import com.springboot.project.repository.CartRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import com.springboot.project.dto.CartSummary;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import com.springboot.project.entity.*;
+import java.util.function.Function;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.*;
+
+// Write-behind cart storage (app.cart.storage=memory): active carts live in memory and
+// dirty carts are written to carts/cart_items periodically, on checkout and on shutdown.
+// Each cart is written in its own transaction under its lock, so one bad cart cannot hold back the rest,
+// and the in-memory state only moves on once the write has committed. If the row was changed elsewhere in
+// the meantime, the cart is reloaded and the lines changed here since the last write are applied on top.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.cart.storage", havingValue = "memory")
+public class CartWriteBehindStore {
+
+    private static final String INSERT_CART =
+        "INSERT INTO carts (customer_number, total_amount, item_count, created_at, updated_at, version) " +
+        "VALUES (?, ?, ?, ?, ?, 0) ON CONFLICT DO NOTHING";
+    private static final String UPDATE_CART =
+        "UPDATE carts SET total_amount = ?, item_count = ?, updated_at = ?, version = COALESCE(version, 0) + 1 " +
+        "WHERE id = ? AND COALESCE(version, 0) = ?";
+    private static final String UPDATE_LINE =
+        "UPDATE cart_items SET quantity = ?, unit_price = ?, total_price = ? WHERE cart_id = ? AND item_code = ?";
+    private static final String INSERT_LINE =
+        "INSERT INTO cart_items (cart_id, item_code, quantity, unit_price, total_price) VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_LINE =
+        "DELETE FROM cart_items WHERE cart_id = ? AND item_code = ?";
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.cart.idle-eviction-ms:1800000}")
+    private long idleEvictionMs;
+
+    private final Map<Long, CartEntry> carts = new ConcurrentHashMap<>();
+
+    // Snapshot of the customer's cart, safe to render after the lock is released
+    public Cart getCart(User customer) {
+        return withCart(customer, entry -> entry.snapshot());
+    }
+
+    public CartSummary getCartSummary(User customer) {
+        return withCart(customer, entry -> new CartSummary(entry.cart.getTotalItems(), entry.cart.getTotalAmount(),
+                                                       entry.cart.getUpdatedAt()));
+    }
+
+    public void addItem(User customer, Long itemCode, Integer quantity) {
+        Item item = itemRepository.findById(itemCode)
+            .orElseThrow(() -> new BusinessException("Item not found"));
+
+        if (item.getStatus() != Item.ItemStatus.ACTIVE) {
+            throw new BusinessException("Item is not available");
+        }
+
+        if (item.getStockQuantity() < quantity) {
+            throw new BusinessException("Insufficient stock. Available: " + item.getStockQuantity());
+        }
+
+        withCart(customer, entry -> {
+            CartItem cartItem = entry.findByItemCode(itemCode);
+            if (cartItem != null) {
+                int newQuantity = cartItem.getQuantity() + quantity;
+                if (item.getStockQuantity() < newQuantity) {
+                    throw new BusinessException("Insufficient stock. Available: " + item.getStockQuantity() +
+                                             ", already in cart: " + cartItem.getQuantity());
+                }
+
+                BigDecimal previousTotal = cartItem.getTotalPrice();
+                cartItem.setItem(item);
+                cartItem.setQuantity(newQuantity);
+                entry.cart.applyLineDelta(quantity, cartItem.getTotalPrice().subtract(previousTotal));
+                entry.changedItemCodes.add(itemCode);
+            } else {
+                CartItem newCartItem = new CartItem(entry.cart, item, quantity);
+                newCartItem.setId(entry.nextLineId--);
+                entry.cart.getCartItems().add(newCartItem);
+                entry.removedItemCodes.remove(itemCode);
+                entry.changedItemCodes.add(itemCode);
+                entry.cart.applyLineDelta(quantity, newCartItem.getTotalPrice());
+            }
+            entry.dirty = true;
+            return null;
+        });
+    }
+
+    public void updateQuantity(User customer, Long cartItemId, Integer quantity) {
+        if (quantity <= 0) {
+            throw new BusinessException("Quantity must be greater than 0");
+        }
+
+        withCart(customer, entry -> {
+            CartItem cartItem = entry.findById(cartItemId);
+            if (cartItem == null) {
+                throw new BusinessException("Cart item not found");
+            }
+
+            // Stock is always checked against the items table, never the cached copy
+            Item item = itemRepository.findById(cartItem.getItem().getItemCode())
+                .orElseThrow(() -> new BusinessException("Item not found"));
+            if (item.getStockQuantity() < quantity) {
+                throw new BusinessException("Insufficient stock. Available: " + item.getStockQuantity());
+            }
+
+            int previousQuantity = cartItem.getQuantity();
+            BigDecimal previousTotal = cartItem.getTotalPrice();
+            cartItem.setItem(item);
+            cartItem.setQuantity(quantity);
+            entry.cart.applyLineDelta(quantity - previousQuantity, cartItem.getTotalPrice().subtract(previousTotal));
+            entry.changedItemCodes.add(item.getItemCode());
+            entry.dirty = true;
+            return null;
+        });
+    }
+
+    public void removeItem(User customer, Long cartItemId) {
+        withCart(customer, entry -> {
+            CartItem cartItem = entry.findById(cartItemId);
+            if (cartItem == null) {
+                throw new BusinessException("Cart item not found");
+            }
+
+            entry.cart.getCartItems().removeIf(line -> line.getId().equals(cartItemId));
+            entry.removedItemCodes.add(cartItem.getItem().getItemCode());
+            entry.changedItemCodes.remove(cartItem.getItem().getItemCode());
+            entry.cart.applyLineDelta(-cartItem.getQuantity(), cartItem.getTotalPrice().negate());
+            entry.dirty = true;
+            return null;
+        });
+    }
+
+    // Clearing happens on checkout, so it is written through immediately
+    public void clear(User customer) {
+        withCart(customer, entry -> {
+            for (CartItem line : entry.cart.getCartItems()) {
+                entry.removedItemCodes.add(line.getItem().getItemCode());
+            }
+            entry.changedItemCodes.clear();
+            entry.cart.getCartItems().clear();
+            entry.cart.reset();
+            entry.dirty = true;
+            return null;
+        });
+        flush(customer);
+    }
+
+    // Write one customer's cart now (checkout must see exactly what is in memory)
+    public void flush(User customer) {
+        CartEntry entry = carts.get(customer.getAccountNumber());
+        if (entry != null) {
+            flushEntry(entry);
+        }
+    }
+
+    // Customers among the given ones whose carts are currently held in memory
+    public Set<Long> residentCustomers(Collection<Long> customerIds) {
+        Set<Long> resident = new HashSet<>();
+        for (Long customerId : customerIds) {
+            if (carts.containsKey(customerId)) {
+                resident.add(customerId);
+            }
+        }
+        return resident;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval-ms:5000}")
+    public void flushDirty() {
+        for (CartEntry entry : carts.values()) {
+            if (entry.dirty) {
+                flushEntry(entry);
+            }
+        }
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushDirty();
+        log.info("Flushed in-memory carts on shutdown");
+    }
+
+    // Drop clean carts nobody has touched for a while; they reload from the database on next access
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMs;
+        for (CartEntry entry : carts.values()) {
+            if (entry.lastAccess < cutoff && !entry.dirty && entry.lock.tryLock()) {
+                try {
+                    if (!entry.dirty) {
+                        evict(entry);
+                    }
+                } finally {
+                    entry.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void flushEntry(CartEntry entry) {
+        entry.lock.lock();
+        try {
+            if (!entry.dirty || entry.evicted) {
+                return;
+            }
+            Cart cart = entry.cart;
+            Long id = cart.getId();
+            Long version = cart.getVersion();
+            try {
+                boolean written = Boolean.TRUE.equals(transactionTemplate.execute(status -> writeEntry(entry)));
+                if (!written) {
+                    // Someone else changed or took over the cart row: start from theirs and redo our changes on it
+                    log.info("Cart of customer {} changed in the database, reapplying in-memory changes", entry.customerId);
+                    rebase(entry);
+                    cart = entry.cart;
+                    id = cart.getId();
+                    version = cart.getVersion();
+                    written = Boolean.TRUE.equals(transactionTemplate.execute(status -> writeEntry(entry)));
+                }
+                if (written) {
+                    entry.removedItemCodes.clear();
+                    entry.changedItemCodes.clear();
+                    entry.dirty = false;
+                } else {
+                    log.warn("Cart of customer {} changed again while reapplying, will retry", entry.customerId);
+                }
+            } catch (RuntimeException e) {
+                // Rolled back: forget an id or version that only existed in that transaction and retry next time
+                cart.setId(id);
+                cart.setVersion(version);
+                log.warn("Cart flush for customer {} failed, will retry: {}", entry.customerId, e.getMessage());
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    // Write the cart row, upsert the lines by (cart, item) and delete the removed ones. Returns false without
+    // writing anything when the row was changed by someone else or another cart row exists for the customer.
+    private boolean writeEntry(CartEntry entry) {
+        Cart cart = entry.cart;
+        Timestamp updatedAt = Timestamp.valueOf(cart.getUpdatedAt());
+        if (cart.getId() != null) {
+            long version = cart.getVersion() != null ? cart.getVersion() : 0L;
+            int updated = jdbcTemplate.update(UPDATE_CART, cart.getTotalAmount(), cart.getTotalItems(), updatedAt,
+                                              cart.getId(), version);
+            if (updated == 0) {
+                Integer exists = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM carts WHERE id = ?", Integer.class,
+                                                             cart.getId());
+                if (exists != null && exists > 0) {
+                    return false;
+                }
+                // Deleted while still held here (an idle sweep that raced the load): write it again as a new cart
+                cart.setId(null);
+            } else {
+                cart.setVersion(version + 1);
+            }
+        }
+        if (cart.getId() == null) {
+            GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+            int inserted = jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_CART, new String[] { "id" });
+                ps.setLong(1, entry.customerId);
+                ps.setBigDecimal(2, cart.getTotalAmount());
+                ps.setInt(3, cart.getTotalItems());
+                ps.setTimestamp(4, Timestamp.valueOf(cart.getCreatedAt()));
+                ps.setTimestamp(5, updatedAt);
+                return ps;
+            }, keyHolder);
+            if (inserted == 0) {
+                return false;
+            }
+            cart.setId(keyHolder.getKey().longValue());
+            cart.setVersion(0L);
+        }
+
+        List<CartItem> lines = cart.getCartItems();
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_LINE, lines.stream()
+            .map(line -> new Object[] { line.getQuantity(), line.getUnitPrice(), line.getTotalPrice(),
+                                        cart.getId(), line.getItem().getItemCode() })
+            .toList());
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (updated[i] == 0) {
+                CartItem line = lines.get(i);
+                inserts.add(new Object[] { cart.getId(), line.getItem().getItemCode(), line.getQuantity(),
+                                           line.getUnitPrice(), line.getTotalPrice() });
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LINE, inserts);
+        }
+        if (!entry.removedItemCodes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_LINE, entry.removedItemCodes.stream()
+                .map(itemCode -> new Object[] { cart.getId(), itemCode })
+                .toList());
+        }
+        return true;
+    }
+
+    // Caller holds the entry's lock. Reload the cart from the database and replace it with the lines changed here
+    // since the last write, drop the ones removed here, and keep whatever else the database copy has.
+    private void rebase(CartEntry entry) {
+        Cart current = entry.cart;
+        Cart reloaded = transactionTemplate.execute(status ->
+            cartRepository.findWithItemsByCustomer(current.getCustomer()).map(CartEntry::copyOf).orElse(null));
+        if (reloaded == null) {
+            reloaded = new Cart(current.getCustomer());
+            reloaded.setCreatedAt(current.getCreatedAt());
+        }
+        List<CartItem> lines = reloaded.getCartItems();
+        lines.removeIf(line -> entry.removedItemCodes.contains(line.getItem().getItemCode()));
+        for (Long itemCode : entry.changedItemCodes) {
+            CartItem changed = entry.findByItemCode(itemCode);
+            CartItem stored = lines.stream().filter(line -> line.getItem().getItemCode().equals(itemCode))
+                .findFirst().orElse(null);
+            if (stored != null) {
+                stored.setItem(changed.getItem());
+                stored.setUnitPrice(changed.getUnitPrice());
+                stored.setQuantity(changed.getQuantity());
+            } else {
+                lines.add(new CartItem(changed.getId(), reloaded, changed.getItem(), changed.getQuantity(),
+                                       changed.getUnitPrice(), changed.getTotalPrice()));
+            }
+        }
+        reloaded.calculateTotalAmount();
+        reloaded.setUpdatedAt(current.getUpdatedAt());
+        entry.cart = reloaded;
+    }
+
+    // Caller holds the entry's lock; the next access loads the cart from the database again
+    private void evict(CartEntry entry) {
+        entry.evicted = true;
+        carts.remove(entry.customerId, entry);
+    }
+
+    // Run an action against the customer's cart under its lock, loading it on first access
+    private <T> T withCart(User customer, Function<CartEntry, T> action) {
+        Long customerId = customer.getAccountNumber();
+        while (true) {
+            CartEntry entry = carts.get(customerId);
+            if (entry == null) {
+                CartEntry loaded = load(customer);
+                entry = carts.putIfAbsent(customerId, loaded);
+                if (entry == null) {
+                    entry = loaded;
+                }
+            }
+
+            entry.lock.lock();
+            try {
+                if (entry.evicted) {
+                    continue;
+                }
+                entry.lastAccess = System.currentTimeMillis();
+                return action.apply(entry);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    // The store keeps its own copy: with open-session-in-view the loaded entity stays managed for the request
+    private CartEntry load(User customer) {
+        Cart cart = transactionTemplate.execute(status ->
+            cartRepository.findWithItemsByCustomer(customer).map(CartEntry::copyOf).orElse(null));
+        if (cart == null) {
+            cart = new Cart(customer);
+        } else if (cart.getItemCount() == null) {
+            cart.calculateTotalAmount();
+        }
+        return new CartEntry(customer.getAccountNumber(), cart);
+    }
+
+    private static class CartEntry {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Long customerId;
+        private Cart cart;
+        // Lines added, changed or removed here since the last successful write
+        private final Set<Long> changedItemCodes = new HashSet<>();
+        private final Set<Long> removedItemCodes = new HashSet<>();
+        // Lines added in memory get negative ids until the cart is reloaded from the database
+        private long nextLineId = -1;
+        private volatile boolean dirty;
+        private volatile boolean evicted;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private CartEntry(Long customerId, Cart cart) {
+            this.customerId = customerId;
+            this.cart = cart;
+        }
+
+        private CartItem findById(Long cartItemId) {
+            for (CartItem line : cart.getCartItems()) {
+                if (line.getId().equals(cartItemId)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        private CartItem findByItemCode(Long itemCode) {
+            for (CartItem line : cart.getCartItems()) {
+                if (line.getItem().getItemCode().equals(itemCode)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        private Cart snapshot() {
+            return copyOf(cart);
+        }
+
+        private static Cart copyOf(Cart cart) {
+            Cart copy = new Cart(cart.getCustomer());
+            copy.setId(cart.getId());
+            copy.setTotalAmount(cart.getTotalAmount());
+            copy.setItemCount(cart.getItemCount());
+            copy.setCreatedAt(cart.getCreatedAt());
+            copy.setUpdatedAt(cart.getUpdatedAt());
+            copy.setVersion(cart.getVersion());
+            List<CartItem> lines = new ArrayList<>(cart.getCartItems().size());
+            for (CartItem line : cart.getCartItems()) {
+                lines.add(new CartItem(line.getId(), copy, line.getItem(), line.getQuantity(),
+                                       line.getUnitPrice(), line.getTotalPrice()));
+            }
+            copy.setCartItems(lines);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.springboot.project.service;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+import com.springboot.project.service.ranking.StockChangedEvent;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Monotonic version of the customer-visible catalogue, bumped after every committed item change (edits,
+// stock updates and confirmations). Seeded from the clock so versions keep increasing across restarts.
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public long current() {
+        return version.get();
+    }
+
+    // Epoch millis of the last change (or of startup)
+    public long lastModified() {
+        return lastModified;
+    }
+
+    public long bump() {
+        lastModified = System.currentTimeMillis();
+        return version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(StockChangedEvent event) {
+        bump();
+    }
+}
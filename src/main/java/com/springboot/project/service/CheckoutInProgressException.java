@@ -0,0 +1,10 @@
+package com.springboot.project.service;
+
+// The checkout key was claimed by a request that has not finished yet; the caller should retry shortly
+// and will then get that request's order.
+public class CheckoutInProgressException extends BusinessException {
+
+    public CheckoutInProgressException() {
+        super("This checkout is still being processed. Please check your orders in a moment.");
+    }
+}
@@ -0,0 +1,145 @@
+package com.springboot.project.service;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import com.springboot.project.repository.CheckoutRequestRepository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import com.springboot.project.repository.BillRepository;
+import org.springframework.beans.factory.annotation.Value;
+import com.springboot.project.config.RetryOnConflict;
+import com.springboot.project.entity.CheckoutRequest;
+import org.springframework.stereotype.Service;
+import com.springboot.project.entity.Bill;
+import com.springboot.project.entity.User;
+import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.Map;
+
+// Cart checkout as one transaction, deduplicated by a client-supplied request key.
+// A replayed key (double submit, browser or client retry) returns the bill the first request created.
+@Slf4j
+@Service
+public class CheckoutService {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private CheckoutRequestRepository checkoutRequestRepository;
+
+    @Value("${app.checkout.idempotency-ttl-ms:86400000}")
+    private long ttlMs;
+
+    @Value("${app.checkout.idempotency-cache-size:10000}")
+    private int cacheSize;
+
+    // Recently completed keys, so most replays are answered without touching checkout_requests
+    private final Map<String, Replay> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Replay> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    @RetryOnConflict
+    @Transactional
+    public Bill checkout(User customer, String requestKey) {
+        if (requestKey == null || requestKey.isBlank()) {
+            return placeOrder(customer);
+        }
+        if (requestKey.length() > 64 || !requestKey.matches("[A-Za-z0-9_-]+")) {
+            throw new BusinessException("Invalid checkout request key");
+        }
+
+        Long customerId = customer.getAccountNumber();
+        Long cached = cachedBill(requestKey, customerId);
+        if (cached != null) {
+            return loadBill(cached);
+        }
+
+        Optional<CheckoutRequest> existing = checkoutRequestRepository.findById(requestKey);
+        if (existing.isEmpty()) {
+            if (checkoutRequestRepository.claim(requestKey, customerId, LocalDateTime.now()) == 1) {
+                Bill bill = placeOrder(customer);
+                checkoutRequestRepository.recordBill(requestKey, bill.getBillNumber());
+                rememberAfterCommit(requestKey, customerId, bill.getBillNumber(), LocalDateTime.now());
+                return bill;
+            }
+            // A concurrent request with the same key claimed it first
+            existing = checkoutRequestRepository.findById(requestKey);
+        }
+
+        // The claim is not committed yet (or the row is visible before its bill): the first request is still running
+        CheckoutRequest request = existing.orElseThrow(CheckoutInProgressException::new);
+        if (!request.getCustomerNumber().equals(customerId)) {
+            throw new BusinessException("Invalid checkout request key");
+        }
+        if (request.getBillNumber() == null) {
+            throw new CheckoutInProgressException();
+        }
+        rememberAfterCommit(requestKey, customerId, request.getBillNumber(), request.getCreatedAt());
+        return loadBill(request.getBillNumber());
+    }
+
+    // Forget keys older than the replay window
+    @Scheduled(fixedDelayString = "${app.checkout.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = checkoutRequestRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttlMs, ChronoUnit.MILLIS));
+        if (purged > 0) {
+            log.info("Purged {} expired checkout request keys", purged);
+        }
+    }
+
+    private Bill placeOrder(User customer) {
+        Bill bill = orderService.createOrderFromCart(cartService.convertCartToOrder(customer));
+        cartService.clearCart(customer);
+        return bill;
+    }
+
+    private Bill loadBill(Long billNumber) {
+        return billRepository.findById(billNumber)
+            .orElseThrow(() -> new BusinessException("Order not found with id: " + billNumber));
+    }
+
+    private Long cachedBill(String requestKey, Long customerId) {
+        synchronized (recent) {
+            Replay replay = recent.get(requestKey);
+            if (replay == null) {
+                return null;
+            }
+            if (replay.createdAt().isBefore(LocalDateTime.now().minus(ttlMs, ChronoUnit.MILLIS))) {
+                recent.remove(requestKey);
+                return null;
+            }
+            return replay.customerId().equals(customerId) ? replay.billNumber() : null;
+        }
+    }
+
+    // Only cache once the bill is committed; a rolled-back checkout must not be replayed
+    private void rememberAfterCommit(String requestKey, Long customerId, Long billNumber, LocalDateTime createdAt) {
+        Replay replay = new Replay(customerId, billNumber, createdAt);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                synchronized (recent) {
+                    recent.putIfAbsent(requestKey, replay);
+                }
+            }
+        });
+    }
+
+    private record Replay(Long customerId, Long billNumber, LocalDateTime createdAt) {
+    }
+}
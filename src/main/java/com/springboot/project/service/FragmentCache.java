@@ -0,0 +1,62 @@
+package com.springboot.project.service;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+import com.springboot.project.service.ranking.StockChangedEvent;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.ConcurrentHashMap;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.ITemplateEngine;
+import java.util.function.Supplier;
+import java.util.Set;
+import java.util.Map;
+
+// Rendered HTML of user-independent template fragments (the catalogue grids), cached per catalogue version.
+// The page itself is still rendered per request, but only the user header is evaluated there.
+@Component
+public class FragmentCache {
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    // Built from the first request's servlet context, so the bean also exists in non-web contexts
+    private volatile JakartaServletWebApplication application;
+
+    private final Map<String, Rendered> cache = new ConcurrentHashMap<>();
+
+    // HTML of template::fragment for the current catalogue version; the model is only built on a miss
+    public String getCatalogFragment(String template, String fragment, ServletWebRequest webRequest,
+                                     Supplier<Map<String, Object>> model) {
+        // Read the version before loading any data, so a fragment is never cached under a newer version than it shows
+        long version = catalogVersion.current();
+        String key = template + "::" + fragment + "::" + webRequest.getLocale();
+        Rendered cached = cache.get(key);
+        if (cached != null && cached.version() == version) {
+            return cached.html();
+        }
+
+        if (application == null) {
+            application = JakartaServletWebApplication.buildApplication(webRequest.getRequest().getServletContext());
+        }
+        WebContext context = new WebContext(
+            application.buildExchange(webRequest.getRequest(), webRequest.getResponse()),
+            webRequest.getLocale(), model.get());
+        String html = templateEngine.process(template, Set.of(fragment), context);
+        cache.merge(key, new Rendered(version, html), (old, rendered) -> old.version() > rendered.version() ? old : rendered);
+        return html;
+    }
+
+    // Older versions can never be served again, so drop them as soon as the catalogue changes
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(StockChangedEvent event) {
+        cache.clear();
+    }
+
+    private record Rendered(long version, String html) {
+    }
+}
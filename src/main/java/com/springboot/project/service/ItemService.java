@@ -1,8 +1,16 @@
 package com.springboot.project.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.service.ranking.StockChangedEvent;
+import com.springboot.project.service.inventory.StockMovedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import com.springboot.project.repository.ItemRepository;
+import org.springframework.transaction.annotation.Transactional;
+import com.springboot.project.config.RetryOnConflict;
 import org.springframework.stereotype.Service;
+import com.springboot.project.dto.api.CursorPage;
+import org.springframework.data.domain.Limit;
+import com.springboot.project.dto.api.ItemDto;
 import com.springboot.project.entity.Item;
 import java.util.Optional;
 import java.util.List;
@@ -13,9 +21,15 @@ public class ItemService {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Create new item (Admin only)
-    public Item saveItem(Item item) {
-        return itemRepository.save(item);
+    public Item saveItem(Item item, Long actorId) {
+        Item saved = itemRepository.save(item);
+        eventPublisher.publishEvent(StockChangedEvent.of(saved));
+        eventPublisher.publishEvent(StockMovedEvent.manual(saved.getItemCode(), 0, stockOf(saved), actorId));
+        return saved;
     }
 
     // Get all items
@@ -34,15 +48,37 @@ public class ItemService {
     }
 
     // Update item (Admin full update, Staff quantity only)
-    public Item updateItem(Item item) {
-        return itemRepository.save(item);
+    @Transactional
+    @RetryOnConflict
+    public Item updateItem(Item item, Long actorId) {
+        Item existing = itemRepository.findById(item.getItemCode())
+            .orElseThrow(() -> new BusinessException("Item not found"));
+
+        // The form carries the version it was rendered from, so an edit made over a stale page is rejected
+        if (item.getVersion() != null && !item.getVersion().equals(existing.getVersion())) {
+            throw new BusinessException("Item was changed by someone else. Please reload and try again.");
+        }
+
+        int before = stockOf(existing);
+        existing.setName(item.getName());
+        existing.setDescription(item.getDescription());
+        existing.setCategory(item.getCategory());
+        existing.setPrice(item.getPrice());
+        existing.setStockQuantity(item.getStockQuantity());
+        existing.setStatus(item.getStatus());
+        eventPublisher.publishEvent(StockChangedEvent.of(existing));
+        eventPublisher.publishEvent(StockMovedEvent.manual(existing.getItemCode(), before, stockOf(existing), actorId));
+        return itemRepository.save(existing);
     }
 
     // Update only stock quantity (Staff)
-    public Item updateItemQuantity(Long itemCode, Integer newQuantity) {
+    @Transactional
+    @RetryOnConflict
+    public Item updateItemQuantity(Long itemCode, Integer newQuantity, Long actorId) {
         Optional<Item> itemOpt = itemRepository.findById(itemCode);
         if (itemOpt.isPresent()) {
             Item item = itemOpt.get();
+            int before = stockOf(item);
             item.setStockQuantity(newQuantity);
             
             // Auto update status based on stock
@@ -52,14 +88,36 @@ public class ItemService {
                 item.setStatus(Item.ItemStatus.ACTIVE);
             }
             
+            eventPublisher.publishEvent(StockChangedEvent.of(item));
+            eventPublisher.publishEvent(StockMovedEvent.manual(itemCode, before, stockOf(item), actorId));
             return itemRepository.save(item);
         }
         return null;
     }
 
-    // Delete item (Admin only)
-    public void deleteItem(Long itemCode) {
+    // Delete item (Admin only); whatever was left in stock is journalled as written off
+    public void deleteItem(Long itemCode, Long actorId) {
+        int before = itemRepository.findById(itemCode).map(ItemService::stockOf).orElse(0);
         itemRepository.deleteById(itemCode);
+        eventPublisher.publishEvent(StockChangedEvent.removed(itemCode));
+        eventPublisher.publishEvent(StockMovedEvent.manual(itemCode, before, 0, actorId));
+    }
+
+    private static int stockOf(Item item) {
+        return item.getStockQuantity() != null ? item.getStockQuantity() : 0;
+    }
+
+    // API: one keyset page of items after the cursor (null status means every status)
+    @Transactional(readOnly = true)
+    public CursorPage<ItemDto> getItemPage(Item.ItemStatus status, Long after, int limit) {
+        List<ItemDto> items = itemRepository.findItemPage(status, after != null ? after : 0L, Limit.of(limit));
+        Long next = items.size() == limit ? items.get(items.size() - 1).itemCode() : null;
+        return new CursorPage<>(items, next);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ItemDto> getItemDto(Long itemCode) {
+        return itemRepository.findItemDto(itemCode);
     }
 
     // Search items by name
@@ -0,0 +1,231 @@
+package com.springboot.project.service;
+
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Nightly cleanup of carts nobody has touched for a while and DRAFT bills that were never confirmed.
+// Deletes run in small transactions with a pause in between, so on SQLite the write lock is only ever
+// held for one chunk and shoppers' writes interleave with the sweep.
+@Slf4j
+@Service
+public class MaintenanceSweeper {
+
+    private static final String IDLE_CARTS =
+        "SELECT id, customer_number FROM carts WHERE updated_at < ? AND id > ? ORDER BY id LIMIT ?";
+
+    // Bills with a queued confirmation are left for the confirmation consumer
+    private static final String STALE_DRAFTS =
+        "SELECT b.bill_number FROM bills b WHERE b.status = 'DRAFT' AND b.created_at < ? " +
+        "AND NOT EXISTS (SELECT 1 FROM order_confirmations oc " +
+        "WHERE oc.bill_number = b.bill_number AND oc.status = 'PENDING') " +
+        "ORDER BY b.bill_number LIMIT ?";
+
+    // Claiming a row re-checks its condition and bumps its version, so a concurrent JPA update of the
+    // same cart or bill fails its optimistic check instead of writing into a deleted row
+    private static final String CLAIM_CART =
+        "UPDATE carts SET version = COALESCE(version, 0) + 1 WHERE id = ? AND updated_at < ?";
+    private static final String CLAIM_DRAFT =
+        "UPDATE bills SET version = COALESCE(version, 0) + 1 WHERE bill_number = ? AND status = 'DRAFT'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CartService cartService;
+
+    // Present only when app.cart.storage=memory
+    @Autowired(required = false)
+    private CartWriteBehindStore writeBehindStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.maintenance.cart-idle-days:30}")
+    private int cartIdleDays;
+
+    @Value("${app.maintenance.draft-max-age-hours:72}")
+    private int draftMaxAgeHours;
+
+    @Value("${app.maintenance.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.maintenance.pause-ms:100}")
+    private long pauseMs;
+
+    @Value("${app.maintenance.vacuum-pages:1000}")
+    private int vacuumPages;
+
+    // Switching an existing SQLite file to incremental auto-vacuum needs one full VACUUM, so it is opt-in
+    @Value("${app.maintenance.convert-auto-vacuum:false}")
+    private boolean convertAutoVacuum;
+
+    private Boolean sqlite;
+
+    @Scheduled(cron = "${app.maintenance.sweep-cron:0 0 4 * * *}")
+    public void sweep() throws InterruptedException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int carts = sweepIdleCarts(LocalDateTime.now().minusDays(cartIdleDays));
+        int bills = sweepStaleDrafts(LocalDateTime.now().minusHours(draftMaxAgeHours));
+        int pages = isSqlite() ? vacuum() : 0;
+        sample.stop(meterRegistry.timer("app.maintenance.sweep"));
+        log.info("Maintenance sweep removed {} idle carts and {} stale draft bills, released {} pages",
+                 carts, bills, pages);
+    }
+
+    private int sweepIdleCarts(LocalDateTime cutoff) throws InterruptedException {
+        Timestamp idleBefore = Timestamp.valueOf(cutoff);
+        int total = 0;
+        long lastId = 0;
+        while (true) {
+            List<Map<String, Object>> chunk = jdbcTemplate.queryForList(IDLE_CARTS, idleBefore, lastId, chunkSize);
+            if (chunk.isEmpty()) {
+                return total;
+            }
+            lastId = ((Number) chunk.get(chunk.size() - 1).get("id")).longValue();
+
+            // A cart held by the in-memory store was used recently (and may have unflushed changes),
+            // whatever carts.updated_at says; it is left alone
+            Set<Long> resident = writeBehindStore != null
+                ? writeBehindStore.residentCustomers(chunk.stream()
+                    .map(row -> ((Number) row.get("customer_number")).longValue()).toList())
+                : Set.of();
+            List<Map<String, Object>> idle = chunk.stream()
+                .filter(row -> !resident.contains(((Number) row.get("customer_number")).longValue()))
+                .toList();
+
+            List<Long> customerIds = new ArrayList<>();
+            Integer deleted = transactionTemplate.execute(status -> {
+                int[] claimed = jdbcTemplate.batchUpdate(CLAIM_CART, idle.stream()
+                    .map(row -> new Object[] { row.get("id"), idleBefore })
+                    .toList());
+                List<Object[]> ids = new ArrayList<>();
+                for (int i = 0; i < claimed.length; i++) {
+                    if (claimed[i] != 0) {
+                        ids.add(new Object[] { idle.get(i).get("id") });
+                        customerIds.add(((Number) idle.get(i).get("customer_number")).longValue());
+                    }
+                }
+                jdbcTemplate.batchUpdate("DELETE FROM cart_items WHERE cart_id = ?", ids);
+                jdbcTemplate.batchUpdate("DELETE FROM carts WHERE id = ?", ids);
+                return ids.size();
+            });
+            cartService.evictSummaries(customerIds);
+            meterRegistry.counter("app.maintenance.deleted", "table", "carts").increment(deleted);
+            total += deleted;
+
+            if (chunk.size() < chunkSize) {
+                return total;
+            }
+            Thread.sleep(pauseMs);
+        }
+    }
+
+    private int sweepStaleDrafts(LocalDateTime cutoff) throws InterruptedException {
+        Timestamp createdBefore = Timestamp.valueOf(cutoff);
+        int total = 0;
+        while (true) {
+            List<Long> chunk = jdbcTemplate.queryForList(STALE_DRAFTS, Long.class, createdBefore, chunkSize);
+            if (chunk.isEmpty()) {
+                return total;
+            }
+
+            Integer deleted = transactionTemplate.execute(status -> {
+                int[] claimed = jdbcTemplate.batchUpdate(CLAIM_DRAFT, chunk.stream()
+                    .map(billNumber -> new Object[] { billNumber })
+                    .toList());
+                List<Object[]> ids = new ArrayList<>();
+                for (int i = 0; i < claimed.length; i++) {
+                    if (claimed[i] != 0) {
+                        ids.add(new Object[] { chunk.get(i) });
+                    }
+                }
+                jdbcTemplate.batchUpdate("DELETE FROM bill_items WHERE bill_number = ?", ids);
+                jdbcTemplate.batchUpdate("DELETE FROM order_confirmations WHERE bill_number = ?", ids);
+                jdbcTemplate.batchUpdate("DELETE FROM checkout_requests WHERE bill_number = ?", ids);
+                jdbcTemplate.batchUpdate("DELETE FROM bills WHERE bill_number = ?", ids);
+                return ids.size();
+            });
+            meterRegistry.counter("app.maintenance.deleted", "table", "bills").increment(deleted);
+            total += deleted;
+
+            if (chunk.size() < chunkSize) {
+                return total;
+            }
+            Thread.sleep(pauseMs);
+        }
+    }
+
+    // Return free pages to the file system a batch at a time (SQLite only)
+    private int vacuum() throws InterruptedException {
+        Integer mode = jdbcTemplate.queryForObject("PRAGMA auto_vacuum", Integer.class);
+        if (mode == null || mode != 2) {
+            if (!convertAutoVacuum) {
+                log.info("SQLite auto_vacuum is not INCREMENTAL; set app.maintenance.convert-auto-vacuum=true " +
+                         "to convert the database with a one-off VACUUM");
+                return 0;
+            }
+            log.info("Converting SQLite database to incremental auto-vacuum (one-off full VACUUM)");
+            // The new auto_vacuum mode is pending on the connection that set it, so VACUUM must run on that one
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                    statement.execute("VACUUM");
+                }
+                return null;
+            });
+        }
+
+        int released = 0;
+        int free = freePages();
+        while (free > 0) {
+            // The driver only steps the pragma once, which frees a single page, so a batch of pages is
+            // released by repeating it inside one transaction (one commit per batch rather than per page)
+            int batch = Math.min(free, vacuumPages);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < batch; i++) {
+                    jdbcTemplate.execute("PRAGMA incremental_vacuum(1)");
+                }
+            });
+            int remaining = freePages();
+            if (remaining >= free) {
+                break;
+            }
+            released += free - remaining;
+            free = remaining;
+            Thread.sleep(pauseMs);
+        }
+        meterRegistry.counter("app.maintenance.vacuumed-pages").increment(released);
+        return released;
+    }
+
+    private int freePages() {
+        Integer free = jdbcTemplate.queryForObject("PRAGMA freelist_count", Integer.class);
+        return free != null ? free : 0;
+    }
+
+    private boolean isSqlite() {
+        if (sqlite == null) {
+            sqlite = "SQLite".equalsIgnoreCase(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        }
+        return sqlite;
+    }
+}
@@ -0,0 +1,108 @@
+package com.springboot.project.service;
+
+import com.springboot.project.entity.OrderConfirmation.ConfirmationStatus;
+import com.springboot.project.repository.OrderConfirmationRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import com.springboot.project.entity.OrderConfirmation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+
+// Outbox-backed confirmation queue: staff requests enqueue a row, a scheduled consumer confirms in batches
+@Slf4j
+@Service
+public class OrderConfirmationService {
+
+    @Autowired
+    private OrderConfirmationRepository confirmationRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.orders.confirmation.batch-size:50}")
+    private int batchSize;
+
+    // Queue a bill for confirmation, reusing an existing pending request
+    @Transactional
+    public OrderConfirmation submit(Long billId) {
+        return confirmationRepository.findFirstByBillNumberAndStatus(billId, ConfirmationStatus.PENDING)
+            .orElseGet(() -> confirmationRepository.save(new OrderConfirmation(billId)));
+    }
+
+    // Latest confirmation request for a bill (for status polling)
+    @Transactional(readOnly = true)
+    public Optional<OrderConfirmation> getLatestConfirmation(Long billId) {
+        return confirmationRepository.findFirstByBillNumberOrderByIdDesc(billId);
+    }
+
+    // Drain the queue batch by batch
+    @Scheduled(fixedDelayString = "${app.orders.confirmation.poll-interval-ms:500}")
+    public void processPending() {
+        int processed;
+        do {
+            processed = processNextBatch();
+        } while (processed == batchSize);
+    }
+
+    private int processNextBatch() {
+        List<OrderConfirmation> batch = confirmationRepository
+            .findByStatusOrderByIdAsc(ConfirmationStatus.PENDING, Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> confirmBatch(batch));
+        } catch (RuntimeException e) {
+            // A batch that fails as a whole is retried one request per transaction so it cannot wedge the queue
+            log.warn("Confirmation batch of {} failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (OrderConfirmation confirmation : batch) {
+                confirmSingle(confirmation);
+            }
+        }
+        return batch.size();
+    }
+
+    private void confirmBatch(List<OrderConfirmation> batch) {
+        List<Long> billIds = batch.stream()
+            .map(OrderConfirmation::getBillNumber)
+            .distinct()
+            .toList();
+
+        Map<Long, String> failures = orderService.confirmOrders(billIds);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (OrderConfirmation confirmation : batch) {
+            String error = failures.get(confirmation.getBillNumber());
+            confirmation.setStatus(error == null ? ConfirmationStatus.COMPLETED : ConfirmationStatus.FAILED);
+            confirmation.setErrorMessage(error);
+            confirmation.setProcessedAt(now);
+        }
+        confirmationRepository.saveAll(batch);
+    }
+
+    private void confirmSingle(OrderConfirmation confirmation) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> confirmBatch(List.of(confirmation)));
+        } catch (RuntimeException e) {
+            log.error("Confirmation of bill {} failed", confirmation.getBillNumber(), e);
+            transactionTemplate.executeWithoutResult(status -> {
+                confirmation.setStatus(ConfirmationStatus.FAILED);
+                confirmation.setErrorMessage(e.getMessage());
+                confirmation.setProcessedAt(LocalDateTime.now());
+                confirmationRepository.save(confirmation);
+            });
+        }
+    }
+}
@@ -1,15 +1,39 @@
 package com.springboot.project.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import com.springboot.project.config.RetryOnConflict;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.hibernate.Hibernate;
 import com.springboot.project.entity.*;
+import com.springboot.project.dto.api.*;
+import org.springframework.data.domain.Limit;
 import com.springboot.project.repository.*;
+import com.springboot.project.service.pricing.PriceBreakdown;
+import com.springboot.project.service.pricing.PricingEngine;
+import com.springboot.project.service.pricing.PricingLine;
+import com.springboot.project.service.pricing.PricingPlan;
+import com.springboot.project.service.ranking.StockChangedEvent;
+import com.springboot.project.service.ranking.ItemsSoldEvent;
+import com.springboot.project.service.inventory.StockMovedEvent;
+import com.springboot.project.service.inventory.StockMovement;
+import com.springboot.project.service.archive.ArchivedBill;
+import com.springboot.project.service.archive.BillArchive;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -27,6 +51,21 @@ public class OrderService {
     @Autowired
     private ItemRepository itemRepository;
     
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BillArchive billArchive;
+    
     // Create a new order (bill) for a customer
     public Bill createOrder(Long customerId) {
         Optional<User> customerOpt = userRepository.findById(customerId);
@@ -36,10 +75,11 @@ public class OrderService {
             bill.setStatus(Bill.BillStatus.DRAFT);
             return billRepository.save(bill);
         }
-        throw new RuntimeException("Customer not found with ID: " + customerId);
+        throw new BusinessException("Customer not found with ID: " + customerId);
     }
     
     // Add an item to an existing order
+    @RetryOnConflict
     public BillItem addItemToOrder(Long billId, Long itemId, Integer quantity) {
         Optional<Bill> billOpt = billRepository.findById(billId);
         Optional<Item> itemOpt = itemRepository.findById(itemId);
@@ -50,19 +90,12 @@ public class OrderService {
             
             // Check if item has sufficient stock
             if (item.getStockQuantity() < quantity) {
-                throw new RuntimeException("Insufficient stock for item: " + item.getName() + 
+                throw new BusinessException("Insufficient stock for item: " + item.getName() + 
                     ". Available: " + item.getStockQuantity() + ", Requested: " + quantity);
             }
             
-            // Initialize billItems list if null (shouldn't happen with our fix, but safety check)
-            if (bill.getBillItems() == null) {
-                bill.setBillItems(new ArrayList<>());
-            }
-            
             // Check if item is already in the bill
-            Optional<BillItem> existingBillItem = bill.getBillItems().stream()
-                .filter(bi -> bi.getItem().getItemCode().equals(itemId))
-                .findFirst();
+            Optional<BillItem> existingBillItem = billItemRepository.findByBillAndItem(bill, item);
             
             if (existingBillItem.isPresent()) {
                 // Update existing item quantity
@@ -70,30 +103,119 @@ public class OrderService {
                 int newQuantity = billItem.getQuantity() + quantity;
                 
                 if (item.getStockQuantity() < newQuantity) {
-                    throw new RuntimeException("Insufficient stock for item: " + item.getName() + 
+                    throw new BusinessException("Insufficient stock for item: " + item.getName() + 
                         ". Available: " + item.getStockQuantity() + ", Total Requested: " + newQuantity);
                 }
                 
+                BigDecimal previousTotal = billItem.getTotalPrice();
                 billItem.setQuantity(newQuantity);
+                applyLineDelta(bill, billItem.getTotalPrice().subtract(previousTotal));
                 return billItemRepository.save(billItem);
             } else {
                 // Create new bill item
                 BillItem billItem = new BillItem(bill, item, quantity, item.getPrice());
                 BillItem savedBillItem = billItemRepository.save(billItem);
-                // Add to the bill's list to keep it in sync
-                bill.getBillItems().add(savedBillItem);
+                applyLineDelta(bill, savedBillItem.getTotalPrice());
                 return savedBillItem;
             }
         }
-        throw new RuntimeException("Bill or Item not found");
+        throw new BusinessException("Bill or Item not found");
+    }
+    
+    // Create an order with several items in one transaction
+    public Bill createOrderWithItems(Long customerId, Map<Long, Integer> quantities) {
+        Bill bill = createOrder(customerId);
+        addItemsToOrder(bill, quantities);
+        return bill;
+    }
+    
+    // Add several items (itemCode -> quantity) to an existing order
+    @RetryOnConflict
+    public Bill addItemsToOrder(Long billId, Map<Long, Integer> quantities) {
+        Bill bill = billRepository.findById(billId)
+            .orElseThrow(() -> new BusinessException("Bill not found"));
+        addItemsToOrder(bill, quantities);
+        return bill;
+    }
+    
+    // One item lookup, stock validated in memory, new lines written as a single JDBC batch, totals shifted once
+    private void addItemsToOrder(Bill bill, Map<Long, Integer> quantities) {
+        Map<Long, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(quantities.keySet())) {
+            items.put(item.getItemCode(), item);
+        }
+        
+        Map<Long, BillItem> existingLines = new HashMap<>();
+        for (BillItem billItem : bill.getBillItems()) {
+            existingLines.put(billItem.getItem().getItemCode(), billItem);
+        }
+        
+        // Validate everything before writing anything
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Item item = items.get(entry.getKey());
+            if (item == null) {
+                throw new BusinessException("Item not found with ID: " + entry.getKey());
+            }
+            BillItem existing = existingLines.get(item.getItemCode());
+            int requested = entry.getValue() + (existing != null ? existing.getQuantity() : 0);
+            if (item.getStockQuantity() < requested) {
+                throw new BusinessException("Insufficient stock for item: " + item.getName() + 
+                    ". Available: " + item.getStockQuantity() + ", Requested: " + requested);
+            }
+        }
+        
+        BigDecimal delta = BigDecimal.ZERO;
+        List<Object[]> newLines = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Item item = items.get(entry.getKey());
+            BillItem existing = existingLines.get(item.getItemCode());
+            if (existing != null) {
+                BigDecimal previousTotal = existing.getTotalPrice();
+                existing.setQuantity(existing.getQuantity() + entry.getValue());
+                delta = delta.add(existing.getTotalPrice().subtract(previousTotal));
+            } else {
+                BigDecimal lineTotal = item.getPrice().multiply(BigDecimal.valueOf(entry.getValue()));
+                newLines.add(new Object[] {
+                    bill.getBillNumber(), item.getItemCode(), entry.getValue(), item.getPrice(), lineTotal
+                });
+                delta = delta.add(lineTotal);
+            }
+        }
+        
+        // IDENTITY keys disable Hibernate insert batching, so new lines go through JDBC directly
+        if (!newLines.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO bill_items (bill_number, item_code, quantity, unit_price, total_price) VALUES (?, ?, ?, ?, ?)",
+                newLines);
+            // The batch bypassed the persistence context; attach the inserted lines so the returned bill is complete
+            for (BillItem billItem : billItemRepository.findWithItemsByBill(bill)) {
+                if (!existingLines.containsKey(billItem.getItem().getItemCode())) {
+                    bill.getBillItems().add(billItem);
+                }
+            }
+        }
+        
+        applyLineDelta(bill, delta);
     }
     
     // Remove an item from an order
+    @RetryOnConflict
     public void removeItemFromOrder(Long billItemId) {
-        billItemRepository.deleteById(billItemId);
+        Optional<BillItem> billItemOpt = billItemRepository.findById(billItemId);
+        
+        if (billItemOpt.isPresent()) {
+            BillItem billItem = billItemOpt.get();
+            Bill bill = billItem.getBill();
+            if (Hibernate.isInitialized(bill.getBillItems())) {
+                bill.getBillItems().remove(billItem);
+            }
+            billItemRepository.delete(billItem);
+            applyLineDelta(bill, billItem.getTotalPrice().negate());
+        }
     }
     
     // Update item quantity in an order
+    @RetryOnConflict
     public BillItem updateItemQuantity(Long billItemId, Integer quantity) {
         Optional<BillItem> billItemOpt = billItemRepository.findById(billItemId);
         
@@ -103,101 +225,239 @@ public class OrderService {
             
             // Check if item has sufficient stock
             if (item.getStockQuantity() < quantity) {
-                throw new RuntimeException("Insufficient stock for item: " + item.getName() + 
+                throw new BusinessException("Insufficient stock for item: " + item.getName() + 
                     ". Available: " + item.getStockQuantity() + ", Requested: " + quantity);
             }
             
+            BigDecimal previousTotal = billItem.getTotalPrice();
             billItem.setQuantity(quantity);
+            applyLineDelta(billItem.getBill(), billItem.getTotalPrice().subtract(previousTotal));
             return billItemRepository.save(billItem);
         }
-        throw new RuntimeException("Bill item not found");
+        throw new BusinessException("Bill item not found");
     }
     
-    // Calculate and save the order totals
+    // Shift the bill totals by the change in one line's total; the bill's version guards concurrent edits
+    private void applyLineDelta(Bill bill, BigDecimal delta) {
+        BigDecimal currentTotal = bill.getTotalAmount() != null ? bill.getTotalAmount() : BigDecimal.ZERO;
+        setOrderTotals(bill, currentTotal.add(delta));
+        billRepository.save(bill);
+    }
+    
+    // Calculate and save the order totals; finished bills keep the prices they were invoiced at
+    @RetryOnConflict
     public Bill calculateOrderTotals(Long billId) {
         Optional<Bill> billOpt = billRepository.findById(billId);
         
         if (billOpt.isPresent()) {
             Bill bill = billOpt.get();
-            BigDecimal totalAmount = BigDecimal.ZERO;
-            
-            // Initialize billItems list if null and fetch from repository
-            if (bill.getBillItems() == null) {
-                bill.setBillItems(billItemRepository.findByBill(bill));
+            if (bill.getStatus() != Bill.BillStatus.DRAFT) {
+                throw new BusinessException("Only draft orders can be repriced");
             }
-            
-            if (bill.getBillItems() != null && !bill.getBillItems().isEmpty()) {
-                for (BillItem billItem : bill.getBillItems()) {
-                    if (billItem.getTotalPrice() != null) {
-                        totalAmount = totalAmount.add(billItem.getTotalPrice());
-                    }
+            applyOrderTotals(bill);
+            return billRepository.save(bill);
+        }
+        throw new BusinessException("Bill not found");
+    }
+    
+    // API: one keyset page of orders, newest first (customerId null means all customers), archived ones included
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDto> getOrderPage(Long customerId, Long before, int limit) {
+        long cursor = before != null ? before : Long.MAX_VALUE;
+        List<OrderDto> orders = new ArrayList<>(billRepository.findOrderPage(customerId, cursor, Limit.of(limit)));
+        List<ArchivedBill> archived = billArchive.findPage(customerId, cursor, limit);
+        if (!archived.isEmpty()) {
+            Set<Long> live = new HashSet<>();
+            orders.forEach(order -> live.add(order.billNumber()));
+            Map<Long, User> customers = customersOf(archived);
+            for (ArchivedBill bill : archived) {
+                if (!live.contains(bill.billNumber())) {
+                    orders.add(toOrderDto(bill, customers.get(bill.customerNumber())));
                 }
             }
-            
-            bill.setTotalAmount(totalAmount);
-            
-            // Calculate tax (assuming 10% tax rate)
-            BigDecimal taxAmount = totalAmount.multiply(BigDecimal.valueOf(0.10));
-            bill.setTaxAmount(taxAmount);
-            
-            // Calculate final amount
-            BigDecimal finalAmount = totalAmount.add(taxAmount).subtract(bill.getDiscountAmount());
-            bill.setFinalAmount(finalAmount);
-            
-            return billRepository.save(bill);
+            orders.sort(Comparator.comparing(OrderDto::billNumber).reversed());
+            if (orders.size() > limit) {
+                orders.subList(limit, orders.size()).clear();
+            }
         }
-        throw new RuntimeException("Bill not found");
+        Long next = orders.size() == limit ? orders.get(orders.size() - 1).billNumber() : null;
+        return new CursorPage<>(orders, next);
+    }
+
+    // API: order header and lines; a customerId restricts it to that customer's orders
+    @Transactional(readOnly = true)
+    public Optional<OrderDetailDto> getOrderDetail(Long billNumber, Long customerId) {
+        Optional<OrderDetailDto> live = billRepository.findOrderDto(billNumber, customerId)
+            .map(order -> new OrderDetailDto(order, billItemRepository.findLineDtos(billNumber)));
+        if (live.isPresent()) {
+            return live;
+        }
+        return billArchive.findByBillNumber(billNumber)
+            .filter(bill -> customerId == null || bill.customerNumber() == customerId)
+            .map(bill -> new OrderDetailDto(
+                toOrderDto(bill, customersOf(List.of(bill)).get(bill.customerNumber())),
+                bill.lines().stream()
+                    .map(line -> new OrderLineDto(line.id(), line.itemCode(), line.itemName(), line.quantity(),
+                                                  line.unitPrice(), line.totalPrice()))
+                    .toList()));
     }
     
     // Confirm the order and reduce stock quantities
+    @RetryOnConflict
     public Bill confirmOrder(Long billId) {
         Optional<Bill> billOpt = billRepository.findById(billId);
         
         if (billOpt.isPresent()) {
             Bill bill = billOpt.get();
             
-            // Initialize billItems list if null and fetch from repository
-            if (bill.getBillItems() == null) {
-                bill.setBillItems(billItemRepository.findByBill(bill));
+            String problem = checkConfirmable(bill);
+            if (problem != null) {
+                throw new BusinessException(problem);
             }
             
-            // Check if there are any items in the order
-            if (bill.getBillItems() == null || bill.getBillItems().isEmpty()) {
-                throw new RuntimeException("Cannot confirm an order with no items.");
+            applyConfirmation(bill);
+            salesRollupService.recordConfirmed(List.of(bill));
+            return billRepository.save(bill);
+        }
+        throw new BusinessException("Bill not found");
+    }
+    
+    // Confirm a batch of orders in the caller's transaction; returns failure reasons keyed by bill number
+    public Map<Long, String> confirmOrders(Collection<Long> billIds) {
+        Map<Long, Bill> bills = new HashMap<>();
+        for (Bill bill : billRepository.findWithItemsByBillNumberIn(billIds)) {
+            bills.put(bill.getBillNumber(), bill);
+        }
+        
+        // Bills sharing an item see each other's stock decrements through the persistence context
+        Map<Long, String> failures = new LinkedHashMap<>();
+        List<Bill> confirmed = new ArrayList<>();
+        for (Long billId : billIds) {
+            Bill bill = bills.get(billId);
+            if (bill == null) {
+                failures.put(billId, "Bill not found");
+                continue;
             }
             
-            // Check stock availability one more time before confirming
-            for (BillItem billItem : bill.getBillItems()) {
-                Item item = billItem.getItem();
-                if (item.getStockQuantity() < billItem.getQuantity()) {
-                    throw new RuntimeException("Insufficient stock for item: " + item.getName() + 
-                        ". Available: " + item.getStockQuantity() + ", Required: " + billItem.getQuantity());
-                }
+            String problem = checkConfirmable(bill);
+            if (problem != null) {
+                failures.put(billId, problem);
+                continue;
             }
             
-            // Reduce stock quantities
-            for (BillItem billItem : bill.getBillItems()) {
-                Item item = billItem.getItem();
-                item.setStockQuantity(item.getStockQuantity() - billItem.getQuantity());
-                
-                // Update item status if out of stock
-                if (item.getStockQuantity() == 0) {
-                    item.setStatus(Item.ItemStatus.OUT_OF_STOCK);
-                }
-                
-                itemRepository.save(item);
+            applyConfirmation(bill);
+            confirmed.add(bill);
+        }
+        salesRollupService.recordConfirmed(confirmed);
+        return failures;
+    }
+    
+    // Returns the reason the bill cannot be confirmed, or null if it can
+    private String checkConfirmable(Bill bill) {
+        if (bill.getStatus() != Bill.BillStatus.DRAFT) {
+            return "Order is already " + bill.getStatus().name().toLowerCase() + ".";
+        }
+        
+        // Initialize billItems list if null and fetch from repository
+        if (bill.getBillItems() == null) {
+            bill.setBillItems(billItemRepository.findByBill(bill));
+        }
+        
+        // Check if there are any items in the order
+        if (bill.getBillItems() == null || bill.getBillItems().isEmpty()) {
+            return "Cannot confirm an order with no items.";
+        }
+        
+        // Check stock availability one more time before confirming
+        for (BillItem billItem : bill.getBillItems()) {
+            Item item = billItem.getItem();
+            if (item.getStockQuantity() < billItem.getQuantity()) {
+                return "Insufficient stock for item: " + item.getName() + 
+                    ". Available: " + item.getStockQuantity() + ", Required: " + billItem.getQuantity();
             }
+        }
+        return null;
+    }
+    
+    // Reduce stock, settle the price and mark the bill confirmed
+    private void applyConfirmation(Bill bill) {
+        Map<Long, Integer> unitsSold = new HashMap<>();
+        for (BillItem billItem : bill.getBillItems()) {
+            Item item = billItem.getItem();
+            item.setStockQuantity(item.getStockQuantity() - billItem.getQuantity());
             
-            // Calculate totals
-            calculateOrderTotals(billId);
-            
-            // Update bill status
-            bill.setStatus(Bill.BillStatus.CONFIRMED);
-            bill.setPaidAt(LocalDateTime.now());
-            
-            return billRepository.save(bill);
+            // Update item status if out of stock
+            if (item.getStockQuantity() == 0) {
+                item.setStatus(Item.ItemStatus.OUT_OF_STOCK);
+            }
+            unitsSold.merge(item.getItemCode(), billItem.getQuantity(), Integer::sum);
+            eventPublisher.publishEvent(StockChangedEvent.of(item));
+            eventPublisher.publishEvent(new StockMovedEvent(item.getItemCode(), -billItem.getQuantity(),
+                item.getStockQuantity(), StockMovement.Type.SALE, bill.getBillNumber()));
         }
-        throw new RuntimeException("Bill not found");
+        
+        // Lines are already loaded, so settle the final price against the current rules
+        priceFromLines(bill, bill.getBillItems());
+        
+        bill.setStatus(Bill.BillStatus.CONFIRMED);
+        bill.setPaidAt(LocalDateTime.now());
+        eventPublisher.publishEvent(new ItemsSoldEvent(bill.getBillNumber(), bill.getPaidAt().toLocalDate(), unitsSold));
+    }
+    
+    private void applyOrderTotals(Bill bill) {
+        // Initialize billItems list if null and fetch from repository
+        if (bill.getBillItems() == null) {
+            bill.setBillItems(billItemRepository.findByBill(bill));
+        }
+        priceFromLines(bill, bill.getBillItems());
+    }
+    
+    // Set a new subtotal and reprice: subtotal-only plans stay O(1), otherwise the lines go through the pricing plan
+    private void setOrderTotals(Bill bill, BigDecimal totalAmount) {
+        PricingPlan plan = pricingEngine.getPlan();
+        if (plan.isSubtotalOnly()) {
+            applyPrice(bill, plan.priceSubtotal(totalAmount, bill.getCouponCode()));
+        } else {
+            priceFromLines(bill, billItemRepository.findWithItemsByBill(bill));
+        }
+    }
+    
+    private void priceFromLines(Bill bill, List<BillItem> billItems) {
+        List<PricingLine> lines = new ArrayList<>(billItems.size());
+        for (BillItem billItem : billItems) {
+            Item item = billItem.getItem();
+            lines.add(new PricingLine(item.getItemCode(), item.getCategory(), billItem.getQuantity(), billItem.getUnitPrice()));
+        }
+        applyPrice(bill, pricingEngine.price(lines, bill.getCouponCode()));
+    }
+    
+    private void applyPrice(Bill bill, PriceBreakdown price) {
+        bill.setTotalAmount(price.subtotal());
+        bill.setDiscountAmount(price.discount());
+        bill.setTaxAmount(price.tax());
+        bill.setFinalAmount(price.total());
+    }
+    
+    // Apply (or with a blank code, remove) a coupon and reprice the order
+    @RetryOnConflict
+    public Bill applyCoupon(Long billId, String couponCode) {
+        Bill bill = billRepository.findById(billId)
+            .orElseThrow(() -> new BusinessException("Bill not found"));
+        // Confirmed bills are already invoiced and counted in the sales rollups
+        if (bill.getStatus() != Bill.BillStatus.DRAFT) {
+            throw new BusinessException("Coupons can only be changed on draft orders");
+        }
+        
+        if (couponCode == null || couponCode.isBlank()) {
+            bill.setCouponCode(null);
+        } else if (pricingEngine.getPlan().hasCoupon(couponCode)) {
+            bill.setCouponCode(couponCode.trim().toUpperCase(Locale.ROOT));
+        } else {
+            throw new BusinessException("Invalid coupon code: " + couponCode);
+        }
+        
+        setOrderTotals(bill, bill.getTotalAmount() != null ? bill.getTotalAmount() : BigDecimal.ZERO);
+        return billRepository.save(bill);
     }
     
     // Get all orders
@@ -205,9 +465,19 @@ public class OrderService {
         return billRepository.findAllByOrderByCreatedAtDesc();
     }
     
-    // Get orders by customer
+    // Get orders by customer, newest first, archived ones included
     public List<Bill> getOrdersByCustomer(Long customerId) {
-        return billRepository.findByCustomerIdOrderByCreatedAtDesc(customerId);
+        List<Bill> orders = billRepository.findByCustomerIdOrderByCreatedAtDesc(customerId);
+        List<ArchivedBill> archived = billArchive.findByCustomer(customerId);
+        if (archived.isEmpty()) {
+            return orders;
+        }
+        Set<Long> live = new HashSet<>();
+        orders.forEach(order -> live.add(order.getBillNumber()));
+        List<Bill> merged = new ArrayList<>(orders);
+        merged.addAll(toBills(archived.stream().filter(bill -> !live.contains(bill.billNumber())).toList()));
+        merged.sort(Comparator.comparing(Bill::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged;
     }
     
     // Get order by ID
@@ -215,14 +485,80 @@ public class OrderService {
         return billRepository.findById(billId);
     }
     
-    // Get all customers (for dropdown selection)
-    public List<User> getAllCustomers() {
-        return userRepository.findByType(User.userType.CUSTOMER);
+    // Order with its customer, lines and items loaded together, for pages that render all of them
+    @Transactional(readOnly = true)
+    public Optional<Bill> getOrderAggregate(Long billId) {
+        return billRepository.findAggregateByBillNumber(billId)
+            .or(() -> billArchive.findByBillNumber(billId).map(bill -> toBills(List.of(bill)).get(0)));
     }
     
-    // Get all active items (for selection)
-    public List<Item> getActiveItems() {
-        return itemRepository.findActiveItemsOrderByName();
+    // Customer's own order with everything loaded; empty if it does not exist or belongs to someone else
+    @Transactional(readOnly = true)
+    public Optional<Bill> getCustomerOrderAggregate(Long billId, Long customerId) {
+        return billRepository.findAggregateByBillNumberAndCustomer(billId, customerId)
+            .or(() -> billArchive.findByBillNumber(billId)
+                .filter(bill -> bill.customerNumber() == customerId)
+                .map(bill -> toBills(List.of(bill)).get(0)));
+    }
+
+    // Archived bills as detached, read-only entities, so order pages render them like live ones.
+    // Customers and items deleted since archiving are stood in for by transient placeholders.
+    private List<Bill> toBills(List<ArchivedBill> archived) {
+        Map<Long, User> customers = customersOf(archived);
+        Map<Long, Item> items = new HashMap<>();
+        itemRepository.findAllById(archived.stream()
+                .flatMap(bill -> bill.lines().stream().map(ArchivedBill.Line::itemCode)).distinct().toList())
+            .forEach(item -> items.put(item.getItemCode(), item));
+
+        List<Bill> bills = new ArrayList<>(archived.size());
+        for (ArchivedBill archivedBill : archived) {
+            Bill bill = new Bill(customers.get(archivedBill.customerNumber()));
+            bill.setBillNumber(archivedBill.billNumber());
+            bill.setStatus(archivedBill.status());
+            bill.setCouponCode(archivedBill.couponCode());
+            bill.setTotalAmount(archivedBill.totalAmount());
+            bill.setDiscountAmount(archivedBill.discountAmount());
+            bill.setTaxAmount(archivedBill.taxAmount());
+            bill.setFinalAmount(archivedBill.finalAmount());
+            bill.setCreatedAt(archivedBill.createdAt());
+            bill.setPaidAt(archivedBill.paidAt());
+            bill.setVersion(archivedBill.version());
+            for (ArchivedBill.Line line : archivedBill.lines()) {
+                Item item = items.computeIfAbsent(line.itemCode(), code -> {
+                    Item placeholder = new Item();
+                    placeholder.setItemCode(code);
+                    placeholder.setName(line.itemName() != null ? line.itemName() : "Item #" + code);
+                    return placeholder;
+                });
+                BillItem billItem = new BillItem(bill, item, line.quantity(), line.unitPrice());
+                billItem.setId(line.id());
+                billItem.setTotalPrice(line.totalPrice());
+                bill.getBillItems().add(billItem);
+            }
+            bills.add(bill);
+        }
+        return bills;
+    }
+
+    private Map<Long, User> customersOf(List<ArchivedBill> archived) {
+        Map<Long, User> customers = new HashMap<>();
+        userRepository.findAllById(archived.stream().map(ArchivedBill::customerNumber).distinct().toList())
+            .forEach(user -> customers.put(user.getAccountNumber(), user));
+        for (ArchivedBill bill : archived) {
+            customers.computeIfAbsent(bill.customerNumber(), number -> {
+                User placeholder = new User();
+                placeholder.setAccountNumber(number);
+                placeholder.setName("Customer #" + number);
+                return placeholder;
+            });
+        }
+        return customers;
+    }
+
+    private static OrderDto toOrderDto(ArchivedBill bill, User customer) {
+        return new OrderDto(bill.billNumber(), bill.customerNumber(), customer.getName(), bill.status(),
+                            bill.totalAmount(), bill.discountAmount(), bill.taxAmount(), bill.finalAmount(),
+                            bill.couponCode(), bill.createdAt(), bill.paidAt());
     }
     
     // Create order from cart (for checkout)
@@ -230,15 +566,15 @@ public class OrderService {
         // Save the order and its items
         Bill savedOrder = billRepository.save(order);
         
-        // Save all bill items
+        // Save all bill items, totalling as we go
+        BigDecimal totalAmount = BigDecimal.ZERO;
         for (BillItem billItem : order.getBillItems()) {
             billItem.setBill(savedOrder);
             billItemRepository.save(billItem);
+            totalAmount = totalAmount.add(billItem.getTotalPrice());
         }
         
-        // Calculate and set totals
-        calculateOrderTotals(savedOrder.getBillNumber());
-        
-        return billRepository.findById(savedOrder.getBillNumber()).orElse(savedOrder);
+        setOrderTotals(savedOrder, totalAmount);
+        return billRepository.save(savedOrder);
     }
 }
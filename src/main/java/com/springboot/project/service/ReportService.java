@@ -0,0 +1,394 @@
+package com.springboot.project.service;
+
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.springboot.project.service.archive.ArchivedBill;
+import com.springboot.project.service.archive.BillArchive;
+import com.springboot.project.repository.UserRepository;
+import com.springboot.project.repository.ItemRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.springboot.project.dto.ReportFilter;
+import org.springframework.stereotype.Service;
+import com.springboot.project.entity.Bill;
+import com.springboot.project.entity.Item;
+import com.springboot.project.entity.User;
+import java.nio.charset.StandardCharsets;
+import jakarta.annotation.PostConstruct;
+import java.io.OutputStreamWriter;
+import java.io.BufferedWriter;
+import java.io.UncheckedIOException;
+import java.io.OutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Streams report rows from a forward-only JDBC cursor straight to the response, so heap use
+// does not grow with the size of the export. Archived bills are read one segment at a time ahead of the live rows.
+@Service
+public class ReportService {
+
+    public enum ExportFormat {
+        CSV, JSONL
+    }
+
+    private static final String ORDER_LINES_QUERY =
+        "SELECT b.bill_number, b.created_at, b.status, b.coupon_code, b.total_amount, b.discount_amount, " +
+        "b.tax_amount, b.final_amount, u.account_number, u.name AS customer_name, u.email, " +
+        "bi.item_code, i.name AS item_name, bi.quantity, bi.unit_price, bi.total_price " +
+        "FROM bills b " +
+        "JOIN users u ON u.account_number = b.customer_number " +
+        "LEFT JOIN bill_items bi ON bi.bill_number = b.bill_number " +
+        "LEFT JOIN items i ON i.item_code = bi.item_code ";
+
+    private static final String ITEM_SALES_QUERY =
+        "SELECT i.item_code, i.name, i.category, SUM(bi.quantity) AS units, SUM(bi.total_price) AS revenue, " +
+        "COUNT(DISTINCT b.bill_number) AS orders " +
+        "FROM bill_items bi " +
+        "JOIN bills b ON b.bill_number = bi.bill_number " +
+        "JOIN items i ON i.item_code = bi.item_code ";
+
+    private static final String[] ORDER_CSV_HEADER = {
+        "bill_number", "created_at", "status", "coupon_code", "customer_number", "customer_name", "customer_email",
+        "item_code", "item_name", "quantity", "unit_price", "line_total",
+        "bill_total", "discount", "tax", "final_amount"
+    };
+
+    private static final String[] SALES_CSV_HEADER = {
+        "item_code", "item_name", "category", "units_sold", "revenue", "orders"
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BillArchive billArchive;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Value("${app.reports.fetch-size:500}")
+    private int fetchSize;
+
+    // Separate template so the cursor fetch size does not leak into other queries
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    // One row per order line (orders without lines get a single row with empty line columns)
+    // PostgreSQL only honours the fetch size inside a transaction, hence read-only rather than auto-commit
+    @Transactional(readOnly = true)
+    public void exportOrders(ReportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+        List<Object> args = new ArrayList<>();
+        String sql = ORDER_LINES_QUERY + where(filter, args, false) + " ORDER BY b.bill_number, bi.id";
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writeCsvRow(writer, ORDER_CSV_HEADER);
+            scanArchive(filter, false, (bill, customer) -> {
+                List<ArchivedBill.Line> lines = bill.lines().isEmpty() ? Collections.singletonList(null) : bill.lines();
+                for (ArchivedBill.Line line : lines) {
+                    writeCsvRow(writer, new Object[] {
+                        bill.billNumber(), bill.createdAt(), bill.status(), bill.couponCode(), bill.customerNumber(),
+                        customer != null ? customer.getName() : null, customer != null ? customer.getEmail() : null,
+                        line != null ? line.itemCode() : null, line != null ? line.itemName() : null,
+                        line != null ? line.quantity() : null, line != null ? line.unitPrice() : null,
+                        line != null ? line.totalPrice() : null, bill.totalAmount(), bill.discountAmount(),
+                        bill.taxAmount(), bill.finalAmount()
+                    });
+                }
+            });
+            query(sql, args, rs -> writeCsvRow(writer, new Object[] {
+                rs.getLong("bill_number"), timestamp(rs, "created_at"), rs.getString("status"),
+                rs.getString("coupon_code"), rs.getLong("account_number"), rs.getString("customer_name"),
+                rs.getString("email"), rs.getObject("item_code"), rs.getString("item_name"),
+                rs.getObject("quantity"), rs.getBigDecimal("unit_price"), rs.getBigDecimal("total_price"),
+                rs.getBigDecimal("total_amount"), rs.getBigDecimal("discount_amount"),
+                rs.getBigDecimal("tax_amount"), rs.getBigDecimal("final_amount")
+            }));
+        } else {
+            JsonGenerator json = jsonLines(writer);
+            scanArchive(filter, false, (bill, customer) -> {
+                writeOrderStart(json, bill.billNumber(), bill.createdAt().toString(), bill.status().name(),
+                    bill.couponCode(), bill.customerNumber(), customer != null ? customer.getName() : null,
+                    customer != null ? customer.getEmail() : null, bill.totalAmount(), bill.discountAmount(),
+                    bill.taxAmount(), bill.finalAmount());
+                for (ArchivedBill.Line line : bill.lines()) {
+                    writeOrderLine(json, line.itemCode(), line.itemName(), line.quantity(), line.unitPrice(),
+                                   line.totalPrice());
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            });
+            writeOrdersJsonLines(sql, args, json);
+        }
+        writer.flush();
+    }
+
+    // Units and revenue per item; without a status filter only confirmed and paid orders count as sales
+    @Transactional(readOnly = true)
+    public void exportItemSales(ReportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+        List<Object> args = new ArrayList<>();
+        String sql = ITEM_SALES_QUERY + where(filter, args, true)
+            + " GROUP BY i.item_code, i.name, i.category ORDER BY revenue DESC";
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator json = format == ExportFormat.JSONL ? jsonLines(writer) : null;
+        if (json == null) {
+            writeCsvRow(writer, SALES_CSV_HEADER);
+        }
+        RowWriter rowWriter = rs -> writeSalesRow(writer, json, new SalesRow(rs.getLong("item_code"),
+            rs.getString("name"), rs.getString("category"), rs.getLong("units"), rs.getBigDecimal("revenue"),
+            rs.getLong("orders")));
+
+        Map<Long, SalesRow> archived = archivedItemSales(filter);
+        if (archived.isEmpty()) {
+            query(sql, args, rowWriter);
+        } else {
+            // Per-item totals are small (one row per item), so live and archived figures are merged in memory
+            query(sql, args, rs -> archived.merge(rs.getLong("item_code"), new SalesRow(rs.getLong("item_code"),
+                rs.getString("name"), rs.getString("category"), rs.getLong("units"), rs.getBigDecimal("revenue"),
+                rs.getLong("orders")), SalesRow::plus));
+            List<SalesRow> rows = new ArrayList<>(archived.values());
+            rows.sort(Comparator.comparing(SalesRow::revenue).reversed());
+            for (SalesRow row : rows) {
+                writeSalesRow(writer, json, row);
+            }
+        }
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private void writeSalesRow(Writer writer, JsonGenerator json, SalesRow row) throws IOException {
+        if (json == null) {
+            writeCsvRow(writer, new Object[] {
+                row.itemCode(), row.name(), row.category(), row.units(), row.revenue(), row.orders()
+            });
+            return;
+        }
+        json.writeStartObject();
+        json.writeNumberField("itemCode", row.itemCode());
+        json.writeStringField("name", row.name());
+        json.writeStringField("category", row.category());
+        json.writeNumberField("unitsSold", row.units());
+        json.writeNumberField("revenue", row.revenue());
+        json.writeNumberField("orders", row.orders());
+        json.writeEndObject();
+    }
+
+    // Units, revenue and order count per item over the archived bills the filter selects
+    private Map<Long, SalesRow> archivedItemSales(ReportFilter filter) throws IOException {
+        Map<Long, SalesRow> rows = new HashMap<>();
+        scanArchive(filter, true, (bill, customer) -> {
+            Set<Long> counted = new HashSet<>();
+            for (ArchivedBill.Line line : bill.lines()) {
+                int orders = counted.add(line.itemCode()) ? 1 : 0;
+                rows.merge(line.itemCode(), new SalesRow(line.itemCode(), line.itemName(), null, line.quantity(),
+                    line.totalPrice() != null ? line.totalPrice() : BigDecimal.ZERO, orders), SalesRow::plus);
+            }
+        });
+        if (!rows.isEmpty()) {
+            for (Item item : itemRepository.findAllById(rows.keySet())) {
+                rows.computeIfPresent(item.getItemCode(), (code, row) ->
+                    new SalesRow(code, item.getName(), item.getCategory(), row.units(), row.revenue(), row.orders()));
+            }
+        }
+        return rows;
+    }
+
+    // Hand the archived bills matching the filter to the writer, with their customers looked up per segment
+    private void scanArchive(ReportFilter filter, boolean salesOnly, ArchivedBillWriter billWriter) throws IOException {
+        if (billArchive.isEmpty()) {
+            return;
+        }
+        LocalDateTime from = filter.from() != null ? filter.from().atStartOfDay() : null;
+        LocalDateTime to = filter.to() != null ? filter.to().plusDays(1).atStartOfDay() : null;
+        Set<Bill.BillStatus> statuses = filter.status() != null ? EnumSet.of(filter.status())
+            : salesOnly ? EnumSet.of(Bill.BillStatus.CONFIRMED, Bill.BillStatus.PAID) : null;
+        try {
+            billArchive.scan(from, to, statuses, bills -> {
+                Map<Long, User> customers = new HashMap<>();
+                userRepository.findAllById(bills.stream().map(ArchivedBill::customerNumber).distinct().toList())
+                    .forEach(user -> customers.put(user.getAccountNumber(), user));
+                for (ArchivedBill bill : bills) {
+                    try {
+                        billWriter.write(bill, customers.get(bill.customerNumber()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // One JSON object per bill with its lines nested; rows arrive ordered by bill so each bill is closed as soon as the next starts
+    private void writeOrdersJsonLines(String sql, List<Object> args, JsonGenerator json) throws IOException {
+        long[] currentBill = { -1 };
+        query(sql, args, rs -> {
+            long billNumber = rs.getLong("bill_number");
+            if (billNumber != currentBill[0]) {
+                if (currentBill[0] != -1) {
+                    json.writeEndArray();
+                    json.writeEndObject();
+                }
+                currentBill[0] = billNumber;
+                writeOrderStart(json, billNumber, timestamp(rs, "created_at"), rs.getString("status"),
+                    rs.getString("coupon_code"), rs.getLong("account_number"), rs.getString("customer_name"),
+                    rs.getString("email"), rs.getBigDecimal("total_amount"), rs.getBigDecimal("discount_amount"),
+                    rs.getBigDecimal("tax_amount"), rs.getBigDecimal("final_amount"));
+            }
+            long itemCode = rs.getLong("item_code");
+            if (!rs.wasNull()) {
+                writeOrderLine(json, itemCode, rs.getString("item_name"), rs.getInt("quantity"),
+                               rs.getBigDecimal("unit_price"), rs.getBigDecimal("total_price"));
+            }
+        });
+        if (currentBill[0] != -1) {
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        json.flush();
+    }
+
+    // Opens the bill object and its lines array; the caller closes both
+    private static void writeOrderStart(JsonGenerator json, long billNumber, String createdAt, String status,
+                                        String couponCode, long customerNumber, String customerName, String email,
+                                        BigDecimal total, BigDecimal discount, BigDecimal tax, BigDecimal finalAmount)
+            throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("billNumber", billNumber);
+        json.writeStringField("createdAt", createdAt);
+        json.writeStringField("status", status);
+        json.writeStringField("couponCode", couponCode);
+        json.writeObjectFieldStart("customer");
+        json.writeNumberField("accountNumber", customerNumber);
+        json.writeStringField("name", customerName);
+        json.writeStringField("email", email);
+        json.writeEndObject();
+        json.writeNumberField("totalAmount", total);
+        json.writeNumberField("discountAmount", discount);
+        json.writeNumberField("taxAmount", tax);
+        json.writeNumberField("finalAmount", finalAmount);
+        json.writeArrayFieldStart("lines");
+    }
+
+    private static void writeOrderLine(JsonGenerator json, long itemCode, String itemName, int quantity,
+                                       BigDecimal unitPrice, BigDecimal totalPrice) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("itemCode", itemCode);
+        json.writeStringField("itemName", itemName);
+        json.writeNumberField("quantity", quantity);
+        json.writeNumberField("unitPrice", unitPrice);
+        json.writeNumberField("totalPrice", totalPrice);
+        json.writeEndObject();
+    }
+
+    private String where(ReportFilter filter, List<Object> args, boolean salesOnly) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.from() != null) {
+            conditions.add("b.created_at >= ?");
+            args.add(Timestamp.valueOf(filter.from().atStartOfDay()));
+        }
+        if (filter.to() != null) {
+            conditions.add("b.created_at < ?");
+            args.add(Timestamp.valueOf(filter.to().plusDays(1).atStartOfDay()));
+        }
+        if (filter.status() != null) {
+            conditions.add("b.status = ?");
+            args.add(filter.status().name());
+        } else if (salesOnly) {
+            conditions.add("b.status IN ('" + Bill.BillStatus.CONFIRMED + "', '" + Bill.BillStatus.PAID + "')");
+        }
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions);
+    }
+
+    private void query(String sql, List<Object> args, RowWriter rowWriter) {
+        streamingJdbcTemplate.query(sql, rs -> {
+            try {
+                rowWriter.write(rs);
+            } catch (IOException e) {
+                // Usually the client went away; abort the cursor rather than keep reading
+                throw new UncheckedIOException(e);
+            }
+        }, args.toArray());
+    }
+
+    private JsonGenerator jsonLines(Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.setRootValueSeparator(new SerializedString("\n"));
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return json;
+    }
+
+    private static String timestamp(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value != null ? value.toLocalDateTime().toString() : null;
+    }
+
+    // Also writes the stock reconciliation report
+    public static void writeCsvRow(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvValue(writer, values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    private interface ArchivedBillWriter {
+        void write(ArchivedBill bill, User customer) throws IOException;
+    }
+
+    private record SalesRow(long itemCode, String name, String category, long units, BigDecimal revenue, long orders) {
+
+        // Keeps this row's name and category, which come from the live item when there is one
+        SalesRow plus(SalesRow other) {
+            return new SalesRow(itemCode, name != null ? name : other.name, category != null ? category : other.category,
+                                units + other.units, revenue.add(other.revenue), orders + other.orders);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.springboot.project.service;
+
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.data.domain.Limit;
+import com.springboot.project.service.archive.ArchivedBill;
+import com.springboot.project.service.archive.BillArchive;
+import com.springboot.project.repository.*;
+import com.springboot.project.entity.*;
+import com.springboot.project.dto.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalDate;
+import java.sql.Timestamp;
+import java.sql.Date;
+import lombok.extern.slf4j.Slf4j;
+import java.util.*;
+
+// Per-day, per-item and per-customer sales aggregates. Confirmations add their deltas in the confirming
+// transaction; rebuild() recomputes everything from the bills for history or repair.
+@Slf4j
+@Service
+public class SalesRollupService {
+
+    private static final String CONFIRMED_STATUSES =
+        "('" + Bill.BillStatus.CONFIRMED + "', '" + Bill.BillStatus.PAID + "')";
+
+    private static final String BACKFILL_QUERY =
+        "SELECT b.bill_number, b.paid_at, b.created_at, b.customer_number, b.total_amount, b.discount_amount, " +
+        "b.tax_amount, b.final_amount, bi.item_code, bi.quantity, bi.total_price " +
+        "FROM bills b LEFT JOIN bill_items bi ON bi.bill_number = b.bill_number " +
+        "WHERE b.status IN " + CONFIRMED_STATUSES + " ORDER BY b.bill_number";
+
+    private static final RollupTable DAILY = new RollupTable("daily_sales_rollups", List.of("sales_date"),
+        List.of("order_count", "units", "revenue", "discount", "tax", "net_revenue"));
+    private static final RollupTable ITEM = new RollupTable("item_sales_rollups", List.of("sales_date", "item_code"),
+        List.of("order_count", "units", "revenue"));
+    private static final RollupTable CUSTOMER = new RollupTable("customer_sales_rollups",
+        List.of("sales_date", "customer_number"), List.of("order_count", "units", "revenue", "tax"));
+
+    @Autowired
+    private DailySalesRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private ItemSalesRollupRepository itemRollupRepository;
+
+    @Autowired
+    private CustomerSalesRollupRepository customerRollupRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BillArchive billArchive;
+
+    private Boolean h2;
+
+    // Add freshly confirmed bills to the rollups (runs inside the confirming transaction)
+    @Transactional
+    public void recordConfirmed(Collection<Bill> bills) {
+        Rollups rollups = new Rollups();
+        for (Bill bill : bills) {
+            LocalDate salesDate = salesDate(bill.getPaidAt() != null ? bill.getPaidAt() : bill.getCreatedAt());
+            Long customer = bill.getCustomer().getAccountNumber();
+            rollups.addOrder(salesDate, customer, bill.getTotalAmount(), bill.getDiscountAmount(),
+                             bill.getTaxAmount(), bill.getFinalAmount());
+            for (BillItem line : bill.getBillItems()) {
+                rollups.addLine(salesDate, customer, line.getItem().getItemCode(), line.getQuantity(), line.getTotalPrice());
+            }
+        }
+
+        // One upsert per key, in key order so concurrent confirmations lock rows in the same sequence
+        jdbcTemplate.batchUpdate(upsertSql(DAILY), rollups.days.values().stream()
+            .sorted(Comparator.comparing(DailySalesRollup::getSalesDate))
+            .map(day -> new Object[] { Date.valueOf(day.getSalesDate()), day.getOrderCount(), day.getUnits(),
+                day.getRevenue(), day.getDiscount(), day.getTax(), day.getNetRevenue() })
+            .toList());
+        jdbcTemplate.batchUpdate(upsertSql(ITEM), rollups.items.values().stream()
+            .sorted(Comparator.comparing(ItemSalesRollup::getSalesDate).thenComparing(ItemSalesRollup::getItemCode))
+            .map(item -> new Object[] { Date.valueOf(item.getSalesDate()), item.getItemCode(), item.getOrderCount(),
+                item.getUnits(), item.getRevenue() })
+            .toList());
+        jdbcTemplate.batchUpdate(upsertSql(CUSTOMER), rollups.customers.values().stream()
+            .sorted(Comparator.comparing(CustomerSalesRollup::getSalesDate)
+                .thenComparing(CustomerSalesRollup::getCustomerNumber))
+            .map(customer -> new Object[] { Date.valueOf(customer.getSalesDate()), customer.getCustomerNumber(),
+                customer.getOrderCount(), customer.getUnits(), customer.getRevenue(), customer.getTax() })
+            .toList());
+    }
+
+    // Recompute all rollups from confirmed and paid bills, archived ones included; memory grows with distinct
+    // days/items/customers, not bills
+    public int rebuild() {
+        Integer bills = transactionTemplate.execute(status -> {
+            Rollups rollups = new Rollups();
+            long[] current = { -1 };
+            int[] count = { 0 };
+            jdbcTemplate.query(BACKFILL_QUERY, rs -> {
+                long billNumber = rs.getLong("bill_number");
+                Timestamp paidAt = rs.getTimestamp("paid_at");
+                LocalDate salesDate = salesDate((paidAt != null ? paidAt : rs.getTimestamp("created_at")).toLocalDateTime());
+                Long customer = rs.getLong("customer_number");
+                if (billNumber != current[0]) {
+                    current[0] = billNumber;
+                    count[0]++;
+                    rollups.addOrder(salesDate, customer, rs.getBigDecimal("total_amount"),
+                        rs.getBigDecimal("discount_amount"), rs.getBigDecimal("tax_amount"),
+                        rs.getBigDecimal("final_amount"));
+                }
+                long itemCode = rs.getLong("item_code");
+                if (!rs.wasNull()) {
+                    rollups.addLine(salesDate, customer, itemCode, rs.getInt("quantity"), rs.getBigDecimal("total_price"));
+                }
+            });
+            billArchive.scan(null, null, EnumSet.of(Bill.BillStatus.CONFIRMED, Bill.BillStatus.PAID), archived -> {
+                for (ArchivedBill bill : archived) {
+                    LocalDate salesDate = salesDate(bill.paidAt() != null ? bill.paidAt() : bill.createdAt());
+                    count[0]++;
+                    rollups.addOrder(salesDate, bill.customerNumber(), bill.totalAmount(), bill.discountAmount(),
+                                     bill.taxAmount(), bill.finalAmount());
+                    for (ArchivedBill.Line line : bill.lines()) {
+                        rollups.addLine(salesDate, bill.customerNumber(), line.itemCode(), line.quantity(),
+                                        line.totalPrice());
+                    }
+                }
+            });
+
+            dailyRollupRepository.deleteAllInBatch();
+            itemRollupRepository.deleteAllInBatch();
+            customerRollupRepository.deleteAllInBatch();
+            dailyRollupRepository.saveAll(rollups.days.values());
+            itemRollupRepository.saveAll(rollups.items.values());
+            customerRollupRepository.saveAll(rollups.customers.values());
+            return count[0];
+        });
+        log.info("Rebuilt sales rollups from {} confirmed bills", bills);
+        return bills;
+    }
+
+    // Backfill history the first time the rollup tables exist
+    @Order(1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (dailyRollupRepository.count() > 0) {
+            return;
+        }
+        Long confirmed = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM bills WHERE status IN " + CONFIRMED_STATUSES, Long.class);
+        if ((confirmed != null && confirmed > 0) || !billArchive.isEmpty()) {
+            rebuild();
+        }
+    }
+
+    // Dashboard figures for the last `days` days (today included), read from the rollup tables
+    @Transactional(readOnly = true)
+    public SalesDashboard getDashboard(int days, int topN) {
+        LocalDate from = LocalDate.now().minusDays(days - 1);
+
+        List<RankedSales> topItems = itemRollupRepository.findTopSince(from, Limit.of(topN));
+        Map<Long, String> itemNames = new HashMap<>();
+        itemRepository.findAllById(topItems.stream().map(RankedSales::id).toList())
+            .forEach(item -> itemNames.put(item.getItemCode(), item.getName()));
+
+        List<RankedSales> topCustomers = customerRollupRepository.findTopSince(from, Limit.of(topN));
+        Map<Long, String> customerNames = new HashMap<>();
+        userRepository.findAllById(topCustomers.stream().map(RankedSales::id).toList())
+            .forEach(user -> customerNames.put(user.getAccountNumber(), user.getName()));
+
+        return new SalesDashboard(
+            days,
+            dailyRollupRepository.sumSince(from),
+            dailyRollupRepository.findBySalesDateGreaterThanEqualOrderBySalesDateDesc(from),
+            topItems.stream().map(r -> r.withName(itemNames.getOrDefault(r.id(), "Item #" + r.id()))).toList(),
+            topCustomers.stream().map(r -> r.withName(customerNames.getOrDefault(r.id(), "Customer #" + r.id()))).toList());
+    }
+
+    // INSERT ... ON CONFLICT DO UPDATE on SQLite and PostgreSQL; H2 has no DO UPDATE, so it gets the equivalent MERGE
+    private String upsertSql(RollupTable table) {
+        if (h2 == null) {
+            h2 = "H2".equalsIgnoreCase(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        }
+        List<String> columns = new ArrayList<>(table.keys());
+        columns.addAll(table.counters());
+        String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        if (h2) {
+            return "MERGE INTO " + table.name() + " t USING (VALUES (" + placeholders + ")) v (" +
+                String.join(", ", columns) + ") ON " +
+                String.join(" AND ", table.keys().stream().map(key -> "t." + key + " = v." + key).toList()) +
+                " WHEN MATCHED THEN UPDATE SET " +
+                String.join(", ", table.counters().stream().map(c -> c + " = t." + c + " + v." + c).toList()) +
+                " WHEN NOT MATCHED THEN INSERT (" + String.join(", ", columns) + ") VALUES (" +
+                String.join(", ", columns.stream().map(c -> "v." + c).toList()) + ")";
+        }
+        return "INSERT INTO " + table.name() + " (" + String.join(", ", columns) + ") VALUES (" + placeholders +
+            ") ON CONFLICT (" + String.join(", ", table.keys()) + ") DO UPDATE SET " +
+            String.join(", ", table.counters().stream()
+                .map(c -> c + " = " + table.name() + "." + c + " + excluded." + c).toList());
+    }
+
+    private static LocalDate salesDate(LocalDateTime at) {
+        return at != null ? at.toLocalDate() : LocalDate.now();
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    // Accumulates deltas per rollup key before they are written
+    private static class Rollups {
+        private final Map<LocalDate, DailySalesRollup> days = new HashMap<>();
+        private final Map<DayKey, ItemSalesRollup> items = new HashMap<>();
+        private final Map<DayKey, CustomerSalesRollup> customers = new HashMap<>();
+
+        private void addOrder(LocalDate salesDate, Long customerNumber, BigDecimal total, BigDecimal discount,
+                              BigDecimal tax, BigDecimal finalAmount) {
+            DailySalesRollup day = days.computeIfAbsent(salesDate, DailySalesRollup::new);
+            day.setOrderCount(day.getOrderCount() + 1);
+            day.setRevenue(day.getRevenue().add(orZero(total)));
+            day.setDiscount(day.getDiscount().add(orZero(discount)));
+            day.setTax(day.getTax().add(orZero(tax)));
+            day.setNetRevenue(day.getNetRevenue().add(orZero(finalAmount)));
+
+            CustomerSalesRollup customer = customers.computeIfAbsent(new DayKey(salesDate, customerNumber),
+                key -> new CustomerSalesRollup(salesDate, customerNumber));
+            customer.setOrderCount(customer.getOrderCount() + 1);
+            customer.setRevenue(customer.getRevenue().add(orZero(finalAmount)));
+            customer.setTax(customer.getTax().add(orZero(tax)));
+        }
+
+        private void addLine(LocalDate salesDate, Long customerNumber, Long itemCode, int quantity, BigDecimal lineTotal) {
+            days.get(salesDate).setUnits(days.get(salesDate).getUnits() + quantity);
+            CustomerSalesRollup customer = customers.get(new DayKey(salesDate, customerNumber));
+            customer.setUnits(customer.getUnits() + quantity);
+
+            ItemSalesRollup item = items.computeIfAbsent(new DayKey(salesDate, itemCode),
+                key -> new ItemSalesRollup(salesDate, itemCode));
+            item.setOrderCount(item.getOrderCount() + 1);
+            item.setUnits(item.getUnits() + quantity);
+            item.setRevenue(item.getRevenue().add(orZero(lineTotal)));
+        }
+    }
+
+    private record DayKey(LocalDate salesDate, Long id) {
+    }
+
+    // A rollup table: the unique key columns and the counters added on conflict
+    private record RollupTable(String name, List<String> keys, List<String> counters) {
+    }
+}
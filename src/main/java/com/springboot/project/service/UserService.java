@@ -1,52 +1,74 @@
 package com.springboot.project.service;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataAccessException;
 import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.service.lookup.UserChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Transactional;
 import com.springboot.project.repository.UserRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.Limit;
+import com.springboot.project.dto.UserSummary;
+import com.springboot.project.dto.UserFilter;
 import com.springboot.project.entity.User;
+import com.springboot.project.dto.UserPage;
 import lombok.RequiredArgsConstructor;
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.Locale;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     
+    // Open bounds for the user list date filter
+    private static final LocalDateTime OLDEST_CREATED = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime NEWEST_CREATED = LocalDateTime.of(9999, 12, 31, 0, 0);
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     public User registerUser(User user) {
-        // Check if username or email already exists
-        if (userRepository.existsByUsername(user.getUsername())) {
-            throw new RuntimeException("Username already exists!");
-        }
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new RuntimeException("Email already exists!");
-        }
-        
-        // Encode password and save user
+        // Encode password and save user; the unique constraints reject taken usernames and emails
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setType(User.userType.CUSTOMER); // Default type
-        return userRepository.save(user);
+        return insert(user);
     }
     
     public User createUser(User user, User.userType userType) {
-        // Check if username or email already exists
-        if (userRepository.existsByUsername(user.getUsername())) {
-            throw new RuntimeException("Username already exists!");
-        }
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new RuntimeException("Email already exists!");
-        }
-        
         // Encode password and save user with specified type
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setType(userType);
-        return userRepository.save(user);
+        return insert(user);
+    }
+    
+    // A single INSERT: concurrent sign-ups for the same name are settled by the unique constraints,
+    // not by an exists-check that can race
+    private User insert(User user) {
+        try {
+            return saved(userRepository.saveAndFlush(user));
+        } catch (DataAccessException e) {
+            // SQLite reports constraint failures without a SQLState, so they arrive untranslated;
+            // the driver message names the violated column on every supported database
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+            if (cause.contains("unique") || cause.contains("duplicate")) {
+                if (cause.contains("username")) {
+                    throw new BusinessException("Username already exists!");
+                }
+                if (cause.contains("email")) {
+                    throw new BusinessException("Email already exists!");
+                }
+            }
+            throw e;
+        }
     }
     
     public Optional<User> findByUsername(String username) {
@@ -69,21 +91,32 @@ public class UserService {
         return userRepository.findByTypeOrderByCreatedAtDesc(type);
     }
     
-    public List<User> getAllCustomers() {
-        return userRepository.findByTypeOrderByCreatedAtDesc(User.userType.CUSTOMER);
-    }
-    
-    public List<User> getAllStaff() {
-        return userRepository.findByTypeOrderByCreatedAtDesc(User.userType.STAFF);
-    }
-    
-    public List<User> getAllAdmins() {
-        return userRepository.findByTypeOrderByCreatedAtDesc(User.userType.ADMIN);
+    // Admin/staff lists: one keyset page of users of a type, newest first
+    @Transactional(readOnly = true)
+    public UserPage getUserPage(User.userType type, UserFilter filter, UserPage.Cursor after, int limit) {
+        LocalDateTime from = filter.from() != null ? filter.from().atStartOfDay() : OLDEST_CREATED;
+        LocalDateTime before = filter.to() != null ? filter.to().plusDays(1).atStartOfDay() : NEWEST_CREATED;
+        Long beforeId = Long.MIN_VALUE;
+        if (after != null && after.createdAt().isBefore(before)) {
+            before = after.createdAt();
+            beforeId = after.accountNumber();
+        }
+        String search = filter.search() != null && !filter.search().isBlank()
+            ? "%" + filter.search().trim().toLowerCase(Locale.ROOT) + "%"
+            : null;
+
+        List<UserSummary> users = userRepository.findUserPage(type, from, before, beforeId, search, Limit.of(limit));
+        String next = null;
+        if (users.size() == limit) {
+            UserSummary last = users.get(users.size() - 1);
+            next = new UserPage.Cursor(last.createdAt(), last.accountNumber()).encode();
+        }
+        return new UserPage(users, next);
     }
     
     public User findByAccountNumber(Long accountNumber) {
         return userRepository.findById(accountNumber)
-            .orElseThrow(() -> new RuntimeException("User not found!"));
+            .orElseThrow(() -> new BusinessException("User not found!"));
     }
     
     public User updateProfile(User currentUser, User updatedUser) {
@@ -96,11 +129,11 @@ public class UserService {
         if (!currentUser.getEmail().equals(updatedUser.getEmail())) {
             Optional<User> existingUser = userRepository.findByEmail(updatedUser.getEmail());
             if (existingUser.isPresent() && !existingUser.get().getAccountNumber().equals(currentUser.getAccountNumber())) {
-                throw new RuntimeException("Email already exists!");
+                throw new BusinessException("Email already exists!");
             }
         }
         
-        return userRepository.save(currentUser);
+        return saved(userRepository.save(currentUser));
     }
     
     public User updateUserAsAdmin(Long accountNumber, User updatedUser, User.userType newType) {
@@ -110,7 +143,7 @@ public class UserService {
         if (!existingUser.getEmail().equals(updatedUser.getEmail())) {
             Optional<User> emailCheck = userRepository.findByEmail(updatedUser.getEmail());
             if (emailCheck.isPresent() && !emailCheck.get().getAccountNumber().equals(accountNumber)) {
-                throw new RuntimeException("Email already exists!");
+                throw new BusinessException("Email already exists!");
             }
         }
         
@@ -120,7 +153,7 @@ public class UserService {
         existingUser.setTelephone(updatedUser.getTelephone());
         existingUser.setType(newType);
         
-        return userRepository.save(existingUser);
+        return saved(userRepository.save(existingUser));
     }
     
     public User updateUserAsStaff(Long accountNumber, User updatedUser) {
@@ -128,14 +161,14 @@ public class UserService {
         
         // Staff can only update customers
         if (existingUser.getType() != User.userType.CUSTOMER) {
-            throw new RuntimeException("Staff can only update customer profiles!");
+            throw new BusinessException("Staff can only update customer profiles!");
         }
         
         // Check if email is being changed and if it's already taken by another user
         if (!existingUser.getEmail().equals(updatedUser.getEmail())) {
             Optional<User> emailCheck = userRepository.findByEmail(updatedUser.getEmail());
             if (emailCheck.isPresent() && !emailCheck.get().getAccountNumber().equals(accountNumber)) {
-                throw new RuntimeException("Email already exists!");
+                throw new BusinessException("Email already exists!");
             }
         }
         
@@ -144,6 +177,11 @@ public class UserService {
         existingUser.setAddress(updatedUser.getAddress());
         existingUser.setTelephone(updatedUser.getTelephone());
         
-        return userRepository.save(existingUser);
+        return saved(userRepository.save(existingUser));
+    }
+    
+    private User saved(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user));
+        return user;
     }
 }
@@ -0,0 +1,559 @@
+package com.springboot.project.service.archive;
+
+import com.springboot.project.entity.Bill;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.time.LocalDateTime;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.time.ZoneOffset;
+import java.util.zip.Inflater;
+import java.util.zip.Deflater;
+import java.util.zip.DataFormatException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One immutable archive file of bills in bill-number order, stored column by column. Each column is
+// varint/delta encoded and deflated on its own, and the uncompressed header carries a zone map
+// (bill number, creation time and customer ranges) so whole segments are skipped without inflating anything.
+// The key columns (bill number, customer, status, creation time) are decoded once and kept, so lookups filter
+// and probe a segment without touching the file; the rest is only read for segments that hold a match.
+//
+// Layout: header | column blocks. Header: magic, format version, bill and line counts, the zone map,
+// then raw and compressed length per column and a CRC32 over all column blocks.
+final class ArchiveSegment {
+
+    private static final int MAGIC = 0x42534547; // "BSEG"
+    private static final short FORMAT_VERSION = 2;
+
+    // Bill columns, one value per bill
+    private static final int BILL_NUMBER = 0;
+    private static final int CUSTOMER = 1;
+    private static final int STATUS = 2;
+    private static final int CREATED_AT = 3;
+    private static final int PAID_AT = 4;
+    private static final int COUPON = 5;
+    private static final int TOTAL = 6;
+    private static final int DISCOUNT = 7;
+    private static final int TAX = 8;
+    private static final int FINAL = 9;
+    private static final int VERSION = 10;
+    private static final int LINE_COUNT = 11;
+    // Line columns, one value per line, bills' lines back to back
+    private static final int LINE_ID = 12;
+    private static final int ITEM_CODE = 13;
+    private static final int ITEM_NAME = 14;
+    private static final int QUANTITY = 15;
+    private static final int UNIT_PRICE = 16;
+    private static final int LINE_TOTAL = 17;
+    // Dictionary for coupon codes and item names; the string columns hold 1-based indexes, 0 for null
+    private static final int STRINGS = 18;
+    private static final int COLUMNS = 19;
+
+    private static final int HEADER_BYTES = 4 + 2 + 4 + 4 + 6 * 8 + 4 + COLUMNS * 8 + 4;
+
+    private static final Bill.BillStatus[] STATUSES = Bill.BillStatus.values();
+
+    private final Path file;
+    private final int rows;
+    private final int lines;
+    private final long minBill;
+    private final long maxBill;
+    private final long minCreated;
+    private final long maxCreated;
+    private final long minCustomer;
+    private final long maxCustomer;
+    private final int[] rawLengths = new int[COLUMNS];
+    private final int[] compressedLengths = new int[COLUMNS];
+    private final int crc;
+
+    // Decoded key columns; soft so a large archive gives the memory back under pressure and decodes again
+    private volatile SoftReference<Keys> keyCache = new SoftReference<>(null);
+    // The file never changes, so the CRC over all column blocks is checked on the first read only
+    private volatile boolean verified;
+
+    private ArchiveSegment(Path file, ByteBuffer header) throws IOException {
+        this.file = file;
+        if (header.getInt() != MAGIC || header.getShort() != FORMAT_VERSION) {
+            throw new IOException("Not an archive segment: " + file);
+        }
+        rows = header.getInt();
+        lines = header.getInt();
+        minBill = header.getLong();
+        maxBill = header.getLong();
+        minCreated = header.getLong();
+        maxCreated = header.getLong();
+        minCustomer = header.getLong();
+        maxCustomer = header.getLong();
+        if (header.getInt() != COLUMNS) {
+            throw new IOException("Unexpected column count in " + file);
+        }
+        for (int i = 0; i < COLUMNS; i++) {
+            rawLengths[i] = header.getInt();
+            compressedLengths[i] = header.getInt();
+        }
+        crc = header.getInt();
+    }
+
+    // Read just the header; column data stays on disk until a read needs it
+    static ArchiveSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Truncated archive segment: " + file);
+                }
+            }
+            header.flip();
+            return new ArchiveSegment(file, header);
+        }
+    }
+
+    // Encode the bills, write them next to the target, fsync and move into place, so a segment file
+    // is either complete or absent
+    static ArchiveSegment write(Path file, List<ArchivedBill> bills) throws IOException {
+        List<ArchivedBill> sorted = new ArrayList<>(bills);
+        sorted.sort(Comparator.comparingLong(ArchivedBill::billNumber));
+
+        ColumnOut[] columns = new ColumnOut[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = new ColumnOut();
+        }
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+
+        long previousBill = 0;
+        long previousCreated = 0;
+        long previousLineId = 0;
+        int lineTotal = 0;
+        long minCreated = Long.MAX_VALUE, maxCreated = Long.MIN_VALUE;
+        long minCustomer = Long.MAX_VALUE, maxCustomer = Long.MIN_VALUE;
+        for (ArchivedBill bill : sorted) {
+            long created = millis(bill.createdAt());
+            columns[BILL_NUMBER].unsigned(bill.billNumber() - previousBill);
+            columns[CUSTOMER].signed(bill.customerNumber());
+            columns[STATUS].unsigned(bill.status().ordinal());
+            columns[CREATED_AT].signed(created - previousCreated);
+            columns[PAID_AT].unsigned(bill.paidAt() != null ? zigzag(millis(bill.paidAt()) - created) + 1 : 0);
+            columns[COUPON].unsigned(stringIndex(bill.couponCode(), dictionary, strings));
+            columns[TOTAL].unsigned(cents(bill.totalAmount()));
+            columns[DISCOUNT].unsigned(cents(bill.discountAmount()));
+            columns[TAX].unsigned(cents(bill.taxAmount()));
+            columns[FINAL].unsigned(cents(bill.finalAmount()));
+            columns[VERSION].unsigned(bill.version());
+            columns[LINE_COUNT].unsigned(bill.lines().size());
+            for (ArchivedBill.Line line : bill.lines()) {
+                columns[LINE_ID].signed(line.id() - previousLineId);
+                columns[ITEM_CODE].signed(line.itemCode());
+                columns[ITEM_NAME].unsigned(stringIndex(line.itemName(), dictionary, strings));
+                columns[QUANTITY].signed(line.quantity());
+                columns[UNIT_PRICE].unsigned(cents(line.unitPrice()));
+                columns[LINE_TOTAL].unsigned(cents(line.totalPrice()));
+                previousLineId = line.id();
+            }
+            lineTotal += bill.lines().size();
+            previousBill = bill.billNumber();
+            previousCreated = created;
+            minCreated = Math.min(minCreated, created);
+            maxCreated = Math.max(maxCreated, created);
+            minCustomer = Math.min(minCustomer, bill.customerNumber());
+            maxCustomer = Math.max(maxCustomer, bill.customerNumber());
+        }
+        columns[STRINGS].unsigned(strings.size());
+        for (String value : strings) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            columns[STRINGS].unsigned(utf8.length);
+            columns[STRINGS].bytes(utf8);
+        }
+
+        byte[][] raw = new byte[COLUMNS][];
+        byte[][] compressed = new byte[COLUMNS][];
+        CRC32 checksum = new CRC32();
+        for (int i = 0; i < COLUMNS; i++) {
+            raw[i] = columns[i].toByteArray();
+            compressed[i] = deflate(raw[i]);
+            checksum.update(compressed[i]);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putShort(FORMAT_VERSION).putInt(sorted.size()).putInt(lineTotal);
+        header.putLong(sorted.isEmpty() ? 0 : sorted.get(0).billNumber());
+        header.putLong(sorted.isEmpty() ? 0 : sorted.get(sorted.size() - 1).billNumber());
+        header.putLong(minCreated).putLong(maxCreated).putLong(minCustomer).putLong(maxCustomer);
+        header.putInt(COLUMNS);
+        for (int i = 0; i < COLUMNS; i++) {
+            header.putInt(raw[i].length).putInt(compressed[i].length);
+        }
+        header.putInt((int) checksum.getValue());
+        header.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+            for (byte[] block : compressed) {
+                writeFully(channel, ByteBuffer.wrap(block));
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    int lines() {
+        return lines;
+    }
+
+    long minBill() {
+        return minBill;
+    }
+
+    long maxBill() {
+        return maxBill;
+    }
+
+    // Zone map checks: false means no bill in the segment can match
+    boolean mayContainBill(long billNumber) {
+        return rows > 0 && billNumber >= minBill && billNumber <= maxBill;
+    }
+
+    boolean mayContainCustomer(long customerNumber) {
+        return rows > 0 && customerNumber >= minCustomer && customerNumber <= maxCustomer;
+    }
+
+    // Creation time in [from, to); either bound may be null
+    boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return rows > 0 && (from == null || maxCreated >= millis(from)) && (to == null || minCreated < millis(to));
+    }
+
+    // Exact membership checks against the key columns, for segments the zone map cannot rule out
+    boolean containsBill(long billNumber) {
+        return mayContainBill(billNumber) && Arrays.binarySearch(keys().billNumbers(), billNumber) >= 0;
+    }
+
+    boolean containsCustomer(long customerNumber) {
+        return mayContainCustomer(customerNumber)
+            && Arrays.binarySearch(keys().distinctCustomers(), customerNumber) >= 0;
+    }
+
+    // Decode the bills accepted by the filter. The filter runs over the cached key columns; the file is only
+    // read and the remaining columns inflated if at least one bill matches.
+    List<ArchivedBill> read(RowFilter filter) {
+        Keys keys = keys();
+        boolean[] matches = new boolean[rows];
+        boolean any = false;
+        for (int row = 0; row < rows; row++) {
+            matches[row] = filter.test(keys.billNumbers()[row], keys.customers()[row], keys.createdAts()[row],
+                                       STATUSES[keys.statuses()[row]]);
+            any |= matches[row];
+        }
+        if (!any) {
+            return List.of();
+        }
+
+        try {
+            byte[] body = readBody(bodyLength());
+            int[] offsets = offsets();
+
+            ColumnIn dictionary = column(body, offsets, STRINGS);
+            String[] strings = new String[(int) dictionary.unsigned() + 1];
+            for (int i = 1; i < strings.length; i++) {
+                strings[i] = dictionary.utf8((int) dictionary.unsigned());
+            }
+
+            ColumnIn paidAts = column(body, offsets, PAID_AT);
+            ColumnIn coupons = column(body, offsets, COUPON);
+            ColumnIn totals = column(body, offsets, TOTAL);
+            ColumnIn discounts = column(body, offsets, DISCOUNT);
+            ColumnIn taxes = column(body, offsets, TAX);
+            ColumnIn finals = column(body, offsets, FINAL);
+            ColumnIn versions = column(body, offsets, VERSION);
+            ColumnIn lineCounts = column(body, offsets, LINE_COUNT);
+            ColumnIn lineIds = column(body, offsets, LINE_ID);
+            ColumnIn itemCodes = column(body, offsets, ITEM_CODE);
+            ColumnIn itemNames = column(body, offsets, ITEM_NAME);
+            ColumnIn quantities = column(body, offsets, QUANTITY);
+            ColumnIn unitPrices = column(body, offsets, UNIT_PRICE);
+            ColumnIn lineTotals = column(body, offsets, LINE_TOTAL);
+
+            List<ArchivedBill> result = new ArrayList<>();
+            long previousLineId = 0;
+            for (int row = 0; row < rows; row++) {
+                long paid = paidAts.unsigned();
+                String coupon = strings[(int) coupons.unsigned()];
+                long total = totals.unsigned();
+                long discount = discounts.unsigned();
+                long tax = taxes.unsigned();
+                long finalAmount = finals.unsigned();
+                long version = versions.unsigned();
+                int lineCount = (int) lineCounts.unsigned();
+
+                // Line columns have to be walked for every bill to stay aligned, matching or not
+                List<ArchivedBill.Line> billLines = matches[row] ? new ArrayList<>(lineCount) : null;
+                for (int i = 0; i < lineCount; i++) {
+                    long lineId = previousLineId += lineIds.signed();
+                    long itemCode = itemCodes.signed();
+                    String itemName = strings[(int) itemNames.unsigned()];
+                    long quantity = quantities.signed();
+                    long unitPrice = unitPrices.unsigned();
+                    long lineTotal = lineTotals.unsigned();
+                    if (billLines != null) {
+                        billLines.add(new ArchivedBill.Line(lineId, itemCode, itemName, (int) quantity,
+                            amount(unitPrice), amount(lineTotal)));
+                    }
+                }
+                if (billLines == null) {
+                    continue;
+                }
+                long created = keys.createdAts()[row];
+                result.add(new ArchivedBill(keys.billNumbers()[row], keys.customers()[row],
+                    STATUSES[keys.statuses()[row]], coupon, amount(total), amount(discount), amount(tax),
+                    amount(finalAmount), dateTime(created),
+                    paid != 0 ? dateTime(created + unzigzag(paid - 1)) : null, version, billLines));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archive segment " + file, e);
+        }
+    }
+
+    // Key columns from the cache, or decoded from the file. They are the first blocks, so once the segment has
+    // been verified only that prefix is read.
+    private Keys keys() {
+        Keys cached = keyCache.get();
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            int[] offsets = offsets();
+            byte[] body = readBody(verified ? offsets[PAID_AT] : bodyLength());
+            ColumnIn billNumbers = column(body, offsets, BILL_NUMBER);
+            ColumnIn customers = column(body, offsets, CUSTOMER);
+            ColumnIn statuses = column(body, offsets, STATUS);
+            ColumnIn createdAts = column(body, offsets, CREATED_AT);
+            long[] billNumber = new long[rows];
+            long[] customer = new long[rows];
+            byte[] status = new byte[rows];
+            long[] created = new long[rows];
+            long previousBill = 0;
+            long previousCreated = 0;
+            for (int row = 0; row < rows; row++) {
+                billNumber[row] = previousBill += billNumbers.unsigned();
+                customer[row] = customers.signed();
+                status[row] = (byte) statuses.unsigned();
+                created[row] = previousCreated += createdAts.signed();
+            }
+            long[] distinctCustomers = Arrays.stream(customer).sorted().distinct().toArray();
+            cached = new Keys(billNumber, customer, status, created, distinctCustomers);
+            keyCache = new SoftReference<>(cached);
+            return cached;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archive segment " + file, e);
+        }
+    }
+
+    private int bodyLength() {
+        int length = 0;
+        for (int compressedLength : compressedLengths) {
+            length += compressedLength;
+        }
+        return length;
+    }
+
+    private int[] offsets() {
+        int[] offsets = new int[COLUMNS];
+        for (int i = 1; i < COLUMNS; i++) {
+            offsets[i] = offsets[i - 1] + compressedLengths[i - 1];
+        }
+        return offsets;
+    }
+
+    // The first length bytes of the column blocks; a full read is checked against the CRC until one passes
+    private byte[] readBody(int length) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(HEADER_BYTES);
+            while (body.hasRemaining()) {
+                if (channel.read(body) < 0) {
+                    throw new IOException("Truncated archive segment: " + file);
+                }
+            }
+        }
+        if (!verified && length == bodyLength()) {
+            CRC32 checksum = new CRC32();
+            checksum.update(body.array());
+            if ((int) checksum.getValue() != crc) {
+                throw new IOException("Checksum mismatch in archive segment: " + file);
+            }
+            verified = true;
+        }
+        return body.array();
+    }
+
+    private ColumnIn column(byte[] body, int[] offsets, int index) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(body, offsets[index], compressedLengths[index]);
+            byte[] raw = new byte[rawLengths[index]];
+            int read = 0;
+            while (read < raw.length) {
+                int n = inflater.inflate(raw, read, raw.length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Corrupt column " + index + " in archive segment: " + file);
+                }
+                read += n;
+            }
+            return new ColumnIn(raw);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column " + index + " in archive segment: " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int stringIndex(String value, Map<String, Integer> dictionary, List<String> strings) {
+        if (value == null) {
+            return 0;
+        }
+        return dictionary.computeIfAbsent(value, key -> {
+            strings.add(key);
+            return strings.size();
+        });
+    }
+
+    // Amounts are stored as whole cents (the bill columns are all scale 2), zigzagged and shifted up by one so
+    // that 0 can stand for null, as for paid_at
+    private static long cents(BigDecimal value) {
+        return value != null ? zigzag(value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact()) + 1 : 0;
+    }
+
+    private static BigDecimal amount(long stored) {
+        return stored != 0 ? BigDecimal.valueOf(unzigzag(stored - 1), 2) : null;
+    }
+
+    // Creation time bound for a RowFilter, in the same epoch millis the segment stores
+    static long bound(LocalDateTime at) {
+        return millis(at);
+    }
+
+    private static long millis(LocalDateTime at) {
+        return at != null ? at.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+    }
+
+    private static LocalDateTime dateTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                                           ZoneOffset.UTC);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Bill number, customer, status ordinal and creation millis per row, plus the sorted distinct customers
+    private record Keys(long[] billNumbers, long[] customers, byte[] statuses, long[] createdAts,
+                        long[] distinctCustomers) {
+    }
+
+    @FunctionalInterface
+    interface RowFilter {
+        boolean test(long billNumber, long customerNumber, long createdAtMillis, Bill.BillStatus status);
+    }
+
+    private static final class ColumnOut extends ByteArrayOutputStream {
+
+        void unsigned(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void signed(long value) {
+            unsigned(zigzag(value));
+        }
+
+        void bytes(byte[] value) {
+            write(value, 0, value.length);
+        }
+    }
+
+    private static final class ColumnIn {
+        private final byte[] data;
+        private int position;
+
+        ColumnIn(byte[] data) {
+            this.data = data;
+        }
+
+        long unsigned() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long signed() {
+            return unzigzag(unsigned());
+        }
+
+        String utf8(int length) {
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
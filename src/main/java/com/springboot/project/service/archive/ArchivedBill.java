@@ -0,0 +1,17 @@
+package com.springboot.project.service.archive;
+
+import com.springboot.project.entity.Bill;
+import java.time.LocalDateTime;
+import java.math.BigDecimal;
+import java.util.List;
+
+// A bill as kept in the archive tier: header, lines and the version it had when it left the database
+public record ArchivedBill(long billNumber, long customerNumber, Bill.BillStatus status, String couponCode,
+                          BigDecimal totalAmount, BigDecimal discountAmount, BigDecimal taxAmount,
+                          BigDecimal finalAmount, LocalDateTime createdAt, LocalDateTime paidAt, long version,
+                          List<Line> lines) {
+
+    public record Line(long id, long itemCode, String itemName, int quantity, BigDecimal unitPrice,
+                       BigDecimal totalPrice) {
+    }
+}
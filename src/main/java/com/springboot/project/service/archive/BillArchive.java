@@ -0,0 +1,323 @@
+package com.springboot.project.service.archive;
+
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import com.springboot.project.entity.Bill;
+import jakarta.annotation.PostConstruct;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import java.util.function.Consumer;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.*;
+
+// Cold tier for finished bills. Confirmed, paid and cancelled bills older than app.archive.age-days move
+// out of bills/bill_items into immutable columnar segment files (see ArchiveSegment), so the live tables
+// only hold recent and open orders. Readers ask the archive for whatever the database no longer has.
+//
+// A segment is written and registered inside the transaction that deletes its rows, so a bill is always
+// visible somewhere; during that window (or after a crash between the file move and the commit) it can be
+// in both tiers, and readers that merge the two let the database copy win. The next run deletes such
+// leftovers without archiving them again.
+@Slf4j
+@Service
+public class BillArchive {
+
+    private static final String ARCHIVABLE =
+        "SELECT bill_number FROM bills WHERE status IN ('" + Bill.BillStatus.CONFIRMED + "', '" +
+        Bill.BillStatus.PAID + "', '" + Bill.BillStatus.CANCELLED + "') " +
+        "AND created_at < ? AND bill_number > ? ORDER BY bill_number LIMIT ?";
+
+    private static final String BILL_ROWS =
+        "SELECT b.bill_number, b.customer_number, b.status, b.coupon_code, b.total_amount, b.discount_amount, " +
+        "b.tax_amount, b.final_amount, b.created_at, b.paid_at, b.version, bi.id AS line_id, bi.item_code, " +
+        "i.name AS item_name, bi.quantity, bi.unit_price, bi.total_price " +
+        "FROM bills b LEFT JOIN bill_items bi ON bi.bill_number = b.bill_number " +
+        "LEFT JOIN items i ON i.item_code = bi.item_code " +
+        "WHERE b.bill_number IN (" + ARCHIVABLE + ") ORDER BY b.bill_number, bi.id";
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bseg";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.archive.dir:${user.dir}/data/archive}")
+    private String directory;
+
+    @Value("${app.archive.age-days:365}")
+    private int ageDays;
+
+    @Value("${app.archive.segment-rows:20000}")
+    private int segmentRows;
+
+    // Ordered by first bill number; replaced as a whole when a segment is added
+    private volatile List<ArchiveSegment> segments = List.of();
+
+    private long lastSequence;
+
+    @PostConstruct
+    void load() throws IOException {
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<ArchiveSegment> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    // Never moved into place, so its bills were never deleted from the database
+                    Files.delete(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    found.add(ArchiveSegment.open(file));
+                    lastSequence = Math.max(lastSequence, sequence(file));
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(ArchiveSegment::minBill));
+        segments = List.copyOf(found);
+        log.info("Bill archive: {} segments holding {} bills", found.size(),
+                 found.stream().mapToLong(ArchiveSegment::rows).sum());
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    // Move finished bills past the age cutoff into new segments, one segment per chunk
+    @Scheduled(cron = "${app.archive.cron:0 30 4 * * *}")
+    public synchronized int archive() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(ageDays));
+        int archived = 0;
+        long after = 0;
+        while (true) {
+            List<ArchivedBill> chunk = loadArchivable(cutoff, after);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            after = chunk.get(chunk.size() - 1).billNumber();
+
+            // Bills left in both tiers by an interrupted run only need deleting, unless they changed since
+            Map<Long, Long> archivedVersions = archivedVersions(chunk);
+            List<ArchivedBill> remove = new ArrayList<>();
+            List<ArchivedBill> write = new ArrayList<>();
+            for (ArchivedBill bill : chunk) {
+                Long version = archivedVersions.get(bill.billNumber());
+                if (version == null) {
+                    write.add(bill);
+                    remove.add(bill);
+                } else if (version == bill.version()) {
+                    remove.add(bill);
+                } else {
+                    log.warn("Bill {} changed after it was archived; leaving it in the database", bill.billNumber());
+                }
+            }
+            if (!moveToArchive(remove, write)) {
+                break;
+            }
+            archived += write.size();
+            if (chunk.size() < segmentRows) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} bills older than {} days", archived, ageDays);
+        }
+        return archived;
+    }
+
+    public Optional<ArchivedBill> findByBillNumber(long billNumber) {
+        for (ArchiveSegment segment : segments) {
+            if (segment.containsBill(billNumber)) {
+                List<ArchivedBill> found = segment.read((number, customer, created, status) -> number == billNumber);
+                if (!found.isEmpty()) {
+                    return Optional.of(found.get(0));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // All of a customer's archived bills, newest first
+    public List<ArchivedBill> findByCustomer(long customerNumber) {
+        List<ArchivedBill> result = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            if (segment.containsCustomer(customerNumber)) {
+                result.addAll(segment.read((number, customer, created, status) -> customer == customerNumber));
+            }
+        }
+        result.sort(Comparator.comparing(ArchivedBill::createdAt).reversed());
+        return result;
+    }
+
+    // Keyset page by bill number, newest first; customerNumber null means all customers
+    public List<ArchivedBill> findPage(Long customerNumber, long before, int limit) {
+        List<ArchiveSegment> candidates = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            if (segment.minBill() < before
+                    && (customerNumber == null || segment.containsCustomer(customerNumber))) {
+                candidates.add(segment);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(ArchiveSegment::maxBill).reversed());
+
+        List<ArchivedBill> result = new ArrayList<>();
+        for (ArchiveSegment segment : candidates) {
+            // Once the page is full, a segment whose newest bill is older than the page's last one cannot add to it
+            if (result.size() >= limit && segment.maxBill() < result.get(limit - 1).billNumber()) {
+                break;
+            }
+            result.addAll(segment.read((number, customer, created, status) ->
+                number < before && (customerNumber == null || customer == customerNumber)));
+            result.sort(Comparator.comparingLong(ArchivedBill::billNumber).reversed());
+            if (result.size() > limit) {
+                result.subList(limit, result.size()).clear();
+            }
+        }
+        return result;
+    }
+
+    // Feed archived bills created in [from, to) with one of the statuses (null for any) to the consumer,
+    // one segment's worth at a time; either bound may be null
+    public void scan(LocalDateTime from, LocalDateTime to, Set<Bill.BillStatus> statuses,
+                     Consumer<List<ArchivedBill>> consumer) {
+        long fromMillis = from != null ? ArchiveSegment.bound(from) : Long.MIN_VALUE;
+        long toMillis = to != null ? ArchiveSegment.bound(to) : Long.MAX_VALUE;
+        for (ArchiveSegment segment : segments) {
+            if (!segment.overlaps(from, to)) {
+                continue;
+            }
+            List<ArchivedBill> bills = segment.read((number, customer, created, status) ->
+                created >= fromMillis && created < toMillis && (statuses == null || statuses.contains(status)));
+            if (!bills.isEmpty()) {
+                consumer.accept(bills);
+            }
+        }
+    }
+
+    private List<ArchivedBill> loadArchivable(Timestamp cutoff, long after) {
+        List<ArchivedBill> bills = new ArrayList<>();
+        jdbcTemplate.query(BILL_ROWS, rs -> {
+            long billNumber = rs.getLong("bill_number");
+            ArchivedBill current = bills.isEmpty() ? null : bills.get(bills.size() - 1);
+            if (current == null || current.billNumber() != billNumber) {
+                Timestamp paidAt = rs.getTimestamp("paid_at");
+                current = new ArchivedBill(billNumber, rs.getLong("customer_number"),
+                    Bill.BillStatus.valueOf(rs.getString("status")), rs.getString("coupon_code"),
+                    rs.getBigDecimal("total_amount"), rs.getBigDecimal("discount_amount"),
+                    rs.getBigDecimal("tax_amount"), rs.getBigDecimal("final_amount"),
+                    rs.getTimestamp("created_at").toLocalDateTime(),
+                    paidAt != null ? paidAt.toLocalDateTime() : null, rs.getLong("version"), new ArrayList<>());
+                bills.add(current);
+            }
+            long lineId = rs.getLong("line_id");
+            if (!rs.wasNull()) {
+                current.lines().add(new ArchivedBill.Line(lineId, rs.getLong("item_code"), rs.getString("item_name"),
+                    rs.getInt("quantity"), rs.getBigDecimal("unit_price"), rs.getBigDecimal("total_price")));
+            }
+        }, cutoff, after, segmentRows);
+        return bills;
+    }
+
+    private Map<Long, Long> archivedVersions(List<ArchivedBill> chunk) {
+        Set<Long> billNumbers = new HashSet<>();
+        chunk.forEach(bill -> billNumbers.add(bill.billNumber()));
+        long first = chunk.get(0).billNumber();
+        long last = chunk.get(chunk.size() - 1).billNumber();
+
+        Map<Long, Long> versions = new HashMap<>();
+        for (ArchiveSegment segment : segments) {
+            if (segment.maxBill() >= first && segment.minBill() <= last) {
+                segment.read((number, customer, created, status) -> billNumbers.contains(number))
+                    .forEach(bill -> versions.put(bill.billNumber(), bill.version()));
+            }
+        }
+        return versions;
+    }
+
+    // Delete the bills and write the new segment in one transaction; false if a bill changed underneath us
+    private boolean moveToArchive(List<ArchivedBill> remove, List<ArchivedBill> write) {
+        if (remove.isEmpty()) {
+            return true;
+        }
+        Path file = Paths.get(directory).resolve(String.format("%s%08d%s", SEGMENT_PREFIX, lastSequence + 1,
+                                                               SEGMENT_SUFFIX));
+        ArchiveSegment[] written = new ArchiveSegment[1];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> ids = remove.stream().map(bill -> new Object[] { bill.billNumber() }).toList();
+                jdbcTemplate.batchUpdate("DELETE FROM bill_items WHERE bill_number = ?", ids);
+                jdbcTemplate.batchUpdate("DELETE FROM order_confirmations WHERE bill_number = ?", ids);
+                jdbcTemplate.batchUpdate("DELETE FROM checkout_requests WHERE bill_number = ?", ids);
+                int[] deleted = jdbcTemplate.batchUpdate(
+                    "DELETE FROM bills WHERE bill_number = ? AND COALESCE(version, 0) = ?",
+                    remove.stream().map(bill -> new Object[] { bill.billNumber(), bill.version() }).toList());
+                for (int count : deleted) {
+                    if (count == 0) {
+                        throw new IllegalStateException("A bill changed while it was being archived");
+                    }
+                }
+
+                if (!write.isEmpty()) {
+                    try {
+                        Files.createDirectories(file.getParent());
+                        written[0] = ArchiveSegment.write(file, write);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot write archive segment " + file, e);
+                    }
+                    register(written[0]);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (written[0] != null) {
+                unregister(written[0]);
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException deleteFailure) {
+                    e.addSuppressed(deleteFailure);
+                }
+            }
+            log.warn("Archiving stopped, will retry on the next run: {}", e.getMessage());
+            return false;
+        }
+        if (written[0] != null) {
+            lastSequence++;
+        }
+        return true;
+    }
+
+    private synchronized void register(ArchiveSegment segment) {
+        List<ArchiveSegment> updated = new ArrayList<>(segments);
+        updated.add(segment);
+        updated.sort(Comparator.comparingLong(ArchiveSegment::minBill));
+        segments = List.copyOf(updated);
+    }
+
+    private synchronized void unregister(ArchiveSegment segment) {
+        List<ArchiveSegment> updated = new ArrayList<>(segments);
+        updated.remove(segment);
+        segments = List.copyOf(updated);
+    }
+
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.springboot.project.service.inventory;
+
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.nio.MappedByteBuffer;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.time.ZoneOffset;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+// A preallocated, memory-mapped journal file of fixed-size records. Appends are plain stores into the
+// mapping, so a record survives a process crash as soon as it is written; force() makes it survive
+// an OS crash too. A record only counts if its CRC matches and its sequence follows the previous one,
+// so a torn write at the tail is simply overwritten by the next append. Only the newest segment is
+// preallocated and writable; older ones are sealed, which maps just their valid records read-only.
+//
+// Header: magic, format version, first sequence. Record: sequence, epoch millis, item code, reference,
+// delta, quantity, type, padding, CRC32 of the preceding 44 bytes.
+final class JournalSegment {
+
+    static final int RECORD_BYTES = 48;
+
+    private static final int MAGIC = 0x534A524E; // "SJRN"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int CRC_OFFSET = 44;
+
+    private static final StockMovement.Type[] TYPES = StockMovement.Type.values();
+
+    private final Path file;
+    private final long firstSequence;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private volatile int records;
+    private boolean sealed;
+
+    private JournalSegment(Path file, long firstSequence, MappedByteBuffer buffer) {
+        this.file = file;
+        this.firstSequence = firstSequence;
+        this.buffer = buffer;
+        this.capacity = (buffer.capacity() - HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    static JournalSegment create(Path file, long firstSequence, int bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.putInt(0, MAGIC).putInt(4, FORMAT_VERSION).putLong(8, firstSequence);
+            buffer.force();
+            return new JournalSegment(file, firstSequence, buffer);
+        }
+    }
+
+    // Map an existing segment and find where its valid records end. A read-only segment is then mapped
+    // again up to its last valid record, so the rest of its preallocation does not stay mapped.
+    static JournalSegment open(Path file, boolean writable) throws IOException {
+        try (FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE
+                                                           : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Not a stock journal segment: " + file);
+            }
+            JournalSegment segment = new JournalSegment(file, buffer.getLong(8), buffer);
+            int valid = 0;
+            while (valid < segment.capacity && segment.isValid(valid)) {
+                valid++;
+            }
+            if (writable) {
+                segment.clearFrom(valid);
+            } else if (valid < segment.capacity) {
+                segment = new JournalSegment(file, segment.firstSequence,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES + (long) valid * RECORD_BYTES));
+            }
+            segment.records = valid;
+            return segment;
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long firstSequence() {
+        return firstSequence;
+    }
+
+    // Sequence of the last record, or firstSequence - 1 while empty
+    long lastSequence() {
+        return firstSequence + records - 1;
+    }
+
+    // False once the segment is full; the caller then rolls over to a new one
+    boolean append(StockMovement movement) {
+        int index = records;
+        if (index >= capacity) {
+            return false;
+        }
+        int offset = HEADER_BYTES + index * RECORD_BYTES;
+        buffer.putLong(offset, movement.sequence());
+        buffer.putLong(offset + 8, movement.at().toInstant(ZoneOffset.UTC).toEpochMilli());
+        buffer.putLong(offset + 16, movement.itemCode());
+        buffer.putLong(offset + 24, movement.reference());
+        buffer.putInt(offset + 32, movement.delta());
+        buffer.putInt(offset + 36, movement.quantity());
+        buffer.put(offset + 40, (byte) movement.type().ordinal());
+        buffer.put(offset + 41, (byte) 0).put(offset + 42, (byte) 0).put(offset + 43, (byte) 0);
+        buffer.putInt(offset + CRC_OFFSET, crc(offset));
+        records = index + 1;
+        return true;
+    }
+
+    // A sealed segment was forced when it was sealed, and its file may since have been cut shorter than the mapping
+    synchronized void force() {
+        if (!sealed) {
+            buffer.force();
+        }
+    }
+
+    // Once the journal has moved on to a new segment: force this one, cut the file back to its valid records
+    // and map that read-only. The returned segment replaces this one; the old mapping is released by the GC.
+    synchronized JournalSegment seal() throws IOException {
+        force();
+        sealed = true;
+        long length = HEADER_BYTES + (long) records * RECORD_BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(true);
+            JournalSegment sealed = new JournalSegment(file, firstSequence,
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+            sealed.records = records;
+            return sealed;
+        }
+    }
+
+    // Records with a sequence above afterSequence, in order
+    void forEach(long afterSequence, Consumer<StockMovement> consumer) {
+        int count = records;
+        for (int index = (int) Math.max(0, afterSequence - firstSequence + 1); index < count; index++) {
+            consumer.accept(read(index));
+        }
+    }
+
+    private StockMovement read(int index) {
+        int offset = HEADER_BYTES + index * RECORD_BYTES;
+        long millis = buffer.getLong(offset + 8);
+        return new StockMovement(buffer.getLong(offset),
+            LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                                        ZoneOffset.UTC),
+            buffer.getLong(offset + 16), buffer.getInt(offset + 32), buffer.getInt(offset + 36),
+            TYPES[buffer.get(offset + 40)], buffer.getLong(offset + 24));
+    }
+
+    // Wipe records left past the last valid one. After an OS crash a later record can survive a torn one
+    // before it; once the torn slot is overwritten, that stale record would chain on and reappear on the next open.
+    private void clearFrom(int index) {
+        boolean cleared = false;
+        for (int i = index; i < capacity; i++) {
+            int offset = HEADER_BYTES + i * RECORD_BYTES;
+            if (buffer.getLong(offset) != 0) {
+                buffer.put(offset, new byte[RECORD_BYTES]);
+                cleared = true;
+            }
+        }
+        if (cleared) {
+            buffer.force();
+        }
+    }
+
+    private boolean isValid(int index) {
+        int offset = HEADER_BYTES + index * RECORD_BYTES;
+        byte type = buffer.get(offset + 40);
+        return buffer.getLong(offset) == firstSequence + index && type >= 0 && type < TYPES.length
+            && buffer.getInt(offset + CRC_OFFSET) == crc(offset);
+    }
+
+    private int crc(int offset) {
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.slice(offset, CRC_OFFSET));
+        return (int) checksum.getValue();
+    }
+}
@@ -0,0 +1,353 @@
+package com.springboot.project.service.inventory;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.Instant;
+import lombok.extern.slf4j.Slf4j;
+import java.util.function.Consumer;
+import java.nio.file.DirectoryStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+import java.util.*;
+
+// Append-only history of every stock movement, kept in memory-mapped segment files next to the database.
+// Movements are appended and forced just before their transaction commits, so a committed movement is
+// always on disk. Transactions committing together share one fsync (group commit): the first to force
+// covers everything appended so far, and the rest find their movement already durable. A movement whose
+// transaction then rolls back is cancelled by a compensating movement with the opposite delta.
+// Snapshots of per-item stock are taken periodically, so replay only has to read the journal tail. The
+// oldest snapshot is the journal's baseline and is never dropped; reconciliation counts from it.
+//
+// Retention: the journal keeps every movement since the baseline, because reconciliation counts from it.
+// Sealed segments are cut to their records (48 bytes per movement) and only the newest segment is preallocated
+// and mapped writable. To start over from a fresh baseline, stop the application and delete the journal
+// directory; the next start snapshots the items table as the new baseline.
+//
+// The journal's view of stock is the latest snapshot plus the deltas after it. With
+// app.stock-journal.replay-on-startup it is written back to items.stock_quantity after a crash or after
+// restoring an older copy of the database. The journal can only be ahead of the database, by the movements
+// of transactions that were between their journal force and their commit when the process died.
+@Slf4j
+@Service
+public class StockJournal {
+
+    private static final int SNAPSHOT_MAGIC = 0x53534E50; // "SSNP"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SNAPSHOTS_KEPT = 2;
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    // Overwrite an item's stock (bound twice) and keep its status in step, as updateItemQuantity does
+    static final String SET_STOCK =
+        "UPDATE items SET stock_quantity = ?, version = COALESCE(version, 0) + 1, " +
+        "status = CASE WHEN ? = 0 THEN 'OUT_OF_STOCK' WHEN status = 'OUT_OF_STOCK' THEN 'ACTIVE' ELSE status END ";
+
+    public record Snapshot(long sequence, LocalDateTime takenAt, Map<Long, Integer> stock) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.stock-journal.dir:${user.dir}/data/stock-journal}")
+    private String directory;
+
+    @Value("${app.stock-journal.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${app.stock-journal.replay-on-startup:false}")
+    private boolean replayOnStartup;
+
+    private Path dir;
+    private final List<JournalSegment> segments = new ArrayList<>();
+    // Stock per item as the journal sees it: latest snapshot plus every delta appended since
+    private final Map<Long, Integer> stock = new HashMap<>();
+    private long lastSequence;
+    private long snapshotSequence = -1;
+    // Highest sequence known to be on disk; forcing is serialised on forceLock, appends are not
+    private long forcedSequence;
+    private final Object forceLock = new Object();
+
+    // Load the newest readable snapshot and roll the journal forward from it
+    @PostConstruct
+    synchronized void open() throws IOException {
+        dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, "stock-*.tmp")) {
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        List<Path> snapshots = list(SNAPSHOT_SUFFIX);
+        Collections.reverse(snapshots);
+        for (Path file : snapshots) {
+            try {
+                Snapshot snapshot = readSnapshot(file);
+                snapshotSequence = snapshot.sequence();
+                stock.putAll(snapshot.stock());
+                break;
+            } catch (IOException e) {
+                log.warn("Skipping unreadable stock snapshot {}: {}", file, e.getMessage());
+            }
+        }
+        lastSequence = Math.max(0, snapshotSequence);
+
+        List<Path> files = list(SEGMENT_SUFFIX);
+        for (int i = 0; i < files.size(); i++) {
+            JournalSegment segment = JournalSegment.open(files.get(i), i == files.size() - 1);
+            if (segment.firstSequence() > lastSequence + 1) {
+                log.warn("Stock journal gap before {}: sequences {} to {} are missing", segment.file(),
+                         lastSequence + 1, segment.firstSequence() - 1);
+            }
+            segment.forEach(snapshotSequence, movement -> stock.merge(movement.itemCode(), movement.delta(), Integer::sum));
+            lastSequence = Math.max(lastSequence, segment.lastSequence());
+            segments.add(segment);
+        }
+        forcedSequence = lastSequence;
+        log.info("Stock journal opened at sequence {} ({} segments, snapshot at {})", lastSequence, segments.size(),
+                 snapshotSequence);
+    }
+
+    // A journal starting on an existing database needs a baseline; otherwise optionally restore from it
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (snapshotSequence < 0 && lastSequence == 0) {
+            synchronized (this) {
+                jdbcTemplate.query("SELECT item_code, stock_quantity FROM items",
+                    rs -> { stock.put(rs.getLong("item_code"), rs.getInt("stock_quantity")); });
+            }
+            snapshot();
+        } else if (replayOnStartup) {
+            int restored = rebuildStock();
+            log.info("Restored stock for {} items from the stock journal", restored);
+        }
+    }
+
+    // Runs inside the publishing transaction: the movement is appended now and forced before the commit, and
+    // cancelled again if the transaction does not commit after all (e.g. a version conflict at flush)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onStockMoved(StockMovedEvent event) {
+        if (event.delta() == 0) {
+            return;
+        }
+        long sequence = append(event.itemCode(), event.delta(), event.quantity(), event.type(), event.reference());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            awaitForced(sequence);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCompletion() {
+                awaitForced(sequence);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    awaitForced(append(event.itemCode(), -event.delta(), event.quantity() - event.delta(),
+                                       event.type(), event.reference()));
+                }
+            }
+        });
+    }
+
+    private synchronized long append(Long itemCode, int delta, int quantity, StockMovement.Type type, Long reference) {
+        StockMovement movement = new StockMovement(++lastSequence, LocalDateTime.now(), itemCode, delta, quantity,
+            type, reference != null ? reference : 0);
+        try {
+            JournalSegment current = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            // A segment only holds consecutive sequences, so start a new one after a gap as well as when full
+            if (current == null || current.lastSequence() + 1 != movement.sequence() || !current.append(movement)) {
+                if (current != null) {
+                    segments.set(segments.size() - 1, current.seal());
+                }
+                current = JournalSegment.create(segmentFile(movement.sequence()), movement.sequence(), segmentBytes);
+                segments.add(current);
+                current.append(movement);
+            }
+        } catch (IOException e) {
+            lastSequence--;
+            throw new UncheckedIOException("Cannot append to the stock journal", e);
+        }
+        stock.merge(movement.itemCode(), movement.delta(), Integer::sum);
+        return movement.sequence();
+    }
+
+    // Group commit: whoever gets here first forces everything appended so far with one fsync; callers queued
+    // behind it usually find their movement covered and return without syncing again. Sealed segments were
+    // forced when they were sealed, so only the newest needs it.
+    void awaitForced(long sequence) {
+        synchronized (forceLock) {
+            JournalSegment current;
+            long target;
+            synchronized (this) {
+                if (forcedSequence >= sequence || segments.isEmpty()) {
+                    return;
+                }
+                current = segments.get(segments.size() - 1);
+                target = lastSequence;
+            }
+            current.force();
+            synchronized (this) {
+                forcedSequence = Math.max(forcedSequence, target);
+            }
+        }
+    }
+
+    // Write the current per-item stock as a snapshot and drop all but the baseline and the newest few
+    @Scheduled(fixedDelayString = "${app.stock-journal.snapshot-interval-ms:3600000}",
+               initialDelayString = "${app.stock-journal.snapshot-interval-ms:3600000}")
+    public void snapshot() {
+        Snapshot snapshot;
+        synchronized (this) {
+            if (lastSequence == snapshotSequence) {
+                return;
+            }
+            snapshot = new Snapshot(lastSequence, LocalDateTime.now(), new HashMap<>(stock));
+        }
+        awaitForced(snapshot.sequence());
+        try {
+            writeSnapshot(dir.resolve(String.format("stock-%016d%s", snapshot.sequence(), SNAPSHOT_SUFFIX)), snapshot);
+            synchronized (this) {
+                snapshotSequence = Math.max(snapshotSequence, snapshot.sequence());
+            }
+            List<Path> snapshots = list(SNAPSHOT_SUFFIX);
+            for (int i = 1; i < snapshots.size() - SNAPSHOTS_KEPT; i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+        } catch (IOException e) {
+            log.warn("Cannot write stock snapshot: {}", e.getMessage());
+        }
+    }
+
+    public synchronized long sequence() {
+        return lastSequence;
+    }
+
+    // The oldest readable snapshot: the stock the journal started from and when it was taken
+    public Optional<Snapshot> baseline() {
+        try {
+            for (Path file : list(SNAPSHOT_SUFFIX)) {
+                try {
+                    return Optional.of(readSnapshot(file));
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable stock snapshot {}: {}", file, e.getMessage());
+                }
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list stock snapshots", e);
+        }
+    }
+
+    // Per-item stock according to the journal
+    public synchronized Map<Long, Integer> currentStock() {
+        return new HashMap<>(stock);
+    }
+
+    // Movements with a sequence above afterSequence, oldest first
+    public void read(long afterSequence, Consumer<StockMovement> consumer) {
+        List<JournalSegment> copy;
+        synchronized (this) {
+            copy = new ArrayList<>(segments);
+        }
+        for (JournalSegment segment : copy) {
+            if (segment.lastSequence() > afterSequence) {
+                segment.forEach(afterSequence, consumer);
+            }
+        }
+    }
+
+    // Write the journal's stock back to items whose stored quantity differs; returns how many changed
+    public int rebuildStock() {
+        Map<Long, Integer> expected = currentStock();
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query("SELECT item_code, stock_quantity FROM items", rs -> {
+            Integer quantity = expected.get(rs.getLong("item_code"));
+            if (quantity != null && quantity != rs.getInt("stock_quantity")) {
+                updates.add(new Object[] { quantity, quantity, rs.getLong("item_code") });
+            }
+        });
+        jdbcTemplate.batchUpdate(SET_STOCK + "WHERE item_code = ?", updates);
+        return updates.size();
+    }
+
+    private Path segmentFile(long firstSequence) {
+        return dir.resolve(String.format("stock-%016d%s", firstSequence, SEGMENT_SUFFIX));
+    }
+
+    // Files with the suffix, oldest first (names carry zero-padded sequences)
+    private List<Path> list(String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "stock-*" + suffix)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(Path::getFileName));
+        return files;
+    }
+
+    // Snapshot: magic, version, sequence, epoch millis taken, item count, (item code, quantity) pairs,
+    // CRC32 of all of it
+    private static void writeSnapshot(Path file, Snapshot snapshot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 8 + 8 + 4 + snapshot.stock().size() * 12 + 4);
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(snapshot.sequence())
+              .putLong(snapshot.takenAt().toInstant(ZoneOffset.UTC).toEpochMilli()).putInt(snapshot.stock().size());
+        snapshot.stock().forEach((itemCode, quantity) -> buffer.putLong(itemCode).putInt(quantity));
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        buffer.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Snapshot readSnapshot(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 32 || buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+            throw new IOException("not a stock snapshot");
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.capacity() - 4);
+        if ((int) checksum.getValue() != buffer.getInt(buffer.capacity() - 4)) {
+            throw new IOException("checksum mismatch");
+        }
+        long sequence = buffer.getLong();
+        LocalDateTime takenAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZoneOffset.UTC);
+        int count = buffer.getInt();
+        Map<Long, Integer> quantities = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            quantities.put(buffer.getLong(), buffer.getInt());
+        }
+        return new Snapshot(sequence, takenAt, quantities);
+    }
+}
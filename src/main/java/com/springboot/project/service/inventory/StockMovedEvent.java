@@ -0,0 +1,11 @@
+package com.springboot.project.service.inventory;
+
+// Published wherever stock is changed; the journal records it durably just before the transaction commits
+public record StockMovedEvent(Long itemCode, int delta, int quantity, StockMovement.Type type, Long reference) {
+
+    // Manual changes are restocks when they add units and adjustments otherwise
+    public static StockMovedEvent manual(Long itemCode, int before, int after, Long userId) {
+        return new StockMovedEvent(itemCode, after - before, after,
+            after > before ? StockMovement.Type.RESTOCK : StockMovement.Type.ADJUSTMENT, userId);
+    }
+}
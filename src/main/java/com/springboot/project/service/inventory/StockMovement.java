@@ -0,0 +1,13 @@
+package com.springboot.project.service.inventory;
+
+import java.time.LocalDateTime;
+
+// One journalled stock change. The reference is the bill for a sale and the acting user otherwise;
+// quantity is the item's stock right after the change.
+public record StockMovement(long sequence, LocalDateTime at, long itemCode, int delta, int quantity, Type type,
+                            long reference) {
+
+    public enum Type {
+        SALE, RESTOCK, ADJUSTMENT
+    }
+}
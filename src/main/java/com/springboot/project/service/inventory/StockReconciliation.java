@@ -0,0 +1,320 @@
+package com.springboot.project.service.inventory;
+
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.service.ranking.StockChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.TransactionDefinition;
+import com.springboot.project.service.archive.ArchivedBill;
+import com.springboot.project.service.archive.BillArchive;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import com.springboot.project.service.ReportService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import com.springboot.project.entity.Bill;
+import com.springboot.project.entity.Item;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinPool;
+import jakarta.annotation.PostConstruct;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.*;
+
+// Recomputes the stock each item should hold and reports where the items table disagrees. Expected stock is
+// the journal's baseline snapshot, plus the restocks and adjustments journalled since, minus the units on
+// every bill confirmed after the baseline was taken, live or archived. Bill lines are summed per item-code
+// range on a small fork/join pool, each range in one read-only transaction so its sales and stock agree;
+// the pool size and a pause after each range keep the job from crowding out request threads.
+//
+// Items that moved while the job ran are left out, since their reads may straddle the movement. Corrections
+// overwrite stock_quantity with the expected value and are not journalled: they bring the table back to the
+// journal's account rather than move stock.
+@Slf4j
+@Service
+public class StockReconciliation {
+
+    private static final String SALES = "('" + Bill.BillStatus.CONFIRMED + "', '" + Bill.BillStatus.PAID + "')";
+
+    private static final String SOLD_QUERY =
+        "SELECT bi.item_code, SUM(bi.quantity) AS units FROM bill_items bi " +
+        "JOIN bills b ON b.bill_number = bi.bill_number " +
+        "WHERE bi.item_code BETWEEN ? AND ? AND b.status IN " + SALES + " AND b.paid_at > ? " +
+        "GROUP BY bi.item_code";
+
+    private static final String STOCK_QUERY =
+        "SELECT item_code, name, status, stock_quantity FROM items WHERE item_code BETWEEN ? AND ? ORDER BY item_code";
+
+    private static final String[] CSV_HEADER = {
+        "item_code", "name", "baseline", "adjustments", "sold", "expected", "actual", "difference", "corrected"
+    };
+
+    private static final int CORRECTION_BATCH = 500;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StockJournal stockJournal;
+
+    @Autowired
+    private BillArchive billArchive;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.reports.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${app.reconciliation.dir:${user.dir}/data/reconciliation}")
+    private String directory;
+
+    @Value("${app.reconciliation.parallelism:2}")
+    private int parallelism;
+
+    @Value("${app.reconciliation.partition-items:1000}")
+    private int partitionItems;
+
+    @Value("${app.reconciliation.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${app.reconciliation.correct:false}")
+    private boolean correctOnSchedule;
+
+    // Separate template so the cursor fetch size does not leak into other queries
+    private JdbcTemplate streamingJdbcTemplate;
+    // Sales and stock of a range are read from one snapshot
+    private TransactionTemplate rangeTransaction;
+
+    public record Discrepancy(long itemCode, String name, int baseline, int adjustments, long sold, int actual) {
+
+        public long expected() {
+            return baseline + adjustments - sold;
+        }
+
+        public long difference() {
+            return actual - expected();
+        }
+    }
+
+    public record Result(LocalDateTime baselineAt, int items, int skipped, List<Discrepancy> discrepancies,
+                         Set<Long> corrected, Path report) {
+    }
+
+    // One item of a range: its stored stock and the units sold on live bills since the baseline
+    private record Counted(long itemCode, String name, boolean tracked, int actual, long sold) {
+    }
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+        rangeTransaction = new TransactionTemplate(transactionManager);
+        rangeTransaction.setReadOnly(true);
+        rangeTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+    }
+
+    @Scheduled(cron = "${app.reconciliation.cron:0 0 5 * * *}")
+    public void scheduledRun() {
+        Result result = reconcile(correctOnSchedule);
+        log.info("Stock reconciliation checked {} items: {} differ, {} corrected, {} skipped; report {}",
+                 result.items(), result.discrepancies().size(), result.corrected().size(), result.skipped(),
+                 result.report());
+    }
+
+    // Compare every item against its expected stock, optionally correct the differences, and write the report
+    public synchronized Result reconcile(boolean correct) {
+        StockJournal.Snapshot baseline = stockJournal.baseline()
+            .orElseThrow(() -> new IllegalStateException("Stock journal has no baseline snapshot yet"));
+        long startSequence = stockJournal.sequence();
+        Map<Long, Integer> adjustments = new HashMap<>();
+        stockJournal.read(baseline.sequence(), movement -> {
+            if (movement.type() != StockMovement.Type.SALE) {
+                adjustments.merge(movement.itemCode(), movement.delta(), Integer::sum);
+            }
+        });
+
+        List<Counted> counted = new ArrayList<>();
+        Map<Long, Long> archived = Map.of();
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(item_code) AS low, MAX(item_code) AS high FROM items");
+        if (bounds.get("low") != null) {
+            long low = ((Number) bounds.get("low")).longValue();
+            long high = ((Number) bounds.get("high")).longValue();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                ForkJoinTask<Map<Long, Long>> archive = pool.submit(() -> archivedSales(baseline.takenAt()));
+                counted = pool.invoke(new RangeTask(low, high, Timestamp.valueOf(baseline.takenAt())));
+                archived = archive.join();
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        Set<Long> moved = new HashSet<>();
+        stockJournal.read(startSequence, movement -> moved.add(movement.itemCode()));
+
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        Map<Long, Boolean> tracked = new HashMap<>();
+        int skipped = 0;
+        for (Counted item : counted) {
+            if (moved.contains(item.itemCode())) {
+                skipped++;
+                continue;
+            }
+            Discrepancy discrepancy = new Discrepancy(item.itemCode(), item.name(),
+                baseline.stock().getOrDefault(item.itemCode(), 0), adjustments.getOrDefault(item.itemCode(), 0),
+                item.sold() + archived.getOrDefault(item.itemCode(), 0L), item.actual());
+            if (discrepancy.difference() != 0) {
+                discrepancies.add(discrepancy);
+                tracked.put(item.itemCode(), item.tracked());
+            }
+        }
+
+        Set<Long> corrected = correct ? correct(discrepancies, tracked) : Set.of();
+        Path report = writeReport(discrepancies, corrected);
+        return new Result(baseline.takenAt(), counted.size(), skipped, discrepancies, corrected, report);
+    }
+
+    // Splits an item-code range until it is small enough to count in one query pair
+    private class RangeTask extends RecursiveTask<List<Counted>> {
+
+        private final long from;
+        private final long to;
+        private final Timestamp since;
+
+        RangeTask(long from, long to, Timestamp since) {
+            this.from = from;
+            this.to = to;
+            this.since = since;
+        }
+
+        @Override
+        protected List<Counted> compute() {
+            if (to - from < partitionItems) {
+                return countRange(from, to, since);
+            }
+            long middle = from + (to - from) / 2;
+            RangeTask left = new RangeTask(from, middle, since);
+            left.fork();
+            List<Counted> right = new RangeTask(middle + 1, to, since).compute();
+            List<Counted> counted = new ArrayList<>(left.join());
+            counted.addAll(right);
+            return counted;
+        }
+    }
+
+    private List<Counted> countRange(long from, long to, Timestamp since) {
+        List<Counted> counted = rangeTransaction.execute(status -> {
+            Map<Long, Long> sold = new HashMap<>();
+            streamingJdbcTemplate.query(SOLD_QUERY, rs -> {
+                sold.put(rs.getLong("item_code"), rs.getLong("units"));
+            }, from, to, since);
+            List<Counted> items = new ArrayList<>();
+            streamingJdbcTemplate.query(STOCK_QUERY, rs -> {
+                long itemCode = rs.getLong("item_code");
+                items.add(new Counted(itemCode, rs.getString("name"),
+                    !Item.ItemStatus.INACTIVE.name().equals(rs.getString("status")),
+                    rs.getInt("stock_quantity"), sold.getOrDefault(itemCode, 0L)));
+            }, from, to);
+            return items;
+        });
+        if (pauseMs > 0) {
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return counted;
+    }
+
+    // Units per item on archived bills confirmed after the baseline; the archive is small next to the live
+    // table's history, so one sequential pass over its segments runs beside the range tasks
+    private Map<Long, Long> archivedSales(LocalDateTime since) {
+        Map<Long, Long> sold = new HashMap<>();
+        billArchive.scan(null, null, EnumSet.of(Bill.BillStatus.CONFIRMED, Bill.BillStatus.PAID), bills -> {
+            for (ArchivedBill bill : bills) {
+                if (bill.paidAt() != null && bill.paidAt().isAfter(since)) {
+                    for (ArchivedBill.Line line : bill.lines()) {
+                        sold.merge(line.itemCode(), (long) line.quantity(), Long::sum);
+                    }
+                }
+            }
+        });
+        return sold;
+    }
+
+    // Overwrite stock with the expected value where it is still what was counted; negative expectations
+    // (more sold than ever stocked) are only reported
+    private Set<Long> correct(List<Discrepancy> discrepancies, Map<Long, Boolean> tracked) {
+        List<Discrepancy> fixable = discrepancies.stream()
+            .filter(discrepancy -> discrepancy.expected() >= 0 && discrepancy.expected() <= Integer.MAX_VALUE)
+            .toList();
+        Set<Long> corrected = new HashSet<>();
+        for (int start = 0; start < fixable.size(); start += CORRECTION_BATCH) {
+            List<Discrepancy> chunk = fixable.subList(start, Math.min(start + CORRECTION_BATCH, fixable.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> args = new ArrayList<>();
+                chunk.forEach(discrepancy -> args.add(new Object[] {
+                    discrepancy.expected(), discrepancy.expected(), discrepancy.itemCode(), discrepancy.actual()
+                }));
+                int[] counts = jdbcTemplate.batchUpdate(StockJournal.SET_STOCK + "WHERE item_code = ? AND stock_quantity = ?", args);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        Discrepancy discrepancy = chunk.get(i);
+                        corrected.add(discrepancy.itemCode());
+                        eventPublisher.publishEvent(new StockChangedEvent(discrepancy.itemCode(), discrepancy.name(),
+                            (int) discrepancy.expected(), tracked.get(discrepancy.itemCode())));
+                    }
+                }
+            });
+        }
+        return corrected;
+    }
+
+    private Path writeReport(List<Discrepancy> discrepancies, Set<Long> corrected) {
+        try {
+            Path dir = Paths.get(directory);
+            Files.createDirectories(dir);
+            Path file = dir.resolve("reconciliation-" +
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS")) + ".csv");
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                ReportService.writeCsvRow(writer, CSV_HEADER);
+                for (Discrepancy discrepancy : discrepancies) {
+                    ReportService.writeCsvRow(writer, new Object[] {
+                        discrepancy.itemCode(), discrepancy.name(), discrepancy.baseline(), discrepancy.adjustments(),
+                        discrepancy.sold(), discrepancy.expected(), discrepancy.actual(), discrepancy.difference(),
+                        corrected.contains(discrepancy.itemCode())
+                    });
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write stock reconciliation report", e);
+        }
+    }
+}
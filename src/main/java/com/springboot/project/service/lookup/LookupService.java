@@ -0,0 +1,101 @@
+package com.springboot.project.service.lookup;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+import com.springboot.project.service.ranking.StockChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.repository.UserRepository;
+import com.springboot.project.repository.ItemRepository;
+import org.springframework.context.event.EventListener;
+import com.springboot.project.dto.CustomerLookup;
+import org.springframework.stereotype.Service;
+import com.springboot.project.dto.ItemLookup;
+import com.springboot.project.entity.Item;
+import com.springboot.project.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import java.util.ArrayList;
+import java.util.List;
+
+// Typeahead search for the staff order forms: customers by name, username, email or phone, and active items
+// by name or code. Both indexes live in memory and follow user and item changes.
+@Slf4j
+@Service
+public class LookupService {
+
+    public static final int MAX_RESULTS = 20;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private final PrefixIndex<CustomerLookup> customers = new PrefixIndex<>();
+    private final PrefixIndex<ItemLookup> items = new PrefixIndex<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        userRepository.findByType(User.userType.CUSTOMER).forEach(this::indexCustomer);
+        itemRepository.findByStatus(Item.ItemStatus.ACTIVE).forEach(this::indexItem);
+        log.info("Lookup indexes loaded: {} customers, {} items", customers.size(), items.size());
+    }
+
+    public List<CustomerLookup> findCustomers(String query, int limit) {
+        // Phone numbers are indexed as bare digits
+        if (query != null && query.matches("[\\d\\s()+-]*\\d[\\d\\s()+-]*")) {
+            query = query.replaceAll("\\D", "");
+        }
+        return customers.search(query, Math.min(limit, MAX_RESULTS));
+    }
+
+    public List<ItemLookup> findItems(String query, int limit) {
+        return items.search(query, Math.min(limit, MAX_RESULTS));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        indexCustomer(event.user());
+    }
+
+    // Stock events carry no price or status, so the item is re-read
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(StockChangedEvent event) {
+        itemRepository.findById(event.itemCode()).ifPresentOrElse(this::indexItem, () -> items.remove(event.itemCode()));
+    }
+
+    private void indexCustomer(User user) {
+        if (user.getType() != User.userType.CUSTOMER) {
+            customers.remove(user.getAccountNumber());
+            return;
+        }
+        List<String> terms = new ArrayList<>(words(user.getName()));
+        terms.add(user.getUsername());
+        terms.add(user.getEmail());
+        if (user.getTelephone() != null) {
+            terms.add(user.getTelephone().replaceAll("\\D", ""));
+        }
+        customers.put(user.getAccountNumber(), CustomerLookup.of(user), terms);
+    }
+
+    private void indexItem(Item item) {
+        if (item.getStatus() != Item.ItemStatus.ACTIVE) {
+            items.remove(item.getItemCode());
+            return;
+        }
+        List<String> terms = new ArrayList<>(words(item.getName()));
+        terms.add(String.valueOf(item.getItemCode()));
+        items.put(item.getItemCode(), ItemLookup.of(item), terms);
+    }
+
+    // The full value plus each word, so "ali" and "alice cus" both match "Alice Customer"
+    private static List<String> words(String value) {
+        List<String> words = new ArrayList<>();
+        if (value != null) {
+            words.add(value);
+            for (String word : value.trim().split("\\s+")) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
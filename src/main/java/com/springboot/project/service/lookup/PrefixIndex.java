@@ -0,0 +1,79 @@
+package com.springboot.project.service.lookup;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.LinkedHashSet;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Sorted prefix index: every searchable term of an entry is stored as "term\0id" in a skip list, so a prefix
+// query is a range scan that stops after `limit` distinct entries, whatever the size of the index.
+final class PrefixIndex<T> {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final ConcurrentSkipListMap<String, Long> terms = new ConcurrentSkipListMap<>();
+    private final Map<Long, Indexed<T>> entries = new ConcurrentHashMap<>();
+
+    // Add or replace an entry; blank terms are ignored
+    synchronized void put(long id, T value, Collection<String> rawTerms) {
+        remove(id);
+        List<String> keys = new ArrayList<>();
+        for (String raw : rawTerms) {
+            String term = normalize(raw);
+            if (!term.isEmpty()) {
+                keys.add(term + SEPARATOR + id);
+            }
+        }
+        for (String key : keys) {
+            terms.put(key, id);
+        }
+        entries.put(id, new Indexed<>(value, keys));
+    }
+
+    synchronized void remove(long id) {
+        Indexed<T> previous = entries.remove(id);
+        if (previous != null) {
+            previous.keys().forEach(terms::remove);
+        }
+    }
+
+    // Entries with a term starting with the query, in term order
+    List<T> search(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (ids.add(id) && ids.size() == limit) {
+                break;
+            }
+        }
+
+        List<T> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Indexed<T> entry = entries.get(id);
+            if (entry != null) {
+                results.add(entry.value());
+            }
+        }
+        return results;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replace(SEPARATOR, ' ');
+    }
+
+    private record Indexed<T>(T value, List<String> keys) {
+    }
+}
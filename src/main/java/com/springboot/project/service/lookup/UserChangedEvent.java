@@ -0,0 +1,7 @@
+package com.springboot.project.service.lookup;
+
+import com.springboot.project.entity.User;
+
+// Published after a user is created or updated
+public record UserChangedEvent(User user) {
+}
@@ -0,0 +1,7 @@
+package com.springboot.project.service.pricing;
+
+import java.math.BigDecimal;
+
+// Result of pricing a set of lines; amounts are rounded to cents
+public record PriceBreakdown(BigDecimal subtotal, BigDecimal discount, BigDecimal tax, BigDecimal total) {
+}
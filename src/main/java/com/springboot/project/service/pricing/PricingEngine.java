@@ -0,0 +1,55 @@
+package com.springboot.project.service.pricing;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+import com.springboot.project.repository.PromotionRepository;
+import com.springboot.project.repository.TaxRuleRepository;
+import com.springboot.project.repository.CouponRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import java.math.BigDecimal;
+import java.util.List;
+
+// Holds the current compiled pricing plan and swaps in a new one whenever the rules change
+@Slf4j
+@Service
+public class PricingEngine {
+
+    @Autowired
+    private TaxRuleRepository taxRuleRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    private volatile PricingPlan plan = PricingPlan.empty();
+
+    @PostConstruct
+    public void reload() {
+        plan = PricingPlan.compile(
+            taxRuleRepository.findByActiveTrue(),
+            promotionRepository.findByActiveTrue(),
+            couponRepository.findByActiveTrue());
+        log.info("Pricing plan compiled");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRulesChanged(PricingRulesChangedEvent event) {
+        reload();
+    }
+
+    public PricingPlan getPlan() {
+        return plan;
+    }
+
+    public PriceBreakdown price(List<PricingLine> lines, String couponCode) {
+        return plan.price(lines, couponCode);
+    }
+
+    public PriceBreakdown priceSubtotal(BigDecimal subtotal, String couponCode) {
+        return plan.priceSubtotal(subtotal, couponCode);
+    }
+}
@@ -0,0 +1,7 @@
+package com.springboot.project.service.pricing;
+
+import java.math.BigDecimal;
+
+// One priced line: what the pricing plan needs to know about an order or cart line
+public record PricingLine(Long itemCode, String category, int quantity, BigDecimal unitPrice) {
+}
@@ -0,0 +1,271 @@
+package com.springboot.project.service.pricing;
+
+import com.springboot.project.entity.Promotion;
+import com.springboot.project.entity.TaxRule;
+import com.springboot.project.entity.Coupon;
+import java.math.RoundingMode;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.List;
+import java.util.Map;
+
+// Immutable evaluation plan compiled from the active pricing rules.
+// Rules are indexed by item and category up front, so pricing a line only visits the rules that can apply to it.
+public final class PricingPlan {
+
+    public static final BigDecimal DEFAULT_TAX_RATE = new BigDecimal("0.10");
+
+    private static final LineRule[] NO_RULES = new LineRule[0];
+
+    private final Map<Long, LineRule[]> itemRules;
+    private final Map<String, LineRule[]> categoryRules;
+    private final LineRule[] catalogRules;
+    private final Map<String, BundleRule[]> bundleRules;
+    private final Map<String, BigDecimal> categoryTaxRates;
+    private final BigDecimal defaultTaxRate;
+    private final Map<String, CouponRule> coupons;
+
+    private PricingPlan(Map<Long, LineRule[]> itemRules, Map<String, LineRule[]> categoryRules,
+                        LineRule[] catalogRules, Map<String, BundleRule[]> bundleRules,
+                        Map<String, BigDecimal> categoryTaxRates, BigDecimal defaultTaxRate,
+                        Map<String, CouponRule> coupons) {
+        this.itemRules = itemRules;
+        this.categoryRules = categoryRules;
+        this.catalogRules = catalogRules;
+        this.bundleRules = bundleRules;
+        this.categoryTaxRates = categoryTaxRates;
+        this.defaultTaxRate = defaultTaxRate;
+        this.coupons = coupons;
+    }
+
+    public static PricingPlan empty() {
+        return compile(List.of(), List.of(), List.of());
+    }
+
+    public static PricingPlan compile(List<TaxRule> taxRules, List<Promotion> promotions, List<Coupon> coupons) {
+        Map<String, BigDecimal> categoryTaxRates = new HashMap<>();
+        BigDecimal defaultTaxRate = null;
+        for (TaxRule rule : taxRules) {
+            if (!Boolean.TRUE.equals(rule.getActive()) || rule.getRate() == null) {
+                continue;
+            }
+            String category = normalize(rule.getCategory());
+            if (category == null) {
+                if (defaultTaxRate == null) {
+                    defaultTaxRate = rule.getRate();
+                }
+            } else {
+                categoryTaxRates.putIfAbsent(category, rule.getRate());
+            }
+        }
+
+        Map<Long, List<LineRule>> itemRules = new HashMap<>();
+        Map<String, List<LineRule>> categoryRules = new HashMap<>();
+        List<LineRule> catalogRules = new ArrayList<>();
+        Map<String, List<BundleRule>> bundleRules = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            if (!Boolean.TRUE.equals(promotion.getActive()) || promotion.getType() == null) {
+                continue;
+            }
+            String category = normalize(promotion.getCategory());
+            if (promotion.getType() == Promotion.PromotionType.CATEGORY_BUNDLE) {
+                if (category != null && isPositive(promotion.getBundleQuantity()) && promotion.getPercentOff() != null) {
+                    bundleRules.computeIfAbsent(category, k -> new ArrayList<>())
+                        .add(new BundleRule(promotion.getBundleQuantity(), promotion.getPercentOff()));
+                }
+                continue;
+            }
+
+            LineRule rule = compileLineRule(promotion);
+            if (rule == null) {
+                continue;
+            }
+            if (promotion.getItemCode() != null) {
+                itemRules.computeIfAbsent(promotion.getItemCode(), k -> new ArrayList<>()).add(rule);
+            } else if (category != null) {
+                categoryRules.computeIfAbsent(category, k -> new ArrayList<>()).add(rule);
+            } else {
+                catalogRules.add(rule);
+            }
+        }
+
+        Map<String, CouponRule> couponRules = new HashMap<>();
+        for (Coupon coupon : coupons) {
+            if (Boolean.TRUE.equals(coupon.getActive()) && coupon.getCode() != null) {
+                couponRules.put(normalizeCode(coupon.getCode()), new CouponRule(
+                    coupon.getPercentOff(), coupon.getAmountOff(), coupon.getMinimumSubtotal()));
+            }
+        }
+
+        Map<Long, LineRule[]> compiledItemRules = new HashMap<>();
+        itemRules.forEach((key, rules) -> compiledItemRules.put(key, rules.toArray(NO_RULES)));
+        Map<String, LineRule[]> compiledCategoryRules = new HashMap<>();
+        categoryRules.forEach((key, rules) -> compiledCategoryRules.put(key, rules.toArray(NO_RULES)));
+        Map<String, BundleRule[]> compiledBundleRules = new HashMap<>();
+        bundleRules.forEach((key, rules) -> compiledBundleRules.put(key, rules.toArray(new BundleRule[0])));
+
+        return new PricingPlan(
+            Map.copyOf(compiledItemRules),
+            Map.copyOf(compiledCategoryRules),
+            catalogRules.toArray(NO_RULES),
+            Map.copyOf(compiledBundleRules),
+            Map.copyOf(categoryTaxRates),
+            defaultTaxRate != null ? defaultTaxRate : DEFAULT_TAX_RATE,
+            Map.copyOf(couponRules));
+    }
+
+    private static LineRule compileLineRule(Promotion promotion) {
+        switch (promotion.getType()) {
+            case PERCENT_OFF:
+                if (promotion.getPercentOff() == null) {
+                    return null;
+                }
+                BigDecimal percentOff = promotion.getPercentOff();
+                return (line, lineTotal) -> lineTotal.multiply(percentOff);
+            case BUY_X_GET_Y:
+                if (!isPositive(promotion.getBuyQuantity()) || !isPositive(promotion.getFreeQuantity())) {
+                    return null;
+                }
+                int buy = promotion.getBuyQuantity();
+                int free = promotion.getFreeQuantity();
+                return (line, lineTotal) -> {
+                    int freeUnits = (line.quantity() / (buy + free)) * free;
+                    return line.unitPrice().multiply(BigDecimal.valueOf(freeUnits));
+                };
+            default:
+                return null;
+        }
+    }
+
+    // True when totals depend only on the subtotal, so they can be updated without looking at the lines
+    public boolean isSubtotalOnly() {
+        return itemRules.isEmpty() && categoryRules.isEmpty() && catalogRules.length == 0
+            && bundleRules.isEmpty() && categoryTaxRates.isEmpty();
+    }
+
+    public boolean hasCoupon(String code) {
+        return code != null && coupons.containsKey(normalizeCode(code));
+    }
+
+    // Price a subtotal directly; only valid when isSubtotalOnly()
+    public PriceBreakdown priceSubtotal(BigDecimal subtotal, String couponCode) {
+        BigDecimal couponDiscount = couponDiscount(subtotal, couponCode);
+        BigDecimal tax = subtotal.subtract(couponDiscount).multiply(defaultTaxRate);
+        return breakdown(subtotal, couponDiscount, tax);
+    }
+
+    public PriceBreakdown price(List<PricingLine> lines, String couponCode) {
+        Map<String, Integer> categoryUnits = bundleRules.isEmpty() ? Map.of() : countCategoryUnits(lines);
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal discount = BigDecimal.ZERO;
+        BigDecimal tax = BigDecimal.ZERO;
+        for (PricingLine line : lines) {
+            String category = normalize(line.category());
+            BigDecimal lineTotal = line.unitPrice().multiply(BigDecimal.valueOf(line.quantity()));
+
+            // Promotions do not stack: each line gets the single best discount available to it
+            BigDecimal best = BigDecimal.ZERO;
+            best = bestOf(best, itemRules.getOrDefault(line.itemCode(), NO_RULES), line, lineTotal);
+            if (category != null) {
+                best = bestOf(best, categoryRules.getOrDefault(category, NO_RULES), line, lineTotal);
+                BundleRule[] bundles = bundleRules.get(category);
+                if (bundles != null) {
+                    int units = categoryUnits.getOrDefault(category, 0);
+                    for (BundleRule bundle : bundles) {
+                        if (units >= bundle.minimumUnits()) {
+                            best = best.max(lineTotal.multiply(bundle.percentOff()));
+                        }
+                    }
+                }
+            }
+            best = bestOf(best, catalogRules, line, lineTotal).min(lineTotal);
+
+            BigDecimal rate = category != null ? categoryTaxRates.getOrDefault(category, defaultTaxRate) : defaultTaxRate;
+            subtotal = subtotal.add(lineTotal);
+            discount = discount.add(best);
+            tax = tax.add(lineTotal.subtract(best).multiply(rate));
+        }
+
+        // Coupons apply to the discounted subtotal and reduce tax proportionally
+        BigDecimal discounted = subtotal.subtract(discount);
+        BigDecimal couponDiscount = couponDiscount(discounted, couponCode);
+        if (couponDiscount.signum() > 0) {
+            tax = tax.multiply(discounted.subtract(couponDiscount)).divide(discounted, 10, RoundingMode.HALF_UP);
+            discount = discount.add(couponDiscount);
+        }
+        return breakdown(subtotal, discount, tax);
+    }
+
+    private static BigDecimal bestOf(BigDecimal best, LineRule[] rules, PricingLine line, BigDecimal lineTotal) {
+        for (LineRule rule : rules) {
+            best = best.max(rule.discount(line, lineTotal));
+        }
+        return best;
+    }
+
+    private static Map<String, Integer> countCategoryUnits(List<PricingLine> lines) {
+        Map<String, Integer> units = new HashMap<>();
+        for (PricingLine line : lines) {
+            String category = normalize(line.category());
+            if (category != null) {
+                units.merge(category, line.quantity(), Integer::sum);
+            }
+        }
+        return units;
+    }
+
+    private BigDecimal couponDiscount(BigDecimal amount, String couponCode) {
+        if (couponCode == null || amount.signum() <= 0) {
+            return BigDecimal.ZERO;
+        }
+        CouponRule coupon = coupons.get(normalizeCode(couponCode));
+        if (coupon == null || (coupon.minimumSubtotal() != null && amount.compareTo(coupon.minimumSubtotal()) < 0)) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal off = BigDecimal.ZERO;
+        if (coupon.percentOff() != null) {
+            off = off.add(amount.multiply(coupon.percentOff()));
+        }
+        if (coupon.amountOff() != null) {
+            off = off.add(coupon.amountOff());
+        }
+        return off.min(amount);
+    }
+
+    private static PriceBreakdown breakdown(BigDecimal subtotal, BigDecimal discount, BigDecimal tax) {
+        BigDecimal roundedSubtotal = subtotal.setScale(2, RoundingMode.HALF_UP);
+        BigDecimal roundedDiscount = discount.setScale(2, RoundingMode.HALF_UP);
+        BigDecimal roundedTax = tax.setScale(2, RoundingMode.HALF_UP);
+        return new PriceBreakdown(roundedSubtotal, roundedDiscount, roundedTax,
+            roundedSubtotal.subtract(roundedDiscount).add(roundedTax));
+    }
+
+    private static boolean isPositive(Integer value) {
+        return value != null && value > 0;
+    }
+
+    private static String normalize(String category) {
+        if (category == null || category.isBlank()) {
+            return null;
+        }
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeCode(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    @FunctionalInterface
+    private interface LineRule {
+        BigDecimal discount(PricingLine line, BigDecimal lineTotal);
+    }
+
+    private record BundleRule(int minimumUnits, BigDecimal percentOff) {
+    }
+
+    private record CouponRule(BigDecimal percentOff, BigDecimal amountOff, BigDecimal minimumSubtotal) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.springboot.project.service.pricing;
+
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import com.springboot.project.repository.PromotionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.repository.TaxRuleRepository;
+import com.springboot.project.repository.CouponRepository;
+import com.springboot.project.service.BusinessException;
+import org.springframework.stereotype.Service;
+import com.springboot.project.entity.*;
+import java.util.Locale;
+import java.util.List;
+
+@Service
+@Transactional
+public class PricingRuleService {
+
+    @Autowired
+    private TaxRuleRepository taxRuleRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public List<TaxRule> getAllTaxRules() {
+        return taxRuleRepository.findAll();
+    }
+
+    public List<Promotion> getAllPromotions() {
+        return promotionRepository.findAll();
+    }
+
+    public List<Coupon> getAllCoupons() {
+        return couponRepository.findAll();
+    }
+
+    public TaxRule saveTaxRule(TaxRule taxRule) {
+        if (taxRule.getCategory() != null && taxRule.getCategory().isBlank()) {
+            taxRule.setCategory(null);
+        }
+        TaxRule saved = taxRuleRepository.save(taxRule);
+        rulesChanged();
+        return saved;
+    }
+
+    public Promotion savePromotion(Promotion promotion) {
+        if (promotion.getCategory() != null && promotion.getCategory().isBlank()) {
+            promotion.setCategory(null);
+        }
+        if (promotion.getType() == null) {
+            throw new BusinessException("Promotion type is required");
+        }
+        switch (promotion.getType()) {
+            case PERCENT_OFF:
+                if (promotion.getPercentOff() == null) {
+                    throw new BusinessException("Percent off is required for this promotion type");
+                }
+                break;
+            case BUY_X_GET_Y:
+                if (promotion.getItemCode() == null || promotion.getBuyQuantity() == null || promotion.getFreeQuantity() == null
+                        || promotion.getBuyQuantity() < 1 || promotion.getFreeQuantity() < 1) {
+                    throw new BusinessException("Buy X get Y needs an item code and positive buy/free quantities");
+                }
+                break;
+            case CATEGORY_BUNDLE:
+                if (promotion.getCategory() == null || promotion.getBundleQuantity() == null
+                        || promotion.getBundleQuantity() < 1 || promotion.getPercentOff() == null) {
+                    throw new BusinessException("Category bundles need a category, a bundle quantity and percent off");
+                }
+                break;
+        }
+        Promotion saved = promotionRepository.save(promotion);
+        rulesChanged();
+        return saved;
+    }
+
+    public Coupon saveCoupon(Coupon coupon) {
+        coupon.setCode(coupon.getCode().trim().toUpperCase(Locale.ROOT));
+        if (coupon.getId() == null && couponRepository.existsByCodeIgnoreCase(coupon.getCode())) {
+            throw new BusinessException("Coupon code already exists!");
+        }
+        if (coupon.getPercentOff() == null && coupon.getAmountOff() == null) {
+            throw new BusinessException("Coupon needs a percent off or an amount off");
+        }
+        Coupon saved = couponRepository.save(coupon);
+        rulesChanged();
+        return saved;
+    }
+
+    public void toggleTaxRule(Long id) {
+        TaxRule rule = taxRuleRepository.findById(id)
+            .orElseThrow(() -> new BusinessException("Tax rule not found"));
+        rule.setActive(!Boolean.TRUE.equals(rule.getActive()));
+        rulesChanged();
+    }
+
+    public void togglePromotion(Long id) {
+        Promotion promotion = promotionRepository.findById(id)
+            .orElseThrow(() -> new BusinessException("Promotion not found"));
+        promotion.setActive(!Boolean.TRUE.equals(promotion.getActive()));
+        rulesChanged();
+    }
+
+    public void toggleCoupon(Long id) {
+        Coupon coupon = couponRepository.findById(id)
+            .orElseThrow(() -> new BusinessException("Coupon not found"));
+        coupon.setActive(!Boolean.TRUE.equals(coupon.getActive()));
+        rulesChanged();
+    }
+
+    public void deleteTaxRule(Long id) {
+        taxRuleRepository.deleteById(id);
+        rulesChanged();
+    }
+
+    public void deletePromotion(Long id) {
+        promotionRepository.deleteById(id);
+        rulesChanged();
+    }
+
+    public void deleteCoupon(Long id) {
+        couponRepository.deleteById(id);
+        rulesChanged();
+    }
+
+    // The engine recompiles once this transaction commits
+    private void rulesChanged() {
+        eventPublisher.publishEvent(new PricingRulesChangedEvent());
+    }
+}
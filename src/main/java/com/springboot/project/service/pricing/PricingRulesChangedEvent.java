@@ -0,0 +1,5 @@
+package com.springboot.project.service.pricing;
+
+// Published whenever tax rules, promotions or coupons change so the engine can recompile its plan
+public record PricingRulesChangedEvent() {
+}
@@ -0,0 +1,8 @@
+package com.springboot.project.service.ranking;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// Units sold per item in one bill, published when the bill is confirmed
+public record ItemsSoldEvent(Long billNumber, LocalDate salesDate, Map<Long, Integer> units) {
+}
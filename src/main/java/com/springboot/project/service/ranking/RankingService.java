@@ -0,0 +1,177 @@
+package com.springboot.project.service.ranking;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+import com.springboot.project.repository.ItemSalesRollupRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.repository.ItemRepository;
+import org.springframework.context.event.EventListener;
+import com.springboot.project.entity.ItemSalesRollup;
+import com.springboot.project.dto.RankingSnapshot;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import com.springboot.project.dto.ItemRank;
+import com.springboot.project.entity.Item;
+import java.time.LocalDate;
+import java.util.*;
+
+// In-memory best-seller and low-stock rankings. Each ranking is a sorted set kept in step with a
+// value map, so an update is O(log n) and reading the top K walks K entries.
+@Service
+public class RankingService {
+
+    private static final Comparator<Ranked> MOST_FIRST =
+        Comparator.comparingLong(Ranked::value).reversed().thenComparingLong(Ranked::itemCode);
+    private static final Comparator<Ranked> LEAST_FIRST =
+        Comparator.comparingLong(Ranked::value).thenComparingLong(Ranked::itemCode);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemSalesRollupRepository itemSalesRollupRepository;
+
+    private final Map<Long, String> names = new HashMap<>();
+
+    // Units sold per item per day, kept for the longest window
+    private final TreeMap<LocalDate, Map<Long, Long>> dailyUnits = new TreeMap<>();
+    private final Map<SalesWindow, Ranking> windows = new EnumMap<>(SalesWindow.class);
+    private final Ranking lowStock = new Ranking(LEAST_FIRST, true);
+    private LocalDate currentDay = LocalDate.now();
+
+    public RankingService() {
+        for (SalesWindow window : SalesWindow.values()) {
+            windows.put(window, new Ranking(MOST_FIRST, false));
+        }
+    }
+
+    // Seed from the catalogue and the item sales rollups (runs after the rollup backfill)
+    @Order(2)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        for (Item item : itemRepository.findAll()) {
+            applyStock(StockChangedEvent.of(item));
+        }
+        LocalDate from = currentDay.minusDays(SalesWindow.MONTH.getDays() - 1);
+        for (ItemSalesRollup rollup : itemSalesRollupRepository.findBySalesDateGreaterThanEqual(from)) {
+            addSale(rollup.getSalesDate(), rollup.getItemCode(), rollup.getUnits());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onItemsSold(ItemsSoldEvent event) {
+        roll(LocalDate.now());
+        event.units().forEach((itemCode, units) -> addSale(event.salesDate(), itemCode, units));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        applyStock(event);
+    }
+
+    public synchronized List<ItemRank> getTopSellers(SalesWindow window, int k) {
+        roll(LocalDate.now());
+        return windows.get(window).top(k);
+    }
+
+    public synchronized List<ItemRank> getLowStock(int k) {
+        return lowStock.top(k);
+    }
+
+    public synchronized RankingSnapshot getSnapshot(int k) {
+        roll(LocalDate.now());
+        return new RankingSnapshot(
+            windows.get(SalesWindow.DAY).top(k),
+            windows.get(SalesWindow.WEEK).top(k),
+            windows.get(SalesWindow.MONTH).top(k),
+            lowStock.top(k));
+    }
+
+    private void applyStock(StockChangedEvent event) {
+        if (event.name() != null) {
+            names.put(event.itemCode(), event.name());
+        }
+        if (event.tracked()) {
+            lowStock.set(event.itemCode(), event.stockQuantity());
+        } else {
+            lowStock.remove(event.itemCode());
+        }
+    }
+
+    private void addSale(LocalDate salesDate, Long itemCode, long units) {
+        if (salesDate.isAfter(currentDay)) {
+            roll(salesDate);
+        }
+        long age = currentDay.toEpochDay() - salesDate.toEpochDay();
+        if (age >= SalesWindow.MONTH.getDays()) {
+            return;
+        }
+        dailyUnits.computeIfAbsent(salesDate, d -> new HashMap<>()).merge(itemCode, units, Long::sum);
+        for (SalesWindow window : SalesWindow.values()) {
+            if (age < window.getDays()) {
+                windows.get(window).add(itemCode, units);
+            }
+        }
+    }
+
+    // Advance to a new day: each window drops the day that just slid out of it
+    private void roll(LocalDate today) {
+        while (currentDay.isBefore(today)) {
+            currentDay = currentDay.plusDays(1);
+            for (SalesWindow window : SalesWindow.values()) {
+                Map<Long, Long> leaving = dailyUnits.get(currentDay.minusDays(window.getDays()));
+                if (leaving != null) {
+                    Ranking ranking = windows.get(window);
+                    leaving.forEach((itemCode, units) -> ranking.add(itemCode, -units));
+                }
+            }
+            dailyUnits.headMap(currentDay.minusDays(SalesWindow.MONTH.getDays() - 1)).clear();
+        }
+    }
+
+    private record Ranked(long value, long itemCode) {
+    }
+
+    // Value per item plus the same entries ordered for ranking
+    private class Ranking {
+        private final Map<Long, Long> values = new HashMap<>();
+        private final TreeSet<Ranked> order;
+        private final boolean keepZero;
+
+        private Ranking(Comparator<Ranked> comparator, boolean keepZero) {
+            this.order = new TreeSet<>(comparator);
+            this.keepZero = keepZero;
+        }
+
+        private void add(Long itemCode, long delta) {
+            set(itemCode, values.getOrDefault(itemCode, 0L) + delta);
+        }
+
+        private void set(Long itemCode, long value) {
+            remove(itemCode);
+            if (value != 0 || keepZero) {
+                values.put(itemCode, value);
+                order.add(new Ranked(value, itemCode));
+            }
+        }
+
+        private void remove(Long itemCode) {
+            Long previous = values.remove(itemCode);
+            if (previous != null) {
+                order.remove(new Ranked(previous, itemCode));
+            }
+        }
+
+        private List<ItemRank> top(int k) {
+            List<ItemRank> result = new ArrayList<>(Math.min(k, order.size()));
+            for (Ranked ranked : order) {
+                if (result.size() == k) {
+                    break;
+                }
+                result.add(new ItemRank(ranked.itemCode(), names.getOrDefault(ranked.itemCode(), "Item #" + ranked.itemCode()),
+                                        ranked.value()));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.springboot.project.service.ranking;
+
+// Sliding best-seller windows, each covering the last `days` days including today
+public enum SalesWindow {
+    DAY(1), WEEK(7), MONTH(30);
+
+    private final int days;
+
+    SalesWindow(int days) {
+        this.days = days;
+    }
+
+    public int getDays() {
+        return days;
+    }
+}
@@ -0,0 +1,17 @@
+package com.springboot.project.service.ranking;
+
+import com.springboot.project.entity.Item;
+
+// Current stock for an item; untracked items (inactive or deleted) drop out of the low-stock ranking
+public record StockChangedEvent(Long itemCode, String name, int stockQuantity, boolean tracked) {
+
+    public static StockChangedEvent of(Item item) {
+        return new StockChangedEvent(item.getItemCode(), item.getName(),
+            item.getStockQuantity() != null ? item.getStockQuantity() : 0,
+            item.getStatus() != Item.ItemStatus.INACTIVE);
+    }
+
+    public static StockChangedEvent removed(Long itemCode) {
+        return new StockChangedEvent(itemCode, null, 0, false);
+    }
+}
@@ -0,0 +1,86 @@
+package com.springboot.project.service.recommendation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Item-to-item co-occurrence counts: for each item, how many confirmed bills also contained each other item.
+// Not thread-safe; CoPurchaseService guards access.
+final class CoPurchaseIndex {
+
+    private final Map<Long, LongIntHashMap> neighbours = new HashMap<>();
+
+    // Count every pair of distinct items in one bill
+    void addBill(long[] itemCodes) {
+        for (long item : itemCodes) {
+            LongIntHashMap counts = null;
+            for (long other : itemCodes) {
+                if (other != item) {
+                    if (counts == null) {
+                        counts = neighbours.computeIfAbsent(item, k -> new LongIntHashMap());
+                    }
+                    counts.addTo(other, 1);
+                }
+            }
+        }
+    }
+
+    // Fold another partial index into this one (combiner for the parallel rebuild)
+    void merge(CoPurchaseIndex other) {
+        other.neighbours.forEach((item, counts) -> {
+            LongIntHashMap target = neighbours.get(item);
+            if (target == null) {
+                neighbours.put(item, counts);
+            } else {
+                counts.forEach(target::addTo);
+            }
+        });
+    }
+
+    int count(long item, long other) {
+        LongIntHashMap counts = neighbours.get(item);
+        return counts != null ? counts.get(other) : 0;
+    }
+
+    // Up to n item codes most often bought with the item, highest count first then lowest code
+    long[] top(long item, int n) {
+        LongIntHashMap counts = neighbours.get(item);
+        if (counts == null || n <= 0) {
+            return new long[0];
+        }
+
+        // Insertion into a small sorted window: n is a handful, so this beats a heap
+        long[] codes = new long[n];
+        int[] scores = new int[n];
+        int[] filled = {0};
+        counts.forEach((code, score) -> {
+            if (score <= 0) {
+                return;
+            }
+            int pos = filled[0];
+            while (pos > 0 && ranksBefore(score, code, scores[pos - 1], codes[pos - 1])) {
+                pos--;
+            }
+            if (pos >= n) {
+                return;
+            }
+            int last = Math.min(filled[0], n - 1);
+            System.arraycopy(codes, pos, codes, pos + 1, last - pos);
+            System.arraycopy(scores, pos, scores, pos + 1, last - pos);
+            codes[pos] = code;
+            scores[pos] = score;
+            if (filled[0] < n) {
+                filled[0]++;
+            }
+        });
+        return Arrays.copyOf(codes, filled[0]);
+    }
+
+    int itemCount() {
+        return neighbours.size();
+    }
+
+    private static boolean ranksBefore(int score, long code, int otherScore, long otherCode) {
+        return score > otherScore || (score == otherScore && code < otherCode);
+    }
+}
@@ -0,0 +1,168 @@
+package com.springboot.project.service.recommendation;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+import com.springboot.project.service.ranking.ItemsSoldEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.repository.ItemRepository;
+import com.springboot.project.service.archive.ArchivedBill;
+import com.springboot.project.service.archive.BillArchive;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import com.springboot.project.entity.Item;
+import com.springboot.project.entity.Bill;
+import lombok.extern.slf4j.Slf4j;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.*;
+
+// "Customers also bought": co-occurrence counts over confirmed bills. Confirmations update the live index
+// after commit; rebuild() recomputes it from the bill history in parallel and swaps it in.
+@Slf4j
+@Service
+public class CoPurchaseService {
+
+    private static final String HISTORY_QUERY =
+        "SELECT bi.bill_number, bi.item_code FROM bill_items bi " +
+        "JOIN bills b ON b.bill_number = bi.bill_number " +
+        "WHERE b.status IN ('" + Bill.BillStatus.CONFIRMED + "', '" + Bill.BillStatus.PAID + "') " +
+        "ORDER BY bi.bill_number";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BillArchive billArchive;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private CoPurchaseIndex index = new CoPurchaseIndex();
+
+    // Bills confirmed while a rebuild is reading history; replayed unless the rebuild already saw them
+    private List<Map.Entry<Long, long[]>> confirmedDuringRebuild;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemsSold(ItemsSoldEvent event) {
+        long[] itemCodes = event.units().keySet().stream().mapToLong(Long::longValue).toArray();
+        lock.writeLock().lock();
+        try {
+            index.addBill(itemCodes);
+            if (confirmedDuringRebuild != null) {
+                confirmedDuringRebuild.add(Map.entry(event.billNumber(), itemCodes));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Item codes most often bought together with the given item
+    public long[] getNeighbours(Long itemCode, int n) {
+        lock.readLock().lock();
+        try {
+            return index.top(itemCode, n);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Active items most often bought together with the given item, best first
+    public List<Item> getAlsoBought(Long itemCode, int n) {
+        // Ask for a few extra so inactive or deleted neighbours can be skipped
+        long[] codes = getNeighbours(itemCode, n * 2);
+        if (codes.length == 0) {
+            return List.of();
+        }
+        Map<Long, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(Arrays.stream(codes).boxed().toList())) {
+            items.put(item.getItemCode(), item);
+        }
+        List<Item> result = new ArrayList<>(n);
+        for (long code : codes) {
+            Item item = items.get(code);
+            if (item != null && item.getStatus() == Item.ItemStatus.ACTIVE && result.size() < n) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    // Offline rebuild from the full bill history; bill item sets are counted on a parallel stream
+    @Scheduled(cron = "${app.recommendations.rebuild-cron:0 30 3 * * *}")
+    public synchronized int rebuild() {
+        lock.writeLock().lock();
+        try {
+            confirmedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Map<Long, long[]> bills = loadBillItemSets();
+            CoPurchaseIndex rebuilt = bills.values().parallelStream()
+                .collect(CoPurchaseIndex::new, CoPurchaseIndex::addBill, CoPurchaseIndex::merge);
+
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<Long, long[]> confirmed : confirmedDuringRebuild) {
+                    if (!bills.containsKey(confirmed.getKey())) {
+                        rebuilt.addBill(confirmed.getValue());
+                    }
+                }
+                index = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Rebuilt co-purchase index from {} bills covering {} items", bills.size(), rebuilt.itemCount());
+            return bills.size();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                confirmedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Distinct item codes per confirmed bill, live and archived
+    private Map<Long, long[]> loadBillItemSets() {
+        Map<Long, long[]> bills = new HashMap<>();
+        long[] current = {0L};
+        List<Long> items = new ArrayList<>();
+        jdbcTemplate.query(HISTORY_QUERY, rs -> {
+            long billNumber = rs.getLong("bill_number");
+            if (billNumber != current[0] && !items.isEmpty()) {
+                bills.put(current[0], distinct(items));
+                items.clear();
+            }
+            current[0] = billNumber;
+            items.add(rs.getLong("item_code"));
+        });
+        if (!items.isEmpty()) {
+            bills.put(current[0], distinct(items));
+        }
+
+        // Archived history counts too; a bill caught in both tiers mid-archive keeps its live copy
+        billArchive.scan(null, null, EnumSet.of(Bill.BillStatus.CONFIRMED, Bill.BillStatus.PAID), archived -> {
+            for (ArchivedBill bill : archived) {
+                if (!bill.lines().isEmpty()) {
+                    bills.putIfAbsent(bill.billNumber(),
+                        bill.lines().stream().mapToLong(ArchivedBill.Line::itemCode).distinct().toArray());
+                }
+            }
+        });
+        return bills;
+    }
+
+    private static long[] distinct(List<Long> items) {
+        return items.stream().mapToLong(Long::longValue).distinct().toArray();
+    }
+}
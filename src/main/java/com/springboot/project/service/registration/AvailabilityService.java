@@ -0,0 +1,85 @@
+package com.springboot.project.service.registration;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+import com.springboot.project.service.lookup.UserChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.springboot.project.repository.UserRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import com.springboot.project.entity.User;
+import lombok.extern.slf4j.Slf4j;
+
+// Answers "is this username/email free" for the registration form. Bloom filters over the taken values
+// settle most queries in memory; only a possible hit goes to the database. The filters never forget a
+// value, so a renamed account just costs the occasional extra lookup until the next restart rebuilds them.
+@Slf4j
+@Service
+public class AvailabilityService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.registration.bloom.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${app.registration.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile Filters filters;
+    private volatile Filters building;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long count = userRepository.count();
+        long capacity = Math.max(expectedUsers, count * 2);
+        Filters rebuilt = new Filters(new BloomFilter(capacity, falsePositiveRate),
+                                      new BloomFilter(capacity, falsePositiveRate));
+        // Sign-ups that commit while the table is being scanned are added to both generations
+        building = rebuilt;
+        jdbcTemplate.query("SELECT username, email FROM users", rs -> {
+            rebuilt.usernames().add(rs.getString(1));
+            rebuilt.emails().add(rs.getString(2));
+        });
+        filters = rebuilt;
+        building = null;
+        log.info("Availability filters rebuilt from {} users (capacity {})", count, capacity);
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        Filters current = filters;
+        if (current != null && !current.usernames().mightContain(username)) {
+            return true;
+        }
+        return !userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        Filters current = filters;
+        if (current != null && !current.emails().mightContain(email)) {
+            return true;
+        }
+        return !userRepository.existsByEmail(email);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        add(filters, event.user());
+        add(building, event.user());
+    }
+
+    private static void add(Filters target, User user) {
+        if (target != null) {
+            target.usernames().add(user.getUsername());
+            target.emails().add(user.getEmail());
+        }
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+    }
+}
@@ -0,0 +1,36 @@
+-- Secondary indexes for SQLite. Tables are managed by Hibernate; this script is re-run on every start.
+
+-- Customer catalogue: findActiveItemsOrderByName
+CREATE INDEX IF NOT EXISTS idx_items_active_name ON items (name) WHERE status = 'ACTIVE';
+
+-- User administration lists: keyset pages per type, newest first
+CREATE INDEX IF NOT EXISTS idx_users_type_created ON users (type, created_at);
+
+-- Order listings: by customer, by status, and everything newest first
+CREATE INDEX IF NOT EXISTS idx_bills_customer_created ON bills (customer_number, created_at);
+CREATE INDEX IF NOT EXISTS idx_bills_status_created ON bills (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_bills_created ON bills (created_at);
+CREATE INDEX IF NOT EXISTS idx_bill_items_bill ON bill_items (bill_number);
+
+-- Stock reconciliation: bill lines per item-code range
+CREATE INDEX IF NOT EXISTS idx_bill_items_item ON bill_items (item_code, bill_number, quantity);
+
+-- Carts: one per customer, which makes cart creation an insert-or-get. Nothing is deleted here: if carts from the
+-- old find-then-save creation path still share a customer, creating the index fails and startup stops. Merge or
+-- delete the duplicates by hand (keeping each customer's newest cart) and restart.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_carts_customer ON carts (customer_number);
+DROP INDEX IF EXISTS idx_carts_customer;
+-- Maintenance sweep: idle carts
+CREATE INDEX IF NOT EXISTS idx_carts_updated ON carts (updated_at);
+CREATE INDEX IF NOT EXISTS idx_cart_items_cart_item ON cart_items (cart_id, item_code);
+
+-- Sales rollups: the upsert keys (Hibernate's SQLite dialect leaves out the table-level unique constraints)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_item_sales_rollups_day_item ON item_sales_rollups (sales_date, item_code);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_customer_sales_rollups_day_customer ON customer_sales_rollups (sales_date, customer_number);
+
+-- Confirmation queue: pending scan and status polling
+CREATE INDEX IF NOT EXISTS idx_order_confirmations_pending ON order_confirmations (id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_order_confirmations_bill ON order_confirmations (bill_number, id);
+
+-- Checkout idempotency keys: expiry purge
+CREATE INDEX IF NOT EXISTS idx_checkout_requests_created ON checkout_requests (created_at);
@@ -0,0 +1,80 @@
+package com.springboot.project.repository;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.WebApplicationType;
+import com.springboot.project.service.CartService;
+import com.springboot.project.ProjectApplication;
+import com.springboot.project.entity.User;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs the catalogue read, order listing and cart write paths against each persistence backend.
+// PostgreSQL is not started here; point DB_URL at a server and pass -p backend=postgres to include it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersistenceBackendBenchmark {
+
+    @Param({"sqlite", "h2"})
+    public String backend;
+
+    private ConfigurableApplicationContext context;
+    private ItemRepository itemRepository;
+    private BillRepository billRepository;
+    private CartService cartService;
+    private User customer;
+    private Long itemCode;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path dir = Files.createTempDirectory("bookshop-bench-" + backend);
+        String url = switch (backend) {
+            case "sqlite" -> "jdbc:sqlite:" + dir.resolve("bench.db");
+            case "h2" -> "jdbc:h2:file:" + dir.resolve("bench") + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+            default -> null;
+        };
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ProjectApplication.class)
+            .web(WebApplicationType.NONE);
+        if (!backend.equals("sqlite")) {
+            builder.profiles(backend);
+        }
+        List<String> args = new ArrayList<>(List.of("--spring.jpa.show-sql=false", "--logging.level.root=WARN"));
+        if (url != null) {
+            args.add("--spring.datasource.url=" + url);
+        }
+        context = builder.run(args.toArray(new String[0]));
+
+        itemRepository = context.getBean(ItemRepository.class);
+        billRepository = context.getBean(BillRepository.class);
+        cartService = context.getBean(CartService.class);
+        customer = context.getBean(UserRepository.class).findByUsername("alice").orElseThrow();
+        itemCode = itemRepository.findActiveItemsOrderByName().get(0).getItemCode();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<?> activeItems() {
+        return itemRepository.findActiveItemsOrderByName();
+    }
+
+    @Benchmark
+    public List<?> customerOrders() {
+        return billRepository.findByCustomerIdOrderByCreatedAtDesc(customer.getAccountNumber());
+    }
+
+    @Benchmark
+    public void cartAddAndClear() {
+        cartService.addItemToCart(customer, itemCode, 1);
+        cartService.clearCart(customer);
+    }
+}
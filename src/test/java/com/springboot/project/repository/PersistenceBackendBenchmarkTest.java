@@ -0,0 +1,33 @@
+package com.springboot.project.repository;
+
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.junit.jupiter.api.Test;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PersistenceBackendBenchmarkTest {
+
+    @Test
+    void runsAgainstEveryEmbeddedBackend() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+            .include(PersistenceBackendBenchmark.class.getSimpleName())
+            .forks(0)
+            .warmupIterations(1)
+            .warmupTime(TimeValue.milliseconds(300))
+            .measurementIterations(2)
+            .measurementTime(TimeValue.milliseconds(300))
+            .build()).run();
+
+        Set<String> backends = new HashSet<>();
+        for (RunResult result : results) {
+            backends.add(result.getParams().getParam("backend"));
+        }
+        assertEquals(Set.of("sqlite", "h2"), backends);
+    }
+}
@@ -0,0 +1,70 @@
+package com.springboot.project.service;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import com.springboot.project.repository.UserRepository;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.springboot.project.ProjectApplication;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import com.springboot.project.entity.User;
+import java.util.concurrent.Future;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CartServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sqlite", "h2"})
+    void concurrentFirstRequestsShareOneCart(String backend) throws Exception {
+        Path dir = Files.createTempDirectory("bookshop-cart-" + backend);
+        String url = backend.equals("sqlite")
+            ? "jdbc:sqlite:" + dir.resolve("cart.db")
+            : "jdbc:h2:file:" + dir.resolve("cart") + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ProjectApplication.class)
+            .web(WebApplicationType.NONE);
+        if (!backend.equals("sqlite")) {
+            builder.profiles(backend);
+        }
+        try (ConfigurableApplicationContext context = builder.run("--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN", "--spring.datasource.url=" + url)) {
+            CartService cartService = context.getBean(CartService.class);
+            User customer = context.getBean(UserRepository.class)
+                .save(new User("Race Customer", "race", "race@example.com", "x", "1 Race Road", "0123456789"));
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cartService.getOrCreateCart(customer).getId();
+                }));
+            }
+            start.countDown();
+
+            Set<Long> cartIds = new HashSet<>();
+            for (Future<Long> result : results) {
+                cartIds.add(result.get());
+            }
+            executor.shutdown();
+
+            assertEquals(1, cartIds.size());
+            assertEquals(1, context.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT COUNT(*) FROM carts WHERE customer_number = ?", Integer.class, customer.getAccountNumber()));
+        }
+    }
+}
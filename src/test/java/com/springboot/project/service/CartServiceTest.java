@@ -0,0 +1,56 @@
+package com.springboot.project.service;
+
+import com.springboot.project.repository.CartRepository;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.springboot.project.entity.Cart;
+import com.springboot.project.entity.User;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CartServiceTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @InjectMocks
+    private CartService cartService;
+
+    @Test
+    void readsAnExistingCartWithoutWriting() {
+        User customer = customer();
+        Cart cart = new Cart(customer);
+        when(cartRepository.findByCustomer(customer)).thenReturn(Optional.of(cart));
+
+        assertSame(cart, cartService.getCart(customer));
+
+        verify(cartRepository, never()).insertIfAbsent(any(), any());
+    }
+
+    @Test
+    void createsTheCartOnFirstUse() {
+        User customer = customer();
+        Cart cart = new Cart(customer);
+        when(cartRepository.findByCustomer(customer)).thenReturn(Optional.empty(), Optional.of(cart));
+
+        assertSame(cart, cartService.getCart(customer));
+
+        verify(cartRepository).insertIfAbsent(eq(7L), any());
+    }
+
+    private static User customer() {
+        User customer = new User("Cart Customer", "cart", "cart@example.com", "x", "1 Cart Road", "0123456789");
+        customer.setAccountNumber(7L);
+        return customer;
+    }
+}
@@ -0,0 +1,161 @@
+package com.springboot.project.service;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import com.springboot.project.repository.ItemRepository;
+import com.springboot.project.repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.springboot.project.ProjectApplication;
+import com.springboot.project.entity.CartItem;
+import com.springboot.project.entity.Cart;
+import com.springboot.project.entity.Item;
+import com.springboot.project.entity.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CartWriteBehindStoreTest {
+
+    private static ConfigurableApplicationContext context;
+    private static CartWriteBehindStore store;
+    private static JdbcTemplate jdbcTemplate;
+    private static List<Item> items;
+
+    @BeforeAll
+    static void start() throws Exception {
+        Path dir = Files.createTempDirectory("bookshop-write-behind");
+        context = new SpringApplicationBuilder(ProjectApplication.class).web(WebApplicationType.NONE)
+            .run("--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                 "--spring.datasource.url=jdbc:sqlite:" + dir.resolve("cart.db"),
+                 "--app.stock-journal.dir=" + dir.resolve("journal"), "--app.archive.dir=" + dir.resolve("archive"),
+                 "--app.cart.storage=memory", "--app.cart.flush-interval-ms=3600000");
+        store = context.getBean(CartWriteBehindStore.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        items = context.getBean(ItemRepository.class).findAll().stream()
+            .filter(item -> item.getStatus() == Item.ItemStatus.ACTIVE && item.getStockQuantity() >= 10)
+            .limit(3).toList();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void flushWritesTheCartAndItsLines() {
+        User customer = customer("flush");
+        store.addItem(customer, code(0), 2);
+        store.addItem(customer, code(1), 1);
+        assertEquals(0, count("SELECT COUNT(*) FROM carts WHERE customer_number = ?", customer));
+
+        store.flush(customer);
+
+        assertEquals(Map.of(code(0), 2, code(1), 1), storedLines(customer));
+        assertEquals(3, count("SELECT item_count FROM carts WHERE customer_number = ?", customer));
+
+        Cart cart = store.getCart(customer);
+        store.removeItem(customer, line(cart, code(1)).getId());
+        store.updateQuantity(customer, line(cart, code(0)).getId(), 4);
+        store.flush(customer);
+
+        assertEquals(Map.of(code(0), 4), storedLines(customer));
+        assertEquals(4, count("SELECT item_count FROM carts WHERE customer_number = ?", customer));
+    }
+
+    @Test
+    void conflictingWriteReloadsTheRowAndReappliesPendingChanges() {
+        User customer = customer("conflict");
+        store.addItem(customer, code(0), 1);
+        store.addItem(customer, code(1), 1);
+        store.flush(customer);
+
+        // Pending here: item 0 goes to 3, item 1 is removed, item 2 is added
+        Cart cart = store.getCart(customer);
+        store.updateQuantity(customer, line(cart, code(0)).getId(), 3);
+        store.removeItem(customer, line(cart, code(1)).getId());
+        store.addItem(customer, code(2), 2);
+
+        // Meanwhile another writer changed the row: item 1 to 5 and item 2 to 4, bumping the version
+        Long cartId = jdbcTemplate.queryForObject("SELECT id FROM carts WHERE customer_number = ?", Long.class,
+                                                  customer.getAccountNumber());
+        jdbcTemplate.update("UPDATE cart_items SET quantity = 5 WHERE cart_id = ? AND item_code = ?", cartId, code(1));
+        jdbcTemplate.update("INSERT INTO cart_items (cart_id, item_code, quantity, unit_price, total_price) " +
+                            "VALUES (?, ?, 4, ?, ?)", cartId, code(2), price(2), price(2).multiply(BigDecimal.valueOf(4)));
+        jdbcTemplate.update("UPDATE carts SET version = version + 1 WHERE id = ?", cartId);
+
+        store.flush(customer);
+
+        // Lines changed here win; nothing changed here keeps the database copy; the removal stands
+        Map<Long, Integer> expected = Map.of(code(0), 3, code(2), 2);
+        assertEquals(expected, storedLines(customer));
+        Cart merged = store.getCart(customer);
+        assertEquals(5, merged.getTotalItems());
+        assertEquals(price(0).multiply(BigDecimal.valueOf(3)).add(price(2).multiply(BigDecimal.valueOf(2))),
+                     merged.getTotalAmount());
+        assertEquals(5, count("SELECT item_count FROM carts WHERE customer_number = ?", customer));
+        assertEquals(1, count("SELECT COUNT(*) FROM carts WHERE customer_number = ?", customer));
+
+        // The store carries on from the merged row
+        store.addItem(customer, code(1), 1);
+        store.flush(customer);
+        assertEquals(Map.of(code(0), 3, code(1), 1, code(2), 2), storedLines(customer));
+    }
+
+    @Test
+    void cartCreatedElsewhereIsMergedInsteadOfDuplicated() {
+        User customer = customer("race");
+        store.addItem(customer, code(0), 1);
+        // Another node created this customer's cart first
+        jdbcTemplate.update("INSERT INTO carts (customer_number, total_amount, item_count, created_at, updated_at, " +
+                            "version) VALUES (?, 0, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)",
+                            customer.getAccountNumber());
+        Long cartId = jdbcTemplate.queryForObject("SELECT id FROM carts WHERE customer_number = ?", Long.class,
+                                                  customer.getAccountNumber());
+        jdbcTemplate.update("INSERT INTO cart_items (cart_id, item_code, quantity, unit_price, total_price) " +
+                            "VALUES (?, ?, 2, ?, ?)", cartId, code(1), price(1), price(1).multiply(BigDecimal.valueOf(2)));
+
+        store.flush(customer);
+
+        assertEquals(Map.of(code(0), 1, code(1), 2), storedLines(customer));
+        assertEquals(cartId, store.getCart(customer).getId());
+    }
+
+    private static User customer(String username) {
+        return context.getBean(UserRepository.class).save(new User("Write-behind " + username, "wb-" + username,
+            username + "@example.com", "x", "1 Cart Road", "0123456789"));
+    }
+
+    private static Long code(int index) {
+        return items.get(index).getItemCode();
+    }
+
+    private static BigDecimal price(int index) {
+        return items.get(index).getPrice();
+    }
+
+    private static CartItem line(Cart cart, Long itemCode) {
+        return cart.getCartItems().stream().filter(line -> line.getItem().getItemCode().equals(itemCode))
+            .findFirst().orElseThrow();
+    }
+
+    private static int count(String sql, User customer) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, customer.getAccountNumber());
+    }
+
+    private static Map<Long, Integer> storedLines(User customer) {
+        Map<Long, Integer> lines = new TreeMap<>();
+        jdbcTemplate.query("SELECT ci.item_code, ci.quantity FROM cart_items ci JOIN carts c ON c.id = ci.cart_id " +
+                           "WHERE c.customer_number = ?",
+            rs -> { lines.put(rs.getLong("item_code"), rs.getInt("quantity")); }, customer.getAccountNumber());
+        return lines;
+    }
+}
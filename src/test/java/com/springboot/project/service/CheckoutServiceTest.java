@@ -0,0 +1,137 @@
+package com.springboot.project.service;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import com.springboot.project.controller.api.ApiExceptionHandler;
+import com.springboot.project.controller.api.CartApiController;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.springboot.project.repository.ItemRepository;
+import com.springboot.project.repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.AopTestUtils;
+import com.springboot.project.ProjectApplication;
+import com.springboot.project.entity.Item;
+import com.springboot.project.entity.Bill;
+import com.springboot.project.entity.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CheckoutServiceTest {
+
+    private static ConfigurableApplicationContext context;
+    private static CheckoutService checkoutService;
+    private static JdbcTemplate jdbcTemplate;
+    private static Long itemCode;
+
+    @BeforeAll
+    static void start() throws Exception {
+        Path dir = Files.createTempDirectory("bookshop-checkout");
+        context = new SpringApplicationBuilder(ProjectApplication.class).web(WebApplicationType.NONE)
+            .run("--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                 "--spring.datasource.url=jdbc:sqlite:" + dir.resolve("checkout.db"),
+                 "--app.stock-journal.dir=" + dir.resolve("journal"), "--app.archive.dir=" + dir.resolve("archive"),
+                 "--app.checkout.purge-interval-ms=3600000");
+        checkoutService = context.getBean(CheckoutService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        itemCode = context.getBean(ItemRepository.class).findAll().stream()
+            .filter(item -> item.getStatus() == Item.ItemStatus.ACTIVE && item.getStockQuantity() >= 10)
+            .findFirst().orElseThrow().getItemCode();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void sameKeyTwiceReturnsOneBill() {
+        User customer = customerWithCart("twice");
+
+        Bill first = checkoutService.checkout(customer, "twice-1");
+        Bill replayed = checkoutService.checkout(customer, "twice-1");
+        assertEquals(first.getBillNumber(), replayed.getBillNumber());
+
+        // Without the in-process cache the replay is answered from checkout_requests
+        Map<?, ?> recent = (Map<?, ?>) ReflectionTestUtils.getField(AopTestUtils.<Object>getTargetObject(checkoutService), "recent");
+        synchronized (recent) {
+            recent.clear();
+        }
+        assertEquals(first.getBillNumber(), checkoutService.checkout(customer, "twice-1").getBillNumber());
+
+        assertEquals(List.of(first.getBillNumber()), billsOf(customer));
+    }
+
+    @Test
+    void anotherCustomersKeyIsRejected() {
+        User owner = customerWithCart("owner");
+        User other = customerWithCart("other");
+        checkoutService.checkout(owner, "shared-1");
+
+        BusinessException e = assertThrows(BusinessException.class, () -> checkoutService.checkout(other, "shared-1"));
+
+        assertEquals("Invalid checkout request key", e.getMessage());
+        assertEquals(List.of(), billsOf(other));
+    }
+
+    @Test
+    void keyStillBeingProcessedAnswersConflictWithRetryAfter() throws Exception {
+        User customer = customerWithCart("pending");
+        // Claimed by a checkout that has not recorded its bill yet
+        jdbcTemplate.update("INSERT INTO checkout_requests (request_key, customer_number, created_at) VALUES (?, ?, ?)",
+                            "pending-1", customer.getAccountNumber(), Timestamp.valueOf(LocalDateTime.now()));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(context.getBean(CartApiController.class))
+            .setControllerAdvice(new ApiExceptionHandler()).build();
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("user", customer);
+
+        mvc.perform(post("/api/v1/cart/checkout").header("Idempotency-Key", "pending-1").session(session))
+            .andExpect(status().isConflict())
+            .andExpect(header().string("Retry-After", "1"))
+            .andExpect(jsonPath("$.error").value(new CheckoutInProgressException().getMessage()));
+
+        assertEquals(List.of(), billsOf(customer));
+    }
+
+    @Test
+    void expiredKeysArePurged() {
+        User customer = customerWithCart("expired");
+        jdbcTemplate.update("INSERT INTO checkout_requests (request_key, customer_number, created_at) VALUES (?, ?, ?)",
+                            "expired-1", customer.getAccountNumber(), Timestamp.valueOf(LocalDateTime.now().minusDays(2)));
+        checkoutService.checkout(customer, "fresh-1");
+
+        checkoutService.purgeExpired();
+
+        assertEquals(List.of("fresh-1"), jdbcTemplate.queryForList(
+            "SELECT request_key FROM checkout_requests WHERE customer_number = ?", String.class, customer.getAccountNumber()));
+    }
+
+    private static User customerWithCart(String username) {
+        User customer = context.getBean(UserRepository.class).save(new User("Checkout " + username, "co-" + username,
+            username + "@example.com", "x", "1 Checkout Lane", "0123456789"));
+        context.getBean(CartService.class).addItemToCart(customer, itemCode, 1);
+        return customer;
+    }
+
+    private static List<Long> billsOf(User customer) {
+        return jdbcTemplate.queryForList("SELECT bill_number FROM bills WHERE customer_number = ?", Long.class,
+                                         customer.getAccountNumber());
+    }
+}
@@ -0,0 +1,104 @@
+package com.springboot.project.service;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import com.springboot.project.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.springboot.project.ProjectApplication;
+import com.springboot.project.entity.User;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MaintenanceSweeperTest {
+
+    private static final LocalDateTime OLD = LocalDateTime.now().minusDays(90);
+
+    @Test
+    void sweepsInChunksAndLeavesWhatIsStillInUse() throws Exception {
+        Path dir = Files.createTempDirectory("bookshop-sweep");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProjectApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                     "--spring.datasource.url=jdbc:sqlite:" + dir.resolve("sweep.db"),
+                     "--app.stock-journal.dir=" + dir.resolve("journal"), "--app.archive.dir=" + dir.resolve("archive"),
+                     "--app.cart.storage=memory", "--app.cart.flush-interval-ms=3600000",
+                     "--app.orders.confirmation.poll-interval-ms=3600000",
+                     "--app.maintenance.chunk-size=2", "--app.maintenance.pause-ms=0",
+                     "--app.maintenance.convert-auto-vacuum=true")) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            UserRepository userRepository = context.getBean(UserRepository.class);
+
+            // Five idle carts (three chunks), one of them held by the in-memory store, and one recent cart
+            List<User> customers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                User customer = userRepository.save(new User("Sweep " + i, "sweep" + i, "sweep" + i + "@example.com",
+                                                             "x", "1 Sweep Street", "0123456789"));
+                customers.add(customer);
+                if (i < 6) {
+                    cart(jdbcTemplate, customer, i < 5 ? OLD : LocalDateTime.now());
+                }
+            }
+            User resident = customers.get(4);
+            context.getBean(CartWriteBehindStore.class).getCart(resident);
+
+            // Stale drafts, one of them waiting on a queued confirmation, plus a recent draft and an old confirmed bill
+            long customerNumber = customers.get(6).getAccountNumber();
+            long[] stale = { bill(jdbcTemplate, customerNumber, "DRAFT", OLD), bill(jdbcTemplate, customerNumber, "DRAFT", OLD),
+                             bill(jdbcTemplate, customerNumber, "DRAFT", OLD) };
+            long queued = bill(jdbcTemplate, customerNumber, "DRAFT", OLD);
+            long recent = bill(jdbcTemplate, customerNumber, "DRAFT", LocalDateTime.now());
+            long confirmed = bill(jdbcTemplate, customerNumber, "CONFIRMED", OLD);
+            confirmation(jdbcTemplate, queued, "PENDING");
+            confirmation(jdbcTemplate, stale[0], "FAILED");
+            jdbcTemplate.update("INSERT INTO bill_items (bill_number, item_code, quantity, unit_price, total_price) " +
+                                "VALUES (?, 1, 1, 10, 10), (?, 1, 1, 10, 10)", stale[1], queued);
+
+            context.getBean(MaintenanceSweeper.class).sweep();
+
+            assertEquals(List.of(resident.getAccountNumber(), customers.get(5).getAccountNumber()),
+                         jdbcTemplate.queryForList("SELECT customer_number FROM carts ORDER BY customer_number", Long.class));
+            assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart_items", Integer.class));
+            assertEquals(List.of(queued, recent, confirmed),
+                         jdbcTemplate.queryForList("SELECT bill_number FROM bills ORDER BY bill_number", Long.class));
+            assertEquals(List.of(queued),
+                         jdbcTemplate.queryForList("SELECT bill_number FROM bill_items", Long.class));
+            assertEquals(List.of(queued),
+                         jdbcTemplate.queryForList("SELECT bill_number FROM order_confirmations", Long.class));
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertEquals(4.0, meterRegistry.counter("app.maintenance.deleted", "table", "carts").count());
+            assertEquals(3.0, meterRegistry.counter("app.maintenance.deleted", "table", "bills").count());
+            // The opt-in conversion took effect on the database file
+            assertEquals(2, jdbcTemplate.queryForObject("PRAGMA auto_vacuum", Integer.class));
+        }
+    }
+
+    // An idle cart with one line
+    private static void cart(JdbcTemplate jdbcTemplate, User customer, LocalDateTime updatedAt) {
+        Timestamp at = Timestamp.valueOf(updatedAt);
+        jdbcTemplate.update("INSERT INTO carts (customer_number, total_amount, item_count, created_at, updated_at, " +
+                            "version) VALUES (?, 10, 1, ?, ?, 0)", customer.getAccountNumber(), at, at);
+        jdbcTemplate.update("INSERT INTO cart_items (cart_id, item_code, quantity, unit_price, total_price) " +
+                            "SELECT id, 1, 1, 10, 10 FROM carts WHERE customer_number = ?", customer.getAccountNumber());
+    }
+
+    private static long bill(JdbcTemplate jdbcTemplate, long customerNumber, String status, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO bills (customer_number, total_amount, tax_amount, discount_amount, " +
+                            "final_amount, status, created_at, version) VALUES (?, 0, 0, 0, 0, ?, ?, 0)",
+                            customerNumber, status, Timestamp.valueOf(createdAt));
+        return jdbcTemplate.queryForObject("SELECT MAX(bill_number) FROM bills", Long.class);
+    }
+
+    private static void confirmation(JdbcTemplate jdbcTemplate, long billNumber, String status) {
+        jdbcTemplate.update("INSERT INTO order_confirmations (bill_number, status, requested_at) VALUES (?, ?, ?)",
+                            billNumber, status, Timestamp.valueOf(OLD));
+    }
+}
@@ -0,0 +1,119 @@
+package com.springboot.project.service;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import com.springboot.project.repository.ItemRepository;
+import com.springboot.project.repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.springboot.project.ProjectApplication;
+import com.springboot.project.entity.BillItem;
+import com.springboot.project.entity.Bill;
+import com.springboot.project.entity.Item;
+import com.springboot.project.entity.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// The multi-item path writes new lines with a JDBC batch rather than through Hibernate
+class OrderServiceBatchTest {
+
+    private static ConfigurableApplicationContext context;
+    private static OrderService orderService;
+    private static JdbcTemplate jdbcTemplate;
+    private static List<Item> items;
+
+    @BeforeAll
+    static void start() throws Exception {
+        Path dir = Files.createTempDirectory("bookshop-order-batch");
+        context = new SpringApplicationBuilder(ProjectApplication.class).web(WebApplicationType.NONE)
+            .run("--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                 "--spring.datasource.url=jdbc:sqlite:" + dir.resolve("orders.db"),
+                 "--app.stock-journal.dir=" + dir.resolve("journal"), "--app.archive.dir=" + dir.resolve("archive"));
+        orderService = context.getBean(OrderService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        items = context.getBean(ItemRepository.class).findAll().stream()
+            .filter(item -> item.getStatus() == Item.ItemStatus.ACTIVE && item.getStockQuantity() >= 10)
+            .limit(3).toList();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void returnedBillCarriesTheBatchedLines() {
+        Bill bill = orderService.createOrderWithItems(customer("batch").getAccountNumber(), Map.of(code(0), 2, code(1), 1));
+
+        Map<Long, Integer> expected = Map.of(code(0), 2, code(1), 1);
+        assertEquals(expected, lines(bill));
+        assertEquals(expected, storedLines(bill));
+        assertEquals(price(0).multiply(BigDecimal.valueOf(2)).add(price(1)), bill.getTotalAmount());
+
+        // One line grows in place, one is new
+        Bill updated = orderService.addItemsToOrder(bill.getBillNumber(), Map.of(code(1), 2, code(2), 3));
+
+        expected = Map.of(code(0), 2, code(1), 3, code(2), 3);
+        assertEquals(expected, lines(updated));
+        assertEquals(expected, storedLines(bill));
+        assertEquals(updated.getBillItems().stream().map(BillItem::getTotalPrice).reduce(BigDecimal.ZERO, BigDecimal::add),
+                     updated.getTotalAmount());
+    }
+
+    @Test
+    void insufficientStockWritesNothing() {
+        Bill bill = orderService.createOrderWithItems(customer("short").getAccountNumber(), Map.of(code(0), 1));
+        Item scarce = items.get(1);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(code(2), 1);
+        quantities.put(scarce.getItemCode(), scarce.getStockQuantity() + 1);
+
+        BusinessException e = assertThrows(BusinessException.class,
+            () -> orderService.addItemsToOrder(bill.getBillNumber(), quantities));
+
+        assertEquals("Insufficient stock for item: " + scarce.getName() + ". Available: " + scarce.getStockQuantity() +
+                     ", Requested: " + (scarce.getStockQuantity() + 1), e.getMessage());
+        assertEquals(Map.of(code(0), 1), storedLines(bill));
+        assertEquals(price(0), jdbcTemplate.queryForObject("SELECT total_amount FROM bills WHERE bill_number = ?",
+                                                           BigDecimal.class, bill.getBillNumber()).setScale(2));
+    }
+
+    private static User customer(String username) {
+        return context.getBean(UserRepository.class).save(new User("Batch " + username, "batch-" + username,
+            username + "@example.com", "x", "1 Order Road", "0123456789"));
+    }
+
+    private static Long code(int index) {
+        return items.get(index).getItemCode();
+    }
+
+    private static BigDecimal price(int index) {
+        return items.get(index).getPrice();
+    }
+
+    private static Map<Long, Integer> lines(Bill bill) {
+        Map<Long, Integer> lines = new TreeMap<>();
+        for (BillItem billItem : bill.getBillItems()) {
+            lines.put(billItem.getItem().getItemCode(), billItem.getQuantity());
+        }
+        return lines;
+    }
+
+    private static Map<Long, Integer> storedLines(Bill bill) {
+        Map<Long, Integer> lines = new TreeMap<>();
+        jdbcTemplate.query("SELECT item_code, quantity FROM bill_items WHERE bill_number = ?",
+                           rs -> { lines.put(rs.getLong(1), rs.getInt(2)); }, bill.getBillNumber());
+        return lines;
+    }
+}
@@ -0,0 +1,101 @@
+package com.springboot.project.service;
+
+import com.springboot.project.service.archive.ArchivedBill;
+import com.springboot.project.service.archive.BillArchive;
+import com.springboot.project.repository.BillRepository;
+import com.springboot.project.repository.ItemRepository;
+import com.springboot.project.repository.UserRepository;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.springboot.project.entity.BillItem;
+import com.springboot.project.entity.Bill;
+import com.springboot.project.entity.Item;
+import com.springboot.project.entity.User;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import java.time.LocalDateTime;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    @Mock
+    private BillRepository billRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private BillArchive billArchive;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    @Test
+    void mergesLiveAndArchivedOrdersNewestFirst() {
+        User customer = new User("Order Customer", "orders", "orders@example.com", "x", "1 Order Road", "0123456789");
+        customer.setAccountNumber(3L);
+        Bill recent = liveBill(customer, 40, NOW);
+        Bill stillLive = liveBill(customer, 20, NOW.minusDays(400));
+        when(billRepository.findByCustomerIdOrderByCreatedAtDesc(3L)).thenReturn(List.of(recent, stillLive));
+        // Bill 20 is in both tiers (an interrupted archive run) and the live copy wins
+        when(billArchive.findByCustomer(3L)).thenReturn(List.of(archived(30, NOW.minusDays(380), 7L),
+            archived(20, NOW.minusDays(400), 7L), archived(10, NOW.minusDays(500), 9L)));
+        when(userRepository.findAllById(any())).thenReturn(List.of(customer));
+        Item dune = new Item();
+        dune.setItemCode(7L);
+        dune.setName("Dune");
+        when(itemRepository.findAllById(any())).thenReturn(List.of(dune));
+
+        List<Bill> orders = orderService.getOrdersByCustomer(3L);
+
+        assertEquals(List.of(40L, 30L, 20L, 10L), orders.stream().map(Bill::getBillNumber).toList());
+        assertSame(recent, orders.get(0));
+        assertSame(stillLive, orders.get(2));
+        Bill archived = orders.get(1);
+        assertSame(customer, archived.getCustomer());
+        assertEquals(Bill.BillStatus.PAID, archived.getStatus());
+        assertEquals(new BigDecimal("13.75"), archived.getFinalAmount());
+        BillItem line = archived.getBillItems().get(0);
+        assertSame(dune, line.getItem());
+        assertEquals(2, line.getQuantity());
+        assertEquals(new BigDecimal("25.00"), line.getTotalPrice());
+        // An item deleted since archiving is stood in for by its archived name
+        assertEquals("Item 9", orders.get(3).getBillItems().get(0).getItem().getName());
+    }
+
+    @Test
+    void returnsLiveOrdersAsIsWhenNothingIsArchived() {
+        List<Bill> live = List.of(new Bill());
+        when(billRepository.findByCustomerIdOrderByCreatedAtDesc(3L)).thenReturn(live);
+        when(billArchive.findByCustomer(3L)).thenReturn(List.of());
+
+        assertSame(live, orderService.getOrdersByCustomer(3L));
+    }
+
+    private static Bill liveBill(User customer, long number, LocalDateTime createdAt) {
+        Bill bill = new Bill(customer);
+        bill.setBillNumber(number);
+        bill.setCreatedAt(createdAt);
+        return bill;
+    }
+
+    private static ArchivedBill archived(long number, LocalDateTime createdAt, long itemCode) {
+        return new ArchivedBill(number, 3, Bill.BillStatus.PAID, null, new BigDecimal("25.00"), BigDecimal.ZERO,
+            new BigDecimal("1.25"), new BigDecimal("13.75"), createdAt, createdAt.plusHours(1), 0, List.of(
+                new ArchivedBill.Line(number * 10, itemCode, "Item " + itemCode, 2, new BigDecimal("12.50"),
+                                      new BigDecimal("25.00"))));
+    }
+}
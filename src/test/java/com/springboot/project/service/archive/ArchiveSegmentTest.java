@@ -0,0 +1,148 @@
+package com.springboot.project.service.archive;
+
+import com.springboot.project.entity.Bill;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.math.BigDecimal;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveSegmentTest {
+
+    static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123_000_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesAndReadsBackEveryColumn() throws IOException {
+        ArchivedBill paid = new ArchivedBill(12, 3, Bill.BillStatus.PAID, "SAVE10", amount("40.00"), amount("4.00"),
+            amount("3.60"), amount("39.60"), START, START.plusMinutes(90), 3, List.of(
+                line(101, 1, "The Great Gatsby", 2, "15.00"), line(102, 7, "Dune", 1, "10.00")));
+        // Paid before it was created (clock skew), negative amounts, no coupon and an item without a name
+        ArchivedBill refunded = new ArchivedBill(5, 4, Bill.BillStatus.CONFIRMED, null, amount("-5.50"),
+            amount("0.00"), amount("-0.55"), amount("-6.05"), START.minusDays(2), START.minusDays(2).minusSeconds(1),
+            0, List.of(new ArchivedBill.Line(40, 7, null, -1, amount("5.50"), amount("-5.50"))));
+        // Amounts and line prices left null by older rows, never paid, and no lines at all
+        ArchivedBill cancelled = new ArchivedBill(7, 3, Bill.BillStatus.CANCELLED, "SAVE10", null, null, null, null,
+            START.plusDays(1), null, 1, List.of(new ArchivedBill.Line(50, 1, "The Great Gatsby", 1, null, null)));
+        ArchivedBill empty = new ArchivedBill(9, 5, Bill.BillStatus.CONFIRMED, null, amount("0.00"), null,
+            amount("0.00"), amount("0.00"), START, START, 0, List.of());
+
+        ArchiveSegment written = ArchiveSegment.write(dir.resolve("segment.bseg"),
+                                                      List.of(paid, refunded, cancelled, empty));
+        ArchiveSegment segment = ArchiveSegment.open(written.file());
+
+        assertEquals(4, segment.rows());
+        assertEquals(4, segment.lines());
+        assertEquals(5, segment.minBill());
+        assertEquals(12, segment.maxBill());
+        assertEquals(List.of(refunded, cancelled, empty, paid), segment.read((number, customer, created, status) -> true));
+        assertEquals(List.of(cancelled),
+                     segment.read((number, customer, created, status) -> status == Bill.BillStatus.CANCELLED));
+        assertEquals(List.of(), segment.read((number, customer, created, status) -> customer == 6));
+        assertFalse(Files.exists(dir.resolve("segment.bseg.tmp")));
+    }
+
+    @Test
+    void answersZoneMapAndKeyChecksWithoutDecodingTheRest() throws IOException {
+        ArchiveSegment segment = ArchiveSegment.write(dir.resolve("segment.bseg"),
+            List.of(bill(10, 3, START), bill(20, 5, START.plusDays(1)), bill(30, 9, START.plusDays(2))));
+
+        assertTrue(segment.mayContainBill(15));
+        assertFalse(segment.mayContainBill(31));
+        assertTrue(segment.containsBill(20));
+        assertFalse(segment.containsBill(15));
+        assertTrue(segment.mayContainCustomer(4));
+        assertFalse(segment.containsCustomer(4));
+        assertTrue(segment.containsCustomer(9));
+        assertFalse(segment.mayContainCustomer(10));
+        assertTrue(segment.overlaps(START.plusDays(2), null));
+        assertTrue(segment.overlaps(null, START.plusSeconds(1)));
+        // Creation times are a half-open range
+        assertFalse(segment.overlaps(null, START));
+        assertFalse(segment.overlaps(START.plusDays(2).plusSeconds(1), START.plusDays(3)));
+
+        // Key columns are cached once read, so a segment whose file has gone still rules bills in and out
+        Files.delete(segment.file());
+        assertTrue(segment.containsBill(30));
+        assertEquals(List.of(), segment.read((number, customer, created, status) -> number == 15));
+    }
+
+    @Test
+    void rejectsCorruptAndTruncatedSegments() throws IOException {
+        List<ArchivedBill> bills = List.of(bill(1, 3, START), bill(2, 3, START.plusHours(1)));
+        Path corrupt = ArchiveSegment.write(dir.resolve("corrupt.bseg"), bills).file();
+        flipLastByte(corrupt);
+        UncheckedIOException mismatch = assertThrows(UncheckedIOException.class,
+            () -> ArchiveSegment.open(corrupt).read((number, customer, created, status) -> true));
+        assertTrue(mismatch.getCause().getMessage().startsWith("Checksum mismatch"));
+
+        Path truncated = ArchiveSegment.write(dir.resolve("truncated.bseg"), bills).file();
+        ArchiveSegment opened = ArchiveSegment.open(truncated);
+        try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        UncheckedIOException cut = assertThrows(UncheckedIOException.class, () -> opened.containsBill(1));
+        assertTrue(cut.getCause().getMessage().startsWith("Truncated archive segment"));
+
+        try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(20);
+        }
+        assertThrows(IOException.class, () -> ArchiveSegment.open(truncated));
+
+        Path foreign = Files.write(dir.resolve("foreign.bseg"), new byte[400]);
+        IOException notSegment = assertThrows(IOException.class, () -> ArchiveSegment.open(foreign));
+        assertTrue(notSegment.getMessage().startsWith("Not an archive segment"));
+    }
+
+    @Test
+    void readsSegmentsLargerThanOneBlock() throws IOException {
+        List<ArchivedBill> bills = new ArrayList<>();
+        for (int i = 1; i <= 3000; i++) {
+            bills.add(bill(i * 2L, i % 17, START.plusMinutes(i)));
+        }
+        ArchiveSegment segment = ArchiveSegment.write(dir.resolve("segment.bseg"), bills);
+
+        assertEquals(bills, segment.read((number, customer, created, status) -> true));
+        assertEquals(List.of(bills.get(1499)), segment.read((number, customer, created, status) -> number == 3000));
+        assertTrue(Files.size(segment.file()) < 3000 * 16);
+    }
+
+    static ArchivedBill bill(long billNumber, long customerNumber, LocalDateTime createdAt) {
+        return new ArchivedBill(billNumber, customerNumber, Bill.BillStatus.PAID, null, amount("12.50"),
+            amount("0.00"), amount("1.25"), amount("13.75"), createdAt, createdAt.plusMinutes(5), 0,
+            List.of(line(billNumber * 10, 1 + billNumber % 5, "Item " + (1 + billNumber % 5), 1, "12.50")));
+    }
+
+    static ArchivedBill.Line line(long id, long itemCode, String name, int quantity, String unitPrice) {
+        BigDecimal price = amount(unitPrice);
+        return new ArchivedBill.Line(id, itemCode, name, quantity, price, price.multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    private static BigDecimal amount(String value) {
+        return new BigDecimal(value);
+    }
+
+    private static void flipLastByte(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 0x5A)).rewind();
+            channel.write(last, channel.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.springboot.project.service.archive;
+
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.springboot.project.entity.Bill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BillArchiveTest {
+
+    private static final LocalDateTime OLD = LocalDateTime.now().minusDays(100).withNano(0);
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE TABLE items (item_code BIGINT PRIMARY KEY, name VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE bills (bill_number BIGINT PRIMARY KEY, customer_number BIGINT, " +
+            "status VARCHAR(20), coupon_code VARCHAR(50), total_amount DECIMAL(10, 2), discount_amount DECIMAL(10, 2), " +
+            "tax_amount DECIMAL(10, 2), final_amount DECIMAL(10, 2), created_at TIMESTAMP, paid_at TIMESTAMP, " +
+            "version BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE bill_items (id BIGINT PRIMARY KEY, bill_number BIGINT, item_code BIGINT, " +
+            "quantity INT, unit_price DECIMAL(10, 2), total_price DECIMAL(10, 2))");
+        jdbcTemplate.execute("CREATE TABLE order_confirmations (id BIGINT PRIMARY KEY, bill_number BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE checkout_requests (request_key VARCHAR(64) PRIMARY KEY, bill_number BIGINT)");
+        jdbcTemplate.update("INSERT INTO items (item_code, name) VALUES (1, 'Dune'), (2, 'Emma')");
+    }
+
+    @Test
+    void movesOldFinishedBillsIntoSegmentsAndDeletesTheirRows() throws IOException {
+        bill(1, 3, Bill.BillStatus.CONFIRMED, OLD, 0);
+        bill(2, 4, Bill.BillStatus.PAID, OLD.plusHours(1), 0);
+        bill(3, 3, Bill.BillStatus.CANCELLED, OLD.plusHours(2), 2);
+        bill(4, 4, Bill.BillStatus.PAID, OLD.plusHours(3), 0);
+        bill(5, 3, Bill.BillStatus.CONFIRMED, OLD.plusHours(4), 0);
+        bill(6, 3, Bill.BillStatus.DRAFT, OLD, 0);
+        bill(7, 3, Bill.BillStatus.PAID, LocalDateTime.now().minusDays(1), 0);
+        jdbcTemplate.update("INSERT INTO order_confirmations (id, bill_number) VALUES (1, 1), (2, 6)");
+        jdbcTemplate.update("INSERT INTO checkout_requests (request_key, bill_number) VALUES ('a', 2), ('b', 7)");
+
+        BillArchive archive = archive();
+        assertEquals(5, archive.archive());
+
+        assertEquals(List.of(6L, 7L), jdbcTemplate.queryForList("SELECT bill_number FROM bills ORDER BY 1", Long.class));
+        assertEquals(List.of(6L, 6L, 7L, 7L),
+                     jdbcTemplate.queryForList("SELECT bill_number FROM bill_items ORDER BY 1", Long.class));
+        assertEquals(List.of(6L), jdbcTemplate.queryForList("SELECT bill_number FROM order_confirmations", Long.class));
+        assertEquals(List.of(7L), jdbcTemplate.queryForList("SELECT bill_number FROM checkout_requests", Long.class));
+        // Two bills per segment
+        assertEquals(3, segmentFiles().size());
+
+        ArchivedBill cancelled = archive.findByBillNumber(3).orElseThrow();
+        assertEquals(Bill.BillStatus.CANCELLED, cancelled.status());
+        assertEquals(2, cancelled.version());
+        assertEquals(OLD.plusHours(2), cancelled.createdAt());
+        assertEquals(List.of("Dune", "Emma"), cancelled.lines().stream().map(ArchivedBill.Line::itemName).toList());
+
+        // A restart finds the same bills in the segment files
+        BillArchive reloaded = archive();
+        assertEquals(List.of(5L, 3L, 1L), numbers(reloaded.findByCustomer(3)));
+        assertEquals(archive.findByBillNumber(4), reloaded.findByBillNumber(4));
+        assertTrue(reloaded.findByBillNumber(6).isEmpty());
+        assertEquals(0, reloaded.archive());
+    }
+
+    @Test
+    void deletesLeftoversOfAnInterruptedRunButKeepsBillsChangedSince() throws IOException {
+        bill(1, 3, Bill.BillStatus.PAID, OLD, 0);
+        bill(2, 3, Bill.BillStatus.PAID, OLD.plusHours(1), 0);
+        BillArchive archive = archive();
+        assertEquals(2, archive.archive());
+
+        // As if the segment had been moved into place but the delete never committed, and bill 2 was then changed
+        bill(1, 3, Bill.BillStatus.PAID, OLD, 0);
+        bill(2, 3, Bill.BillStatus.PAID, OLD.plusHours(1), 1);
+
+        assertEquals(0, archive.archive());
+        assertEquals(List.of(2L), jdbcTemplate.queryForList("SELECT bill_number FROM bills", Long.class));
+        assertEquals(1, segmentFiles().size());
+        assertEquals(0, archive.findByBillNumber(2).orElseThrow().version());
+    }
+
+    @Test
+    void pagesNewestFirstAcrossSegments() {
+        // Customers alternate, two bills per segment
+        for (long number = 1; number <= 9; number++) {
+            bill(number, 3 + number % 2, Bill.BillStatus.PAID, OLD.plusHours(number), 0);
+        }
+        BillArchive archive = archive();
+        assertEquals(9, archive.archive());
+
+        assertEquals(List.of(9L, 8L, 7L, 6L), numbers(archive.findPage(null, Long.MAX_VALUE, 4)));
+        assertEquals(List.of(5L, 4L, 3L, 2L), numbers(archive.findPage(null, 6, 4)));
+        assertEquals(List.of(1L), numbers(archive.findPage(null, 2, 4)));
+        assertEquals(List.of(9L, 7L, 5L), numbers(archive.findPage(4L, Long.MAX_VALUE, 3)));
+        assertEquals(List.of(3L, 1L), numbers(archive.findPage(4L, 5, 3)));
+        assertEquals(List.of(8L, 6L, 4L, 2L), numbers(archive.findPage(3L, 9, 10)));
+        assertEquals(List.of(), numbers(archive.findPage(5L, Long.MAX_VALUE, 10)));
+    }
+
+    @Test
+    void skipsSegmentsTheZoneMapRulesOut() throws IOException {
+        for (long number = 1; number <= 4; number++) {
+            bill(number, number <= 2 ? 3 : 4, Bill.BillStatus.PAID, OLD.plusDays(number * 10), 0);
+        }
+        assertEquals(4, archive().archive());
+        List<Path> files = segmentFiles();
+        // The first segment holds bills 1 and 2 for customer 3; damage its column data
+        try (FileChannel channel = FileChannel.open(files.get(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 }), channel.size() - 4);
+        }
+
+        BillArchive archive = archive();
+        assertEquals(3, archive.findByBillNumber(3).orElseThrow().billNumber());
+        assertEquals(List.of(4L, 3L), numbers(archive.findByCustomer(4)));
+        List<ArchivedBill> scanned = new ArrayList<>();
+        archive.scan(OLD.plusDays(25), null, EnumSet.of(Bill.BillStatus.PAID), scanned::addAll);
+        assertEquals(List.of(3L, 4L), numbers(scanned));
+
+        assertThrows(UncheckedIOException.class, () -> archive.findByBillNumber(1));
+    }
+
+    private BillArchive archive() {
+        BillArchive archive = new BillArchive();
+        ReflectionTestUtils.setField(archive, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(archive, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(archive, "directory", dir.toString());
+        ReflectionTestUtils.setField(archive, "ageDays", 30);
+        ReflectionTestUtils.setField(archive, "segmentRows", 2);
+        try {
+            archive.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return archive;
+    }
+
+    // A bill with one line of each item
+    private void bill(long number, long customer, Bill.BillStatus status, LocalDateTime createdAt, long version) {
+        jdbcTemplate.update("INSERT INTO bills (bill_number, customer_number, status, coupon_code, total_amount, " +
+            "discount_amount, tax_amount, final_amount, created_at, paid_at, version) " +
+            "VALUES (?, ?, ?, NULL, 30.00, 0.00, 3.00, 33.00, ?, ?, ?)", number, customer, status.name(),
+            Timestamp.valueOf(createdAt), status == Bill.BillStatus.CANCELLED ? null : Timestamp.valueOf(createdAt),
+            version);
+        jdbcTemplate.update("INSERT INTO bill_items (id, bill_number, item_code, quantity, unit_price, total_price) " +
+            "VALUES (?, ?, 1, 1, 10.00, 10.00), (?, ?, 2, 2, 10.00, 20.00)", number * 10, number, number * 10 + 1, number);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".bseg")).sorted().toList();
+        }
+    }
+
+    private static List<Long> numbers(List<ArchivedBill> bills) {
+        return bills.stream().map(ArchivedBill::billNumber).toList();
+    }
+}
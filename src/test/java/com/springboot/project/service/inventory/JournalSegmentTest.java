@@ -0,0 +1,123 @@
+package com.springboot.project.service.inventory;
+
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalSegmentTest {
+
+    private static final int HEADER_BYTES = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopensWithEveryAppendedRecord() throws IOException {
+        Path file = dir.resolve("stock-1.journal");
+        JournalSegment segment = JournalSegment.create(file, 11, bytesFor(8));
+        for (long sequence = 11; sequence <= 13; sequence++) {
+            assertTrue(segment.append(movement(sequence)));
+        }
+        segment.force();
+
+        JournalSegment reopened = JournalSegment.open(file, true);
+
+        assertEquals(11, reopened.firstSequence());
+        assertEquals(13, reopened.lastSequence());
+        assertEquals(List.of(movement(12), movement(13)), read(reopened, 11));
+    }
+
+    @Test
+    void stopsAtATornTailAndOverwritesIt() throws IOException {
+        Path file = dir.resolve("stock-1.journal");
+        JournalSegment segment = JournalSegment.create(file, 1, bytesFor(8));
+        for (long sequence = 1; sequence <= 4; sequence++) {
+            segment.append(movement(sequence));
+        }
+        segment.force();
+        // Record 3 torn while record 4 reached the disk: the segment ends at 2, and the orphaned record 4
+        // must not chain onto a new record 3 and come back on the next open
+        corrupt(file, HEADER_BYTES + 2 * JournalSegment.RECORD_BYTES + 20);
+
+        JournalSegment reopened = JournalSegment.open(file, true);
+        assertEquals(2, reopened.lastSequence());
+
+        assertTrue(reopened.append(movement(3)));
+        reopened.force();
+        assertEquals(List.of(movement(1), movement(2), movement(3)), read(JournalSegment.open(file, false), 0));
+    }
+
+    @Test
+    void recordOutOfSequenceEndsTheSegment() throws IOException {
+        Path file = dir.resolve("stock-1.journal");
+        JournalSegment segment = JournalSegment.create(file, 1, bytesFor(8));
+        segment.append(movement(1));
+        segment.append(movement(3));
+        segment.force();
+
+        assertEquals(1, JournalSegment.open(file, false).lastSequence());
+    }
+
+    @Test
+    void sealingCutsTheFileToItsRecords() throws IOException {
+        Path file = dir.resolve("stock-1.journal");
+        JournalSegment segment = JournalSegment.create(file, 1, bytesFor(8));
+        segment.append(movement(1));
+        segment.append(movement(2));
+
+        JournalSegment sealed = segment.seal();
+
+        assertEquals(HEADER_BYTES + 2 * JournalSegment.RECORD_BYTES, Files.size(file));
+        assertFalse(sealed.append(movement(3)));
+        assertEquals(2, sealed.lastSequence());
+        assertEquals(List.of(movement(1), movement(2)), read(sealed, 0));
+        assertEquals(List.of(movement(1), movement(2)), read(JournalSegment.open(file, false), 0));
+    }
+
+    @Test
+    void fullSegmentRefusesAppends() throws IOException {
+        JournalSegment segment = JournalSegment.create(dir.resolve("stock-1.journal"), 1, bytesFor(2));
+
+        assertTrue(segment.append(movement(1)));
+        assertTrue(segment.append(movement(2)));
+        assertFalse(segment.append(movement(3)));
+        assertEquals(2, segment.lastSequence());
+    }
+
+    static int bytesFor(int records) {
+        return HEADER_BYTES + records * JournalSegment.RECORD_BYTES;
+    }
+
+    static StockMovement movement(long sequence) {
+        return new StockMovement(sequence, LocalDateTime.of(2026, 1, 1, 12, 0).plusSeconds(sequence), 100 + sequence % 3,
+            (int) -sequence, (int) (50 - sequence), StockMovement.Type.SALE, 7000 + sequence);
+    }
+
+    static void corrupt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) ~value.get(0));
+            value.rewind();
+            channel.write(value, position);
+        }
+    }
+
+    private static List<StockMovement> read(JournalSegment segment, long afterSequence) {
+        List<StockMovement> movements = new ArrayList<>();
+        segment.forEach(afterSequence, movements::add);
+        return movements;
+    }
+}
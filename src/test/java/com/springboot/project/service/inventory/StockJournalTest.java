@@ -0,0 +1,252 @@
+package com.springboot.project.service.inventory;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.mockito.ArgumentCaptor;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.springboot.project.service.inventory.JournalSegmentTest.bytesFor;
+import static com.springboot.project.service.inventory.JournalSegmentTest.corrupt;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockJournalTest {
+
+    private static final String ITEMS = "SELECT item_code, stock_quantity FROM items";
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private Map<Long, Integer> items;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        items = new HashMap<>(Map.of(1L, 10, 2L, 20, 3L, 30));
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Long, Integer> item : items.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("item_code")).thenReturn(item.getKey());
+                when(rs.getInt("stock_quantity")).thenReturn(item.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(ITEMS), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void freshJournalTakesABaselineFromTheItemsTable() throws IOException {
+        StockJournal journal = open();
+        journal.start();
+
+        StockJournal.Snapshot baseline = journal.baseline().orElseThrow();
+        assertEquals(0, baseline.sequence());
+        assertEquals(items, baseline.stock());
+        assertEquals(items, journal.currentStock());
+    }
+
+    @Test
+    void rollsOverFullSegmentsAndReplaysThemOnReopen() throws IOException {
+        StockJournal journal = open();
+        journal.start();
+        for (int i = 0; i < 10; i++) {
+            move(journal, 1 + i % 3, -1);
+        }
+
+        List<Path> segments = files(".journal");
+        assertEquals(List.of(dir.resolve(segmentName(1)), dir.resolve(segmentName(5)), dir.resolve(segmentName(9))),
+                     segments);
+        // Segments the journal moved on from are cut back to their records
+        assertEquals(bytesFor(4), Files.size(segments.get(0)));
+        assertEquals(bytesFor(4), Files.size(segments.get(1)));
+
+        StockJournal reopened = open();
+        assertEquals(10, reopened.sequence());
+        assertEquals(Map.of(1L, 6, 2L, 17, 3L, 27), reopened.currentStock());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), sequences(reopened, 0));
+        assertEquals(List.of(8L, 9L, 10L), sequences(reopened, 7));
+
+        // Appends continue in the last segment after a reopen
+        move(reopened, 1, 5);
+        assertEquals(3, files(".journal").size());
+        assertEquals(Map.of(1L, 11, 2L, 17, 3L, 27), open().currentStock());
+    }
+
+    @Test
+    void startsANewSegmentAfterAGap() throws IOException {
+        StockJournal journal = open();
+        journal.start();
+        for (int i = 0; i < 6; i++) {
+            move(journal, 1, -1);
+        }
+        journal.snapshot();
+        // The segment holding 5 and 6 is lost; the snapshot still covers them
+        Files.delete(dir.resolve(segmentName(5)));
+
+        StockJournal reopened = open();
+        assertEquals(6, reopened.sequence());
+        assertEquals(4, reopened.currentStock().get(1L));
+
+        move(reopened, 2, -2);
+        assertTrue(Files.exists(dir.resolve(segmentName(7))));
+        assertEquals(bytesFor(4), Files.size(dir.resolve(segmentName(1))));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 7L), sequences(reopened, 0));
+
+        StockJournal again = open();
+        assertEquals(7, again.sequence());
+        assertEquals(Map.of(1L, 4, 2L, 18, 3L, 30), again.currentStock());
+    }
+
+    @Test
+    void fallsBackToAnOlderSnapshotWhenTheNewestIsCorrupt() throws IOException {
+        StockJournal journal = open();
+        journal.start();
+        move(journal, 1, -3);
+        journal.snapshot();
+        move(journal, 2, -5);
+        move(journal, 1, 4);
+        journal.snapshot();
+        Map<Long, Integer> expected = journal.currentStock();
+
+        corrupt(dir.resolve(snapshotName(3)), 30);
+        StockJournal reopened = open();
+
+        // Rolled forward from the snapshot at 1 through the journal
+        assertEquals(expected, reopened.currentStock());
+        assertEquals(3, reopened.sequence());
+
+        // An unreadable baseline gives way to the next oldest snapshot
+        corrupt(dir.resolve(snapshotName(0)), 30);
+        assertEquals(1, reopened.baseline().orElseThrow().sequence());
+        assertEquals(Map.of(1L, 7, 2L, 20, 3L, 30), reopened.baseline().orElseThrow().stock());
+    }
+
+    @Test
+    void keepsTheBaselineAndTheNewestSnapshots() throws IOException {
+        StockJournal journal = open();
+        journal.start();
+        for (int i = 0; i < 5; i++) {
+            move(journal, 3, 1);
+            journal.snapshot();
+        }
+        // Nothing new since the last one: no snapshot is written
+        journal.snapshot();
+
+        assertEquals(List.of(dir.resolve(snapshotName(0)), dir.resolve(snapshotName(4)), dir.resolve(snapshotName(5))),
+                     files(".snapshot"));
+        assertEquals(0, journal.baseline().orElseThrow().sequence());
+        assertEquals(35, open().currentStock().get(3L));
+    }
+
+    @Test
+    void journalsMovementsBeforeCommitAndCancelsThemOnRollback() throws IOException {
+        StockJournal journal = open();
+        journal.start();
+
+        // A committed restock stays; a sale whose transaction rolls back at commit is cancelled
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> move(journal, 1, 5));
+        inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK, () -> journal.onStockMoved(
+            new StockMovedEvent(2L, -3, 17, StockMovement.Type.SALE, 42L)));
+
+        assertEquals(Map.of(1L, 15, 2L, 20, 3L, 30), journal.currentStock());
+        List<StockMovement> movements = new ArrayList<>();
+        open().read(0, movements::add);
+        assertEquals(List.of(5, -3, 3), movements.stream().map(StockMovement::delta).toList());
+        assertEquals(StockMovement.Type.SALE, movements.get(2).type());
+        assertEquals(42L, movements.get(2).reference());
+        assertEquals(20, movements.get(2).quantity());
+    }
+
+    @Test
+    void rebuildWritesBackOnlyItemsThatDiffer() throws IOException {
+        StockJournal journal = open();
+        journal.start();
+        move(journal, 1, -4);
+        move(journal, 2, 5);
+        // Item 2's stored quantity already matches; item 3 was changed behind the journal's back
+        items.put(2L, 25);
+        items.put(3L, 99);
+
+        assertEquals(2, journal.rebuildStock());
+
+        List<List<Object>> updates = capturedUpdates();
+        assertEquals(2, updates.size());
+        assertTrue(updates.contains(List.of(6, 6, 1L)));
+        assertTrue(updates.contains(List.of(30, 30, 3L)));
+    }
+
+    private StockJournal open() throws IOException {
+        StockJournal journal = new StockJournal();
+        ReflectionTestUtils.setField(journal, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(journal, "directory", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentBytes", bytesFor(4));
+        journal.open();
+        return journal;
+    }
+
+    private static void move(StockJournal journal, long itemCode, int delta) {
+        journal.onStockMoved(new StockMovedEvent(itemCode, delta, 0, StockMovement.Type.ADJUSTMENT, null));
+    }
+
+    // Publish inside a transaction and run it through the before- and after-completion callbacks
+    private static void inTransaction(int outcome, Runnable publish) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            publish.run();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::beforeCompletion);
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(outcome));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static List<Long> sequences(StockJournal journal, long afterSequence) {
+        List<Long> sequences = new ArrayList<>();
+        journal.read(afterSequence, movement -> sequences.add(movement.sequence()));
+        return sequences;
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object>> capturedUpdates() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(StockJournal.SET_STOCK + "WHERE item_code = ?"), captor.capture());
+        return captor.getValue().stream().map(List::of).toList();
+    }
+
+    private static String segmentName(long firstSequence) {
+        return String.format("stock-%016d.journal", firstSequence);
+    }
+
+    private static String snapshotName(long sequence) {
+        return String.format("stock-%016d.snapshot", sequence);
+    }
+}
@@ -0,0 +1,233 @@
+package com.springboot.project.service.inventory;
+
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.springboot.project.service.ranking.StockChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.springboot.project.service.archive.ArchivedBill;
+import com.springboot.project.service.archive.BillArchive;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.springboot.project.entity.Bill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class StockReconciliationTest {
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private StockJournal stockJournal;
+    private BillArchive billArchive;
+    private ApplicationEventPublisher eventPublisher;
+    private StockReconciliation reconciliation;
+    private long nextBill = 1;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE items (item_code BIGINT PRIMARY KEY, name VARCHAR(100), " +
+            "status VARCHAR(20), stock_quantity INT, version BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE bills (bill_number BIGINT PRIMARY KEY, status VARCHAR(20), paid_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE bill_items (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, bill_number BIGINT, " +
+            "item_code BIGINT, quantity INT)");
+        item(1, 10);
+        item(2, 20);
+        item(3, 30);
+        item(4, 40);
+
+        stockJournal = new StockJournal();
+        ReflectionTestUtils.setField(stockJournal, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(stockJournal, "directory", dir.resolve("journal").toString());
+        ReflectionTestUtils.setField(stockJournal, "segmentBytes", JournalSegmentTest.bytesFor(16));
+        stockJournal.open();
+
+        billArchive = mock(BillArchive.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        reconciliation = new StockReconciliation();
+        ReflectionTestUtils.setField(reconciliation, "dataSource", dataSource);
+        ReflectionTestUtils.setField(reconciliation, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(reconciliation, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(reconciliation, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(reconciliation, "stockJournal", stockJournal);
+        ReflectionTestUtils.setField(reconciliation, "billArchive", billArchive);
+        ReflectionTestUtils.setField(reconciliation, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(reconciliation, "fetchSize", 100);
+        ReflectionTestUtils.setField(reconciliation, "directory", dir.resolve("reports").toString());
+        ReflectionTestUtils.setField(reconciliation, "parallelism", 2);
+        // Small ranges so the items are split across several tasks
+        ReflectionTestUtils.setField(reconciliation, "partitionItems", 2);
+        ReflectionTestUtils.setField(reconciliation, "pauseMs", 0L);
+        reconciliation.init();
+    }
+
+    @Test
+    void failsWithoutABaseline() {
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> reconciliation.reconcile(false));
+
+        assertEquals("Stock journal has no baseline snapshot yet", error.getMessage());
+    }
+
+    @Test
+    void reportsItemsThatDisagreeWithBaselineMovementsAndSales() throws Exception {
+        stockJournal.start();
+        LocalDateTime after = LocalDateTime.now().plusHours(1);
+        // Item 1: restocked by 5 and sold 3 live and 2 archived, so 10 + 5 - 5 = 10 is expected but 12 is stored
+        move(1, 5, StockMovement.Type.RESTOCK);
+        move(1, -3, StockMovement.Type.SALE);
+        bill(Bill.BillStatus.CONFIRMED, after, 1, 3);
+        // Item 2: adjusted down 4 and sold 6 on a paid bill, stored as 10 as expected
+        move(2, -4, StockMovement.Type.ADJUSTMENT);
+        bill(Bill.BillStatus.PAID, after, 2, 6);
+        // Bills paid before the baseline and bills never confirmed are not sales since it
+        bill(Bill.BillStatus.CONFIRMED, LocalDateTime.now().minusDays(1), 3, 7);
+        bill(Bill.BillStatus.DRAFT, after, 3, 9);
+        // Item 4 oversold through the archive: expected -5, reported but never corrected
+        archive(List.of(archived(Bill.BillStatus.CONFIRMED, after, 1, 2),
+                        archived(Bill.BillStatus.PAID, after, 4, 45),
+                        archived(Bill.BillStatus.CONFIRMED, LocalDateTime.now().minusDays(1), 3, 100)));
+        stock(1, 12);
+        stock(2, 10);
+        stock(3, 25);
+
+        StockReconciliation.Result result = reconciliation.reconcile(false);
+
+        assertEquals(4, result.items());
+        assertEquals(0, result.skipped());
+        Map<Long, StockReconciliation.Discrepancy> found = byItem(result);
+        assertEquals(Set.of(1L, 3L, 4L), found.keySet());
+        assertEquals(new StockReconciliation.Discrepancy(1, "Item 1", 10, 5, 5, 12), found.get(1L));
+        assertEquals(10, found.get(1L).expected());
+        assertEquals(2, found.get(1L).difference());
+        assertEquals(new StockReconciliation.Discrepancy(3, "Item 3", 30, 0, 0, 25), found.get(3L));
+        assertEquals(-5, found.get(4L).expected());
+        assertEquals(45, found.get(4L).difference());
+        assertEquals(Set.of(), result.corrected());
+        assertEquals(12, stock(1));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+
+        List<String> report = Files.readAllLines(result.report());
+        assertEquals("item_code,name,baseline,adjustments,sold,expected,actual,difference,corrected", report.get(0));
+        assertTrue(report.contains("1,Item 1,10,5,5,10,12,2,false"));
+        assertEquals(4, report.size());
+    }
+
+    @Test
+    void correctsStockThatIsStillWhatWasCounted() {
+        stockJournal.start();
+        LocalDateTime after = LocalDateTime.now().plusHours(1);
+        bill(Bill.BillStatus.CONFIRMED, after, 1, 10);
+        bill(Bill.BillStatus.CONFIRMED, after, 2, 50);
+        stock(3, 31);
+
+        StockReconciliation.Result result = reconciliation.reconcile(true);
+
+        // Item 1 sold out and is set to 0; item 2 would go negative and is left alone
+        assertEquals(Set.of(1L, 2L, 3L), byItem(result).keySet());
+        assertEquals(Set.of(1L, 3L), result.corrected());
+        assertEquals(0, stock(1));
+        assertEquals("OUT_OF_STOCK",
+                     jdbcTemplate.queryForObject("SELECT status FROM items WHERE item_code = 1", String.class));
+        assertEquals(20, stock(2));
+        assertEquals(30, stock(3));
+        verify(eventPublisher).publishEvent(new StockChangedEvent(1L, "Item 1", 0, true));
+        verify(eventPublisher).publishEvent(new StockChangedEvent(3L, "Item 3", 30, true));
+        // Corrections bring the table back to the journal's account and are not journalled themselves
+        assertEquals(0, stockJournal.sequence());
+        assertEquals(Set.of(2L), byItem(reconciliation.reconcile(false)).keySet());
+    }
+
+    @Test
+    void skipsItemsThatMoveWhileTheJobRuns() {
+        stockJournal.start();
+        stock(1, 99);
+        stock(2, 98);
+        // Item 2 is restocked while the archive is scanned, after the job noted the journal's position
+        doAnswer(invocation -> {
+            jdbcTemplate.update("UPDATE items SET stock_quantity = stock_quantity + 1 WHERE item_code = 2");
+            move(2, 1, StockMovement.Type.RESTOCK);
+            return null;
+        }).when(billArchive).scan(any(), any(), any(), any());
+
+        StockReconciliation.Result result = reconciliation.reconcile(true);
+
+        assertEquals(4, result.items());
+        assertEquals(1, result.skipped());
+        assertEquals(Set.of(1L), byItem(result).keySet());
+        assertEquals(Set.of(1L), result.corrected());
+        assertEquals(10, stock(1));
+        assertEquals(99, stock(2));
+    }
+
+    private void item(long itemCode, int stock) {
+        jdbcTemplate.update("INSERT INTO items (item_code, name, status, stock_quantity, version) VALUES (?, ?, 'ACTIVE', ?, 0)",
+                            itemCode, "Item " + itemCode, stock);
+    }
+
+    private void stock(long itemCode, int stock) {
+        jdbcTemplate.update("UPDATE items SET stock_quantity = ? WHERE item_code = ?", stock, itemCode);
+    }
+
+    private int stock(long itemCode) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM items WHERE item_code = ?", Integer.class, itemCode);
+    }
+
+    private void move(long itemCode, int delta, StockMovement.Type type) {
+        stockJournal.onStockMoved(new StockMovedEvent(itemCode, delta, 0, type, null));
+    }
+
+    private void bill(Bill.BillStatus status, LocalDateTime paidAt, long itemCode, int quantity) {
+        long billNumber = nextBill++;
+        jdbcTemplate.update("INSERT INTO bills (bill_number, status, paid_at) VALUES (?, ?, ?)",
+                            billNumber, status.name(), Timestamp.valueOf(paidAt));
+        jdbcTemplate.update("INSERT INTO bill_items (bill_number, item_code, quantity) VALUES (?, ?, ?)",
+                            billNumber, itemCode, quantity);
+    }
+
+    private ArchivedBill archived(Bill.BillStatus status, LocalDateTime paidAt, long itemCode, int quantity) {
+        long billNumber = nextBill++;
+        BigDecimal price = BigDecimal.ONE;
+        return new ArchivedBill(billNumber, 3, status, null, price, BigDecimal.ZERO, BigDecimal.ZERO, price,
+            paidAt.minusMinutes(5), paidAt, 0, List.of(new ArchivedBill.Line(billNumber, itemCode, "Item " + itemCode,
+            quantity, price, price)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void archive(List<ArchivedBill> bills) {
+        doAnswer(invocation -> {
+            ((Consumer<List<ArchivedBill>>) invocation.getArgument(3)).accept(bills);
+            return null;
+        }).when(billArchive).scan(any(), any(), any(), any());
+    }
+
+    private static Map<Long, StockReconciliation.Discrepancy> byItem(StockReconciliation.Result result) {
+        return result.discrepancies().stream()
+            .collect(Collectors.toMap(StockReconciliation.Discrepancy::itemCode, discrepancy -> discrepancy));
+    }
+}
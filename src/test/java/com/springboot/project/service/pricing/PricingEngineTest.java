@@ -0,0 +1,74 @@
+package com.springboot.project.service.pricing;
+
+import com.springboot.project.repository.PromotionRepository;
+import com.springboot.project.repository.TaxRuleRepository;
+import com.springboot.project.repository.CouponRepository;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.springboot.project.entity.Promotion;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.springboot.project.service.pricing.PricingPlanTest.assertBreakdown;
+import static com.springboot.project.service.pricing.PricingPlanTest.line;
+import static com.springboot.project.service.pricing.PricingPlanTest.tax;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PricingEngineTest {
+
+    @Mock
+    private TaxRuleRepository taxRuleRepository;
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @InjectMocks
+    private PricingEngine pricingEngine;
+
+    @InjectMocks
+    private PricingRuleService pricingRuleService;
+
+    @Test
+    void swapsInANewPlanWhenRulesChange() {
+        when(taxRuleRepository.findByActiveTrue()).thenReturn(List.of(tax(null, "0.10")));
+        when(promotionRepository.findByActiveTrue()).thenReturn(List.of());
+        when(couponRepository.findByActiveTrue()).thenReturn(List.of());
+        pricingEngine.reload();
+        PricingPlan before = pricingEngine.getPlan();
+        List<PricingLine> lines = List.of(line(1L, null, 2, "10.00"));
+        assertBreakdown(pricingEngine.price(lines, null), "20.00", "0.00", "2.00", "22.00");
+
+        when(taxRuleRepository.findByActiveTrue()).thenReturn(List.of(tax(null, "0.20")));
+        pricingEngine.onRulesChanged(new PricingRulesChangedEvent());
+
+        assertNotSame(before, pricingEngine.getPlan());
+        assertBreakdown(pricingEngine.price(lines, null), "20.00", "0.00", "4.00", "24.00");
+        assertBreakdown(pricingEngine.priceSubtotal(new BigDecimal("20.00"), null), "20.00", "0.00", "4.00", "24.00");
+        // A plan already handed out keeps pricing with the rules it was compiled from
+        assertBreakdown(before.price(lines, null), "20.00", "0.00", "2.00", "22.00");
+    }
+
+    @Test
+    void rejectsPromotionWithoutType() {
+        Promotion promotion = new Promotion();
+        promotion.setName("Untyped");
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> pricingRuleService.savePromotion(promotion));
+
+        assertEquals("Promotion type is required", error.getMessage());
+        verify(promotionRepository, never()).save(any());
+    }
+}
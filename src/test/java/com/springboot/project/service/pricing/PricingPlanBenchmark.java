@@ -0,0 +1,83 @@
+package com.springboot.project.service.pricing;
+
+import com.springboot.project.entity.Promotion.PromotionType;
+import com.springboot.project.entity.Promotion;
+import com.springboot.project.entity.TaxRule;
+import com.springboot.project.entity.Coupon;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Prices a 200-line cart against 50 active promotions, a category tax rule and a coupon
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PricingPlanBenchmark {
+
+    static final int LINES = 200;
+    static final int PROMOTIONS = 50;
+    static final String[] CATEGORIES = {"Fiction", "Classics", "Children", "Science", "History"};
+
+    private PricingPlan plan;
+    private List<PricingLine> lines;
+
+    @Setup
+    public void setUp() {
+        List<Promotion> promotions = new ArrayList<>();
+        for (int i = 0; i < PROMOTIONS; i++) {
+            Promotion promotion = new Promotion();
+            promotion.setName("Promotion " + i);
+            promotion.setActive(true);
+            switch (i % 3) {
+                case 0 -> {
+                    promotion.setType(PromotionType.PERCENT_OFF);
+                    promotion.setItemCode((long) (i * 4 + 1));
+                    promotion.setPercentOff(new BigDecimal("0.15"));
+                }
+                case 1 -> {
+                    promotion.setType(PromotionType.BUY_X_GET_Y);
+                    promotion.setItemCode((long) (i * 4 + 2));
+                    promotion.setBuyQuantity(2);
+                    promotion.setFreeQuantity(1);
+                }
+                default -> {
+                    promotion.setType(PromotionType.CATEGORY_BUNDLE);
+                    promotion.setCategory(CATEGORIES[i % CATEGORIES.length]);
+                    promotion.setBundleQuantity(3 + i % 4);
+                    promotion.setPercentOff(new BigDecimal("0.05"));
+                }
+            }
+            promotions.add(promotion);
+        }
+
+        TaxRule defaultTax = new TaxRule();
+        defaultTax.setName("Default");
+        defaultTax.setRate(new BigDecimal("0.10"));
+        defaultTax.setActive(true);
+        TaxRule childrenTax = new TaxRule();
+        childrenTax.setName("Children's books");
+        childrenTax.setCategory("Children");
+        childrenTax.setRate(new BigDecimal("0.05"));
+        childrenTax.setActive(true);
+
+        Coupon coupon = new Coupon();
+        coupon.setCode("SALE10");
+        coupon.setPercentOff(new BigDecimal("0.10"));
+        coupon.setActive(true);
+
+        plan = PricingPlan.compile(List.of(defaultTax, childrenTax), promotions, List.of(coupon));
+
+        lines = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            lines.add(new PricingLine((long) (i + 1), CATEGORIES[i % CATEGORIES.length],
+                1 + i % 5, new BigDecimal("9.99").add(BigDecimal.valueOf(i % 20))));
+        }
+    }
+
+    @Benchmark
+    public PriceBreakdown priceCart() {
+        return plan.price(lines, "SALE10");
+    }
+}
@@ -0,0 +1,35 @@
+package com.springboot.project.service.pricing;
+
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.junit.jupiter.api.Test;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PricingPlanBenchmarkTest {
+
+    private static final double BUDGET_MICROS = 1000.0;
+
+    @Test
+    void pricesLargeCartWithinBudget() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+            .include(PricingPlanBenchmark.class.getSimpleName())
+            .forks(0)
+            .warmupIterations(3)
+            .warmupTime(TimeValue.milliseconds(200))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.milliseconds(200))
+            .build()).run();
+
+        assertFalse(results.isEmpty());
+        for (RunResult result : results) {
+            double micros = result.getPrimaryResult().getScore();
+            assertTrue(micros < BUDGET_MICROS,
+                "Pricing a " + PricingPlanBenchmark.LINES + "-line cart took " + micros + " us");
+        }
+    }
+}
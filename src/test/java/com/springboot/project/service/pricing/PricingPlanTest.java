@@ -0,0 +1,175 @@
+package com.springboot.project.service.pricing;
+
+import com.springboot.project.entity.Promotion;
+import com.springboot.project.entity.TaxRule;
+import com.springboot.project.entity.Coupon;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PricingPlanTest {
+
+    @Test
+    void appliesCategoryTaxAndFallsBackToDefaultRate() {
+        PricingPlan plan = PricingPlan.compile(
+            List.of(tax(null, "0.08"), tax("Fiction", "0.05"), inactive(tax("Poetry", "0.50"))), List.of(), List.of());
+
+        PriceBreakdown price = plan.price(List.of(
+            line(1L, "fiction", 2, "10.00"),
+            line(2L, null, 1, "5.00"),
+            line(3L, "poetry", 1, "10.00")), null);
+
+        // 20.00 * 0.05 + 5.00 * 0.08 + 10.00 * 0.08 (the poetry rule is inactive)
+        assertBreakdown(price, "35.00", "0.00", "2.20", "37.20");
+    }
+
+    @Test
+    void usesBuiltInRateWithoutTaxRules() {
+        PriceBreakdown price = PricingPlan.empty().price(List.of(line(1L, null, 1, "20.00")), null);
+
+        assertBreakdown(price, "20.00", "0.00", "2.00", "22.00");
+    }
+
+    @Test
+    void promotionsDoNotStackAndTheBestOneWins() {
+        PricingPlan plan = PricingPlan.compile(List.of(), List.of(
+            percentOff(1L, null, "0.10"),
+            percentOff(null, "fiction", "0.25"),
+            percentOff(null, null, "0.05")), List.of());
+
+        PriceBreakdown price = plan.price(List.of(line(1L, "fiction", 2, "10.00")), null);
+
+        // Only the 25% category promotion applies; tax is on the discounted line
+        assertBreakdown(price, "20.00", "5.00", "1.50", "16.50");
+    }
+
+    @Test
+    void pricesBuyXGetYAndCategoryBundles() {
+        Promotion buyTwoGetOne = promotion(Promotion.PromotionType.BUY_X_GET_Y, 3L, null);
+        buyTwoGetOne.setBuyQuantity(2);
+        buyTwoGetOne.setFreeQuantity(1);
+        Promotion kidsBundle = promotion(Promotion.PromotionType.CATEGORY_BUNDLE, null, "kids");
+        kidsBundle.setBundleQuantity(3);
+        kidsBundle.setPercentOff(new BigDecimal("0.20"));
+        PricingPlan plan = PricingPlan.compile(List.of(tax(null, "0")), List.of(buyTwoGetOne, kidsBundle), List.of());
+
+        PriceBreakdown bundled = plan.price(List.of(
+            line(3L, null, 3, "4.00"),
+            line(4L, "kids", 2, "10.00"),
+            line(5L, "kids", 1, "5.00")), null);
+        // One free unit of item 3, and 20% off both kids lines once three kids units are in the order
+        assertBreakdown(bundled, "37.00", "9.00", "0.00", "28.00");
+
+        PriceBreakdown tooFew = plan.price(List.of(line(3L, null, 2, "4.00"), line(4L, "kids", 2, "10.00")), null);
+        assertBreakdown(tooFew, "28.00", "0.00", "0.00", "28.00");
+    }
+
+    @Test
+    void couponAppliesAfterPromotionsAndRemovingItRestoresThePrice() {
+        Coupon save10 = coupon("save10", "0.10", null);
+        save10.setMinimumSubtotal(new BigDecimal("50.00"));
+        PricingPlan plan = PricingPlan.compile(List.of(), List.of(percentOff(null, null, "0.20")), List.of(save10));
+        List<PricingLine> lines = List.of(line(1L, null, 1, "75.00"));
+
+        // 75.00 - 15.00 promotion = 60.00; the coupon takes 6.00 and tax shrinks in proportion
+        assertBreakdown(plan.price(lines, " Save10 "), "75.00", "21.00", "5.40", "59.40");
+        assertBreakdown(plan.price(lines, null), "75.00", "15.00", "6.00", "66.00");
+        assertBreakdown(plan.price(lines, "UNKNOWN"), "75.00", "15.00", "6.00", "66.00");
+
+        // Below the minimum once the promotion is taken off
+        assertBreakdown(plan.price(List.of(line(1L, null, 1, "60.00")), "SAVE10"), "60.00", "12.00", "4.80", "52.80");
+        assertTrue(plan.hasCoupon("save10"));
+        assertFalse(plan.hasCoupon("save20"));
+    }
+
+    @Test
+    void amountOffCouponNeverExceedsTheOrder() {
+        PricingPlan plan = PricingPlan.compile(List.of(), List.of(), List.of(coupon("FIVE", null, "5.00")));
+
+        assertBreakdown(plan.price(List.of(line(1L, null, 1, "3.00")), "FIVE"), "3.00", "3.00", "0.00", "0.00");
+    }
+
+    @Test
+    void roundsEachComponentHalfUpToCents() {
+        PricingPlan plan = PricingPlan.compile(List.of(), List.of(percentOff(null, null, "0.15")), List.of());
+
+        // 0.005 of tax rounds up to a cent
+        assertBreakdown(PricingPlan.empty().price(List.of(line(1L, null, 1, "0.05")), null), "0.05", "0.00", "0.01", "0.06");
+        // 1.4985 discount and 0.84915 tax; the total is built from the rounded parts
+        assertBreakdown(plan.price(List.of(line(1L, null, 3, "3.33")), null), "9.99", "1.50", "0.85", "9.34");
+    }
+
+    @Test
+    void subtotalPricingMatchesLinePricingForSubtotalOnlyPlans() {
+        PricingPlan plan = PricingPlan.compile(List.of(tax(null, "0.07")), List.of(), List.of(coupon("TEN", "0.10", null)));
+        List<PricingLine> lines = List.of(line(1L, "fiction", 2, "12.50"), line(2L, null, 3, "7.99"));
+
+        assertTrue(plan.isSubtotalOnly());
+        assertEquals(plan.price(lines, "TEN"), plan.priceSubtotal(new BigDecimal("48.97"), "TEN"));
+        assertFalse(PricingPlan.compile(List.of(), List.of(percentOff(1L, null, "0.10")), List.of()).isSubtotalOnly());
+    }
+
+    @Test
+    void skipsInactiveAndIncompletePromotions() {
+        Promotion untyped = percentOff(1L, null, "0.50");
+        untyped.setType(null);
+        PricingPlan plan = PricingPlan.compile(List.of(),
+            List.of(untyped, inactive(percentOff(1L, null, "0.50")), percentOff(1L, null, null)), List.of());
+
+        assertTrue(plan.isSubtotalOnly());
+        assertBreakdown(plan.price(List.of(line(1L, null, 1, "10.00")), null), "10.00", "0.00", "1.00", "11.00");
+    }
+
+    static PricingLine line(Long itemCode, String category, int quantity, String unitPrice) {
+        return new PricingLine(itemCode, category, quantity, new BigDecimal(unitPrice));
+    }
+
+    static TaxRule tax(String category, String rate) {
+        TaxRule rule = new TaxRule();
+        rule.setName("Tax " + category);
+        rule.setCategory(category);
+        rule.setRate(new BigDecimal(rate));
+        return rule;
+    }
+
+    private static Promotion percentOff(Long itemCode, String category, String percentOff) {
+        Promotion promotion = promotion(Promotion.PromotionType.PERCENT_OFF, itemCode, category);
+        promotion.setPercentOff(percentOff != null ? new BigDecimal(percentOff) : null);
+        return promotion;
+    }
+
+    private static Promotion promotion(Promotion.PromotionType type, Long itemCode, String category) {
+        Promotion promotion = new Promotion();
+        promotion.setName(type + " promotion");
+        promotion.setType(type);
+        promotion.setItemCode(itemCode);
+        promotion.setCategory(category);
+        return promotion;
+    }
+
+    private static Coupon coupon(String code, String percentOff, String amountOff) {
+        Coupon coupon = new Coupon();
+        coupon.setCode(code);
+        coupon.setPercentOff(percentOff != null ? new BigDecimal(percentOff) : null);
+        coupon.setAmountOff(amountOff != null ? new BigDecimal(amountOff) : null);
+        return coupon;
+    }
+
+    private static <T> T inactive(T rule) {
+        if (rule instanceof TaxRule taxRule) {
+            taxRule.setActive(false);
+        } else if (rule instanceof Promotion promotion) {
+            promotion.setActive(false);
+        }
+        return rule;
+    }
+
+    static void assertBreakdown(PriceBreakdown price, String subtotal, String discount, String tax, String total) {
+        assertEquals(new PriceBreakdown(new BigDecimal(subtotal), new BigDecimal(discount), new BigDecimal(tax),
+            new BigDecimal(total)), price);
+    }
+}
@@ -0,0 +1,82 @@
+package com.springboot.project.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CoPurchaseIndexTest {
+
+    @Test
+    void countsEachPairOfDistinctItemsBothWays() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        index.addBill(new long[] {1, 2, 3});
+        index.addBill(new long[] {1, 2});
+        index.addBill(new long[] {4});
+
+        assertEquals(2, index.count(1, 2));
+        assertEquals(2, index.count(2, 1));
+        assertEquals(1, index.count(3, 1));
+        assertEquals(0, index.count(4, 1));
+        // A single-item bill has no pairs and adds no item
+        assertEquals(3, index.itemCount());
+    }
+
+    @Test
+    void topOrdersByCountThenBreaksTiesOnTheLowerCode() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        // Neighbours of 1: 9 -> 3, 5 -> 2, 7 -> 2, 2 -> 1, 8 -> 1, 4 -> 1
+        for (int i = 0; i < 3; i++) {
+            index.addBill(new long[] {1, 9});
+        }
+        index.addBill(new long[] {1, 7, 5});
+        index.addBill(new long[] {1, 5, 7});
+        index.addBill(new long[] {1, 8, 4, 2});
+
+        assertArrayEquals(new long[] {9, 5, 7, 2, 4, 8}, index.top(1, 6));
+        assertArrayEquals(new long[] {9, 5, 7, 2}, index.top(1, 4));
+        assertArrayEquals(new long[] {9}, index.top(1, 1));
+        assertArrayEquals(new long[] {1, 2, 4}, index.top(8, 3));
+    }
+
+    @Test
+    void topReturnsOnlyTheNeighboursThereAre() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        index.addBill(new long[] {1, 2});
+        index.addBill(new long[] {1, 3});
+        index.addBill(new long[] {1, 3});
+
+        assertArrayEquals(new long[] {3, 2}, index.top(1, 10));
+        assertArrayEquals(new long[0], index.top(1, 0));
+        assertArrayEquals(new long[0], index.top(42, 5));
+    }
+
+    @Test
+    void mergeAddsPartialIndexesTogether() {
+        CoPurchaseIndex left = new CoPurchaseIndex();
+        left.addBill(new long[] {1, 2});
+        left.addBill(new long[] {1, 3});
+        CoPurchaseIndex right = new CoPurchaseIndex();
+        right.addBill(new long[] {1, 3});
+        right.addBill(new long[] {1, 3});
+        right.addBill(new long[] {5, 6});
+
+        left.merge(right);
+
+        assertEquals(3, left.count(1, 3));
+        assertEquals(3, left.count(3, 1));
+        assertEquals(1, left.count(1, 2));
+        assertEquals(1, left.count(6, 5));
+        assertEquals(5, left.itemCount());
+        assertArrayEquals(new long[] {3, 2}, left.top(1, 5));
+
+        // Same totals as indexing every bill in one pass
+        CoPurchaseIndex whole = new CoPurchaseIndex();
+        for (long[] bill : new long[][] {{1, 2}, {1, 3}, {1, 3}, {1, 3}, {5, 6}}) {
+            whole.addBill(bill);
+        }
+        for (long item = 1; item <= 6; item++) {
+            assertArrayEquals(whole.top(item, 5), left.top(item, 5), "item " + item);
+        }
+    }
+}
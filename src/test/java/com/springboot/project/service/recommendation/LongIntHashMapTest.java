@@ -0,0 +1,51 @@
+package com.springboot.project.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LongIntHashMapTest {
+
+    @Test
+    void addsToExistingKeysAndReturnsZeroForMissingOnes() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.addTo(7L, 1);
+        map.addTo(7L, 2);
+        map.addTo(-3L, 5);
+
+        assertEquals(2, map.size());
+        assertEquals(3, map.get(7L));
+        assertEquals(5, map.get(-3L));
+        assertEquals(0, map.get(8L));
+    }
+
+    @Test
+    void keepsEveryEntryAcrossResizes() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        Map<Long, Integer> expected = new HashMap<>();
+        // Multiples of a large power of two collide in the low bits before mixing
+        for (long i = 1; i <= 5_000; i++) {
+            long key = i % 2 == 0 ? i << 20 : i;
+            map.addTo(key, (int) i);
+            expected.merge(key, (int) i, Integer::sum);
+        }
+        map.addTo(2L << 20, 10);
+        expected.merge(2L << 20, 10, Integer::sum);
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key), "key " + key));
+
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach((key, value) -> assertNull(visited.put(key, value)));
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void rejectsTheReservedKey() {
+        assertThrows(IllegalArgumentException.class, () -> new LongIntHashMap().addTo(0L, 1));
+    }
+}